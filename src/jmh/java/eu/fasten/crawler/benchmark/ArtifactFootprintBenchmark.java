@@ -0,0 +1,77 @@
+package eu.fasten.crawler.benchmark;
+
+import eu.fasten.crawler.data.MavenArtifact;
+import org.apache.lucene.document.Document;
+import org.openjdk.jmh.annotations.*;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.util.HashSet;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Retained heap per artifact of the artifacts read from an index chunk, reported as the `bytesPerArtifact` counter.
+ * The `interned` artifacts are read as the crawler does, the `copied` artifacts get their own identifier Strings
+ * (like artifacts did before interning). The time is of reading the documents into a HashSet.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 1)
+@Measurement(iterations = 3)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx4g"})
+public class ArtifactFootprintBenchmark {
+
+    static final int DOCUMENTS = 500_000;
+
+    @Param({"interned", "copied"})
+    public String identifiers;
+
+    private List<Document> documents;
+
+    // Keeps the artifacts reachable while measuring.
+    private Object retained;
+
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    @State(Scope.Thread)
+    public static class Footprint {
+        public long bytesPerArtifact;
+    }
+
+    @Setup
+    public void setup() {
+        documents = IndexFixture.readDocuments(IndexFixture.generateIndex(DOCUMENTS, 0.2, 42));
+    }
+
+    @Benchmark
+    public Object read(Footprint footprint) {
+        retained = null;
+        long before = usedHeap();
+
+        HashSet<MavenArtifact> artifacts = new HashSet<>();
+        for (Document doc : documents) {
+            MavenArtifact artifact = MavenArtifact.fromDocument(doc);
+            if (artifact != null) {
+                artifacts.add(identifiers.equals("interned") ? artifact : copy(artifact));
+            }
+        }
+        retained = artifacts;
+
+        footprint.bytesPerArtifact = (usedHeap() - before) / artifacts.size();
+        return retained;
+    }
+
+    private static MavenArtifact copy(MavenArtifact artifact) {
+        return new MavenArtifact(new String(artifact.getArtifactId()), new String(artifact.getGroupId()),
+                artifact.getVersion(), artifact.getTimestamp(), artifact.getRepository());
+    }
+
+    private static long usedHeap() {
+        MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return memory.getHeapMemoryUsage().getUsed();
+    }
+}
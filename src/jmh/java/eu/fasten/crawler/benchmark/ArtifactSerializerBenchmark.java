@@ -0,0 +1,78 @@
+package eu.fasten.crawler.benchmark;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import eu.fasten.crawler.data.MavenArtifact;
+import eu.fasten.crawler.output.JacksonSerializer;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Encode (crawler side) and decode (consumer side) throughput of the output formats.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ArtifactSerializerBenchmark {
+
+    @Param({"json", "cbor", "smile"})
+    public String format;
+
+    @Param({"50", "1000"})
+    public int batchSize;
+
+    private JacksonSerializer serializer;
+    private ObjectMapper mapper;
+    private MavenArtifact artifact;
+    private List<MavenArtifact> batch;
+    private byte[] encodedArtifact;
+    private byte[] encodedBatch;
+
+    @Setup
+    public void setup() {
+        serializer = JacksonSerializer.forFormat(format);
+        switch (format) {
+            case "cbor":
+                mapper = new ObjectMapper(new CBORFactory());
+                break;
+            case "smile":
+                mapper = new ObjectMapper(new SmileFactory());
+                break;
+            default:
+                mapper = new ObjectMapper();
+        }
+
+        batch = IndexFixture.generateArtifacts(batchSize);
+        artifact = batch.get(0);
+        encodedArtifact = serializer.serialize(artifact);
+        encodedBatch = serializer.serialize(batch);
+    }
+
+    @Benchmark
+    public byte[] encodeArtifact() {
+        return serializer.serialize(artifact);
+    }
+
+    @Benchmark
+    public byte[] encodeBatch() {
+        return serializer.serialize(batch);
+    }
+
+    @Benchmark
+    public JsonNode decodeArtifact() throws IOException {
+        return mapper.readTree(encodedArtifact);
+    }
+
+    @Benchmark
+    public JsonNode decodeBatch() throws IOException {
+        return mapper.readTree(encodedBatch);
+    }
+}
@@ -0,0 +1,65 @@
+package eu.fasten.crawler.benchmark;
+
+import eu.fasten.crawler.CrawlIndex;
+import eu.fasten.crawler.data.FingerprintSet;
+import eu.fasten.crawler.data.MavenArtifact;
+import org.apache.lucene.document.Document;
+import org.apache.maven.index.updater.IndexDataReader;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.ByteArrayInputStream;
+import java.util.HashSet;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput (in documents per second) of deduplicating already read documents,
+ * with the unique visitor (fingerprints) and with a HashSet of artifacts.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class DeduplicationBenchmark {
+
+    static final int DOCUMENTS = 50_000;
+
+    private List<Document> documents;
+    private CrawlIndex crawlIndex;
+
+    @Setup
+    public void setup() {
+        documents = IndexFixture.readDocuments(IndexFixture.generateIndex(DOCUMENTS, 0.2, 42));
+        crawlIndex = new CrawlIndex(0, new ByteArrayInputStream(IndexFixture.generateIndex(0, 0, 42)));
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(DOCUMENTS)
+    public FingerprintSet uniqueVisitor() {
+        FingerprintSet seen = new FingerprintSet();
+        IndexDataReader.IndexDataReadVisitor visitor = crawlIndex.setupUniqueVisitor(seen, (artifact) -> {});
+
+        for (Document doc : documents) {
+            visitor.visitDocument(doc);
+        }
+
+        return seen;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(DOCUMENTS)
+    public HashSet<MavenArtifact> hashSet() {
+        HashSet<MavenArtifact> artifactSet = new HashSet<>();
+
+        for (Document doc : documents) {
+            MavenArtifact artifact = MavenArtifact.fromDocument(doc);
+            if (artifact != null) {
+                artifactSet.add(artifact);
+            }
+        }
+
+        return artifactSet;
+    }
+}
@@ -0,0 +1,72 @@
+package eu.fasten.crawler.benchmark;
+
+import eu.fasten.crawler.data.FingerprintSet;
+import eu.fasten.crawler.data.MavenArtifact;
+import org.openjdk.jmh.annotations.*;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.util.HashSet;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Retained heap per artifact of the deduplication structures, reported as the `bytesPerArtifact` counter.
+ * Every artifact gets its own Strings, like artifacts read from an index. The time is of filling the structure.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 1)
+@Measurement(iterations = 3)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx4g"})
+public class DeduplicationFootprintBenchmark {
+
+    static final int ARTIFACTS = 2_000_000;
+
+    @Param({"hashSet", "fingerprintSet"})
+    public String structure;
+
+    // Keeps the structure reachable while measuring.
+    private Object retained;
+
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    @State(Scope.Thread)
+    public static class Footprint {
+        public long bytesPerArtifact;
+    }
+
+    @Benchmark
+    public Object fill(Footprint footprint) {
+        retained = null;
+        long before = usedHeap();
+
+        if (structure.equals("hashSet")) {
+            HashSet<MavenArtifact> set = new HashSet<>();
+            for (int i = 0; i < ARTIFACTS; i++) {
+                set.add(artifact(i));
+            }
+            retained = set;
+        } else {
+            FingerprintSet set = new FingerprintSet();
+            for (int i = 0; i < ARTIFACTS; i++) {
+                set.add(artifact(i));
+            }
+            retained = set;
+        }
+
+        footprint.bytesPerArtifact = (usedHeap() - before) / ARTIFACTS;
+        return retained;
+    }
+
+    private static MavenArtifact artifact(int i) {
+        return new MavenArtifact("artifact-" + (i % 1000), "org.example.group" + (i / 1000), "1.0." + i, 1609791717000L + i);
+    }
+
+    private static long usedHeap() {
+        MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return memory.getHeapMemoryUsage().getUsed();
+    }
+}
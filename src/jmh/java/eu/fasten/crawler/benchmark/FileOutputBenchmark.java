@@ -0,0 +1,51 @@
+package eu.fasten.crawler.benchmark;
+
+import eu.fasten.crawler.data.MavenArtifact;
+import eu.fasten.crawler.output.FileOutput;
+import org.apache.commons.io.FileUtils;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput of writing artifacts to (rotated, compressed) newline delimited JSON files.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@OperationsPerInvocation(1000)
+public class FileOutputBenchmark {
+
+    @Param({"none", "gzip", "zstd"})
+    public String compression;
+
+    private List<MavenArtifact> batch;
+    private File directory;
+    private FileOutput output;
+
+    @Setup
+    public void setup() throws IOException {
+        batch = IndexFixture.generateArtifacts(1000);
+        directory = Files.createTempDirectory("file-output-benchmark").toFile();
+        output = new FileOutput(directory, compression, 64L << 20, 0);
+        output.open();
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        output.close();
+        FileUtils.deleteDirectory(directory);
+    }
+
+    @Benchmark
+    public boolean send() {
+        return output.send(batch);
+    }
+}
@@ -0,0 +1,128 @@
+package eu.fasten.crawler.benchmark;
+
+import eu.fasten.crawler.PartImplementation;
+import eu.fasten.crawler.data.MavenArtifact;
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.Field;
+import org.apache.lucene.document.StoredField;
+import org.apache.lucene.document.StringField;
+import org.apache.maven.index.context.IndexingContext;
+import org.apache.maven.index.updater.IndexDataReader;
+import org.apache.maven.index.updater.IndexDataWriter;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Generates synthetic (incremental) indexes in the transfer format, so benchmarks don't depend on Maven Central.
+ * Documents look like the ones in a real index: artifacts spread over groups, with a name, description and checksum.
+ */
+public class IndexFixture {
+
+    public static final long TIMESTAMP = 1609791717000L;
+
+    /**
+     * Generates a gzipped index.
+     *
+     * @param documents the amount of documents.
+     * @param duplicateRatio the ratio of documents which describe an already generated release (e.g. its sources jar).
+     * @param seed the seed for the random generator.
+     * @return the index, readable by IndexDataReader.
+     */
+    public static byte[] generateIndex(int documents, double duplicateRatio, long seed) {
+        Random random = new Random(seed);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        try {
+            IndexDataWriter writer = new IndexDataWriter(out);
+            writer.writeHeader(context());
+
+            List<String> releases = new ArrayList<>();
+            for (int i = 0; i < documents; i++) {
+                if (!releases.isEmpty() && random.nextDouble() < duplicateRatio) {
+                    String release = releases.get(random.nextInt(releases.size()));
+                    writer.writeDocument(document(release, "sources", random));
+                } else {
+                    String release = "org.example.group" + random.nextInt(500) + "|artifact-" + random.nextInt(20) + "|1." + i;
+                    releases.add(release);
+                    writer.writeDocument(document(release, "NA", random));
+                }
+            }
+
+            writer.close();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+
+        return out.toByteArray();
+    }
+
+    /**
+     * Reads all documents from a (generated) index.
+     * @param index the index.
+     * @return the documents.
+     */
+    public static List<Document> readDocuments(byte[] index) {
+        List<Document> documents = new ArrayList<>();
+
+        try {
+            IndexDataReader reader = new IndexDataReader(new ByteArrayInputStream(index));
+            reader.readHeader();
+
+            Document doc;
+            while ((doc = reader.readDocument()) != null) {
+                documents.add(doc);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+
+        return documents;
+    }
+
+    /**
+     * Generates a list of unique artifacts.
+     * @param amount the amount of artifacts.
+     * @return the artifacts.
+     */
+    public static List<MavenArtifact> generateArtifacts(int amount) {
+        List<MavenArtifact> artifacts = new ArrayList<>(amount);
+        for (int i = 0; i < amount; i++) {
+            artifacts.add(new MavenArtifact("artifact-" + (i % 20), "org.example.group" + (i % 500), "1." + i, TIMESTAMP + i));
+        }
+
+        return artifacts;
+    }
+
+    private static Document document(String release, String classifier, Random random) {
+        Document doc = new Document();
+        doc.add(new StringField("u", release + "|" + classifier + "|jar", Field.Store.YES));
+        doc.add(new StoredField("i", "jar|" + TIMESTAMP + "|" + random.nextInt(1_000_000) + "|1|1|0|jar"));
+        doc.add(new StoredField("m", Long.toString(TIMESTAMP)));
+        doc.add(new StoredField("n", "Example artifact"));
+        doc.add(new StoredField("d", "A synthetic artifact generated for benchmarking."));
+        doc.add(new StringField("1", Long.toHexString(random.nextLong()) + Long.toHexString(random.nextLong()), Field.Store.YES));
+        return doc;
+    }
+
+    private static IndexingContext context() {
+        return (IndexingContext) Proxy.newProxyInstance(
+                IndexFixture.class.getClassLoader(), new Class[] { IndexingContext.class }, new TimestampContext());
+    }
+
+    /**
+     * Only provides the timestamp, which is all IndexDataWriter needs to write the header.
+     */
+    public static class TimestampContext extends PartImplementation {
+        public Date getTimestamp() {
+            return new Date(TIMESTAMP);
+        }
+    }
+}
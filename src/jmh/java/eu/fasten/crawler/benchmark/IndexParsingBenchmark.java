@@ -0,0 +1,77 @@
+package eu.fasten.crawler.benchmark;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import eu.fasten.crawler.CrawlIndex;
+import eu.fasten.crawler.data.MavenArtifact;
+import org.apache.lucene.document.Document;
+import org.apache.maven.index.context.IndexingContext;
+import org.apache.maven.index.updater.IndexDataReader;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.slf4j.LoggerFactory;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput (in documents per second) of reading an index and decoding its documents.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class IndexParsingBenchmark {
+
+    static final int DOCUMENTS = 50_000;
+
+    private byte[] index;
+    private IndexingContext context;
+
+    @Setup
+    public void setup() {
+        index = IndexFixture.generateIndex(DOCUMENTS, 0.2, 42);
+        context = CrawlIndex.getIndexingContext();
+
+        // Don't measure the crawl statistics logged for every index.
+        ((Logger) LoggerFactory.getLogger(CrawlIndex.class)).setLevel(Level.WARN);
+    }
+
+    /**
+     * Reads the index and decodes the UINFO and INFO fields directly (used by CrawlIndex).
+     */
+    @Benchmark
+    @OperationsPerInvocation(DOCUMENTS)
+    public void readIndexFastDecoder(Blackhole bh) throws IOException {
+        IndexDataReader reader = new IndexDataReader(new ByteArrayInputStream(index));
+        reader.readHeader();
+
+        Document doc;
+        while ((doc = reader.readDocument()) != null) {
+            bh.consume(MavenArtifact.fromDocument(doc));
+        }
+    }
+
+    /**
+     * Reads the index through all IndexCreators and constructs the full artifact info.
+     */
+    @Benchmark
+    @OperationsPerInvocation(DOCUMENTS)
+    public void readIndexArtifactInfo(Blackhole bh) throws IOException {
+        IndexDataReader reader = new IndexDataReader(new ByteArrayInputStream(index));
+        reader.readIndex((doc) -> bh.consume(MavenArtifact.fromDocument(doc, context)), context);
+    }
+
+    /**
+     * Crawls the index including deduplication, without sending it.
+     */
+    @Benchmark
+    @OperationsPerInvocation(DOCUMENTS)
+    public List<MavenArtifact> crawl() throws IOException {
+        return new CrawlIndex(0, new ByteArrayInputStream(index)).crawl();
+    }
+}
@@ -0,0 +1,52 @@
+package eu.fasten.crawler.benchmark;
+
+import eu.fasten.crawler.data.MavenArtifact;
+import eu.fasten.crawler.output.KafkaOutput;
+import org.apache.commons.lang3.reflect.FieldUtils;
+import org.apache.kafka.clients.producer.MockProducer;
+import org.apache.kafka.common.serialization.ByteArraySerializer;
+import org.apache.kafka.common.serialization.StringSerializer;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput of sending batches with KafkaOutput to a (auto completing) mock producer.
+ * This measures the overhead of the output itself, not of the network or broker.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class KafkaOutputBenchmark {
+
+    @Param({"50", "1000"})
+    public int batchSize;
+
+    // 0 sends synchronously.
+    @Param({"0", "8"})
+    public int inFlightBatches;
+
+    private List<MavenArtifact> batch;
+    private KafkaOutput output;
+    private MockProducer<String, byte[]> producer;
+
+    @Setup
+    public void setup() throws IllegalAccessException {
+        batch = IndexFixture.generateArtifacts(batchSize);
+        producer = new MockProducer<>(true, new StringSerializer(), new ByteArraySerializer());
+        output = new KafkaOutput("benchmark", "", batchSize);
+        output.setInFlightBatches(inFlightBatches);
+        FieldUtils.writeField(output, "producer", producer, true);
+    }
+
+    @Benchmark
+    public boolean send() {
+        boolean result = output.send(batch);
+        producer.clear();
+        return result;
+    }
+}
@@ -0,0 +1,91 @@
+package eu.fasten.crawler.benchmark;
+
+import eu.fasten.crawler.data.MavenArtifact;
+import eu.fasten.crawler.output.JacksonSerializer;
+import eu.fasten.crawler.output.KafkaOutput;
+import org.apache.kafka.common.record.CompressionType;
+import org.apache.kafka.common.record.MemoryRecords;
+import org.apache.kafka.common.record.MemoryRecordsBuilder;
+import org.apache.kafka.common.record.RecordBatch;
+import org.apache.kafka.common.record.TimestampType;
+import org.openjdk.jmh.annotations.*;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput of building Kafka record batches per producer setting, as a stand-in for a broker.
+ * The producer spends its CPU on encoding and compressing batches like this (`MemoryRecordsBuilder` is what it uses
+ * internally), and the resulting bytes are what goes over the network and is stored by the broker.
+ * `bytes` and `records` count the (compressed) batch bytes and records built, divide them for the size per record.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ProducerSettingsBenchmark {
+
+    @Param({"none", "gzip", "snappy", "lz4", "zstd"})
+    public String compression;
+
+    @Param({"true", "false"})
+    public boolean keyed;
+
+    @Param({"true", "false"})
+    public boolean idempotent;
+
+    // Records per Kafka batch, roughly what fits in the default `batch.size` of 16KiB uncompressed.
+    private static final int RECORDS = 100;
+
+    private CompressionType compressionType;
+    private byte[][] keys;
+    private byte[][] values;
+    private long[] timestamps;
+    private ByteBuffer buffer;
+
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    @State(Scope.Thread)
+    public static class Counters {
+        public long bytes;
+        public long records;
+    }
+
+    @Setup
+    public void setup() {
+        compressionType = CompressionType.forName(compression);
+
+        List<MavenArtifact> artifacts = IndexFixture.generateArtifacts(RECORDS);
+        keys = new byte[RECORDS][];
+        values = new byte[RECORDS][];
+        timestamps = new long[RECORDS];
+        for (int i = 0; i < RECORDS; i++) {
+            keys[i] = keyed ? KafkaOutput.recordKey(artifacts.get(i)).getBytes(StandardCharsets.UTF_8) : null;
+            values[i] = JacksonSerializer.JSON.serialize(artifacts.get(i));
+            timestamps[i] = artifacts.get(i).getTimestamp();
+        }
+
+        buffer = ByteBuffer.allocate(1 << 20);
+    }
+
+    @Benchmark
+    public MemoryRecords buildBatch(Counters counters) {
+        buffer.clear();
+        MemoryRecordsBuilder builder = idempotent
+                ? MemoryRecords.builder(buffer, RecordBatch.CURRENT_MAGIC_VALUE, compressionType, TimestampType.CREATE_TIME,
+                        0L, RecordBatch.NO_TIMESTAMP, 1L, (short) 0, 0)
+                : MemoryRecords.builder(buffer, compressionType, TimestampType.CREATE_TIME, 0L);
+
+        for (int i = 0; i < RECORDS; i++) {
+            builder.append(timestamps[i], keys[i], values[i]);
+        }
+
+        MemoryRecords records = builder.build();
+        counters.bytes += records.sizeInBytes();
+        counters.records += RECORDS;
+        return records;
+    }
+}
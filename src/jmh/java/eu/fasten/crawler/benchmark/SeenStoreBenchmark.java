@@ -0,0 +1,84 @@
+package eu.fasten.crawler.benchmark;
+
+import eu.fasten.crawler.data.Fingerprint;
+import eu.fasten.crawler.data.FingerprintStore;
+import eu.fasten.crawler.data.MavenArtifact;
+import org.apache.commons.io.FileUtils;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput of looking up artifacts which haven't been sent yet (the common case) in a seen store of
+ * `storedArtifacts` artifacts, with and without the Bloom filter in front of the memory-mapped table.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@OperationsPerInvocation(SeenStoreBenchmark.LOOKUPS)
+public class SeenStoreBenchmark {
+
+    static final int LOOKUPS = 10_000;
+
+    @Param({"1000000"})
+    public int storedArtifacts;
+
+    @Param({"0", "0.01"})
+    public double bloomFpp;
+
+    private File directory;
+    private FingerprintStore store;
+    private long[] lookups;
+
+    @Setup
+    public void setup() throws IOException {
+        directory = Files.createTempDirectory("seen-store-benchmark").toFile();
+        store = new FingerprintStore(new File(directory, FingerprintStore.FILE_NAME));
+
+        Fingerprint fingerprint = new Fingerprint();
+        for (int i = 0; i < storedArtifacts; i++) {
+            fingerprint.compute(artifact(i));
+            store.add(fingerprint.getHigh(), fingerprint.getLow());
+        }
+        store.commit();
+
+        if (bloomFpp > 0) {
+            store.setBloomFilter(bloomFpp, 1);
+        }
+
+        // Artifacts of a new index, which aren't in the store.
+        lookups = new long[2 * LOOKUPS];
+        for (int i = 0; i < LOOKUPS; i++) {
+            fingerprint.compute(artifact(storedArtifacts + i));
+            lookups[2 * i] = fingerprint.getHigh();
+            lookups[2 * i + 1] = fingerprint.getLow();
+        }
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        store.close();
+        FileUtils.deleteDirectory(directory);
+    }
+
+    @Benchmark
+    public int lookup() {
+        int found = 0;
+        for (int i = 0; i < lookups.length; i += 2) {
+            if (store.contains(lookups[i], lookups[i + 1])) {
+                found++;
+            }
+        }
+        return found;
+    }
+
+    private static MavenArtifact artifact(int i) {
+        return new MavenArtifact("artifact-" + (i % 1000), "org.example.group" + (i / 1000), "1.0." + i, IndexFixture.TIMESTAMP);
+    }
+}
@@ -0,0 +1,54 @@
+package eu.fasten.crawler.benchmark;
+
+import eu.fasten.crawler.data.MavenArtifact;
+import eu.fasten.crawler.output.RestOutput;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput of serializing artifacts to JSON, per artifact and per (REST) batch.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SerializationBenchmark {
+
+    @Param({"50", "1000"})
+    public int batchSize;
+
+    private MavenArtifact artifact;
+    private List<MavenArtifact> batch;
+    private RestOutput restOutput;
+
+    @Setup
+    public void setup() {
+        batch = IndexFixture.generateArtifacts(batchSize);
+        artifact = batch.get(0);
+        restOutput = new RestOutput("http://localhost/");
+    }
+
+    @Benchmark
+    public String artifactToString() {
+        return artifact.toString();
+    }
+
+    @Benchmark
+    public byte[] artifactToJsonBytes() {
+        return artifact.toJsonBytes();
+    }
+
+    @Benchmark
+    public String restBuildJsonList() {
+        return restOutput.buildJsonList(batch);
+    }
+
+    @Benchmark
+    public byte[] restBuildJsonBytes() {
+        return restOutput.buildJsonBytes(batch);
+    }
+}
@@ -0,0 +1,134 @@
+package eu.fasten.crawler;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Runs the crawler repeatedly, adapting the delay between runs to its outcome:
+ * - after a run which crawled an index, the next run starts immediately (more indexes may have been published);
+ * - after a run without a new index (or a failed run), the delay starts at `interval` and doubles for every next
+ *   such run, up to `maxInterval`.
+ * Every run is scheduled once the previous one finished (on a single thread), so runs never overlap.
+ */
+public class AdaptiveScheduler {
+
+    private static final Logger logger = LoggerFactory.getLogger(AdaptiveScheduler.class);
+
+    private static final Pattern DURATION = Pattern.compile("(\\d+)(ms|s|m|h|d)?");
+
+    /**
+     * Outcome of a single run.
+     */
+    public enum Outcome {
+        CRAWLED,
+        NOTHING_NEW,
+        FAILED
+    }
+
+    private final Supplier<Outcome> task;
+    private final Duration interval;
+    private final Duration maxInterval;
+    private final ScheduledExecutorService executor;
+
+    // Amount of consecutive runs without crawling an index.
+    private int idleRuns = 0;
+
+    /**
+     * Setup a scheduler.
+     * @param task the run, returning its outcome.
+     * @param interval the delay after the first run without a new index.
+     * @param maxInterval the maximum delay between runs, the same as `interval` disables the backoff.
+     */
+    public AdaptiveScheduler(Supplier<Outcome> task, Duration interval, Duration maxInterval) {
+        this.task = task;
+        this.interval = interval;
+        this.maxInterval = maxInterval.compareTo(interval) < 0 ? interval : maxInterval;
+        this.executor = Executors.newSingleThreadScheduledExecutor((r) -> new Thread(r, "crawl-scheduler"));
+    }
+
+    /**
+     * Starts running immediately.
+     */
+    public void start() {
+        executor.schedule(this::runOnce, 0, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Stops scheduling runs, a running run is finished.
+     */
+    public void stop() {
+        executor.shutdown();
+    }
+
+    private void runOnce() {
+        Outcome outcome;
+        try {
+            outcome = task.get();
+        } catch (RuntimeException e) {
+            logger.error("Crawl run failed unexpectedly.", e);
+            outcome = Outcome.FAILED;
+        }
+
+        Duration delay = nextDelay(outcome);
+        if (!delay.isZero()) {
+            logger.info("Next crawl attempt in " + delay + ".");
+        }
+
+        if (!executor.isShutdown()) {
+            executor.schedule(this::runOnce, delay.toMillis(), TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * Computes the delay until the next run.
+     * @param outcome the outcome of the last run.
+     * @return the delay.
+     */
+    Duration nextDelay(Outcome outcome) {
+        if (outcome == Outcome.CRAWLED) {
+            idleRuns = 0;
+            return Duration.ZERO;
+        }
+
+        // Double the interval per idle run, without overflowing.
+        Duration delay = interval.multipliedBy(1L << Math.min(idleRuns, 30));
+        idleRuns += 1;
+        return delay.compareTo(maxInterval) > 0 ? maxInterval : delay;
+    }
+
+    /**
+     * Parses a duration like `500ms`, `30s`, `5m`, `1h` or `1d`. Without a unit the amount is in hours.
+     * @param value the duration.
+     * @return the parsed duration.
+     * @throws IllegalArgumentException if the value isn't a duration.
+     */
+    public static Duration parseDuration(String value) {
+        Matcher matcher = DURATION.matcher(value.trim());
+        if (!matcher.matches()) {
+            throw new IllegalArgumentException("Expected a duration like 30s, 5m or 1h, but got " + value + ".");
+        }
+
+        long amount = Long.parseLong(matcher.group(1));
+        String unit = matcher.group(2) == null ? "h" : matcher.group(2);
+        switch (unit) {
+            case "ms":
+                return Duration.ofMillis(amount);
+            case "s":
+                return Duration.ofSeconds(amount);
+            case "m":
+                return Duration.ofMinutes(amount);
+            case "d":
+                return Duration.ofDays(amount);
+            default:
+                return Duration.ofHours(amount);
+        }
+    }
+}
@@ -2,42 +2,74 @@ package eu.fasten.crawler;
 
 import com.google.common.collect.Lists;
 import eu.fasten.crawler.output.Output;
+import eu.fasten.crawler.data.Fingerprint;
+import eu.fasten.crawler.data.FingerprintSet;
+import eu.fasten.crawler.data.FingerprintStore;
 import eu.fasten.crawler.data.MavenArtifact;
+import eu.fasten.crawler.data.Repository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Metrics;
+import org.apache.lucene.document.Document;
 import org.apache.maven.index.context.IndexCreator;
 import org.apache.maven.index.context.IndexingContext;
+import org.apache.maven.index.creator.JarFileContentsIndexCreator;
+import org.apache.maven.index.creator.MavenArchetypeArtifactInfoIndexCreator;
+import org.apache.maven.index.creator.MavenPluginArtifactInfoIndexCreator;
+import org.apache.maven.index.creator.MinimalArtifactInfoIndexCreator;
+import org.apache.maven.index.creator.OsgiArtifactIndexCreator;
+import org.apache.commons.io.input.ProxyInputStream;
 import org.apache.maven.index.updater.IndexDataReader;
-import org.codehaus.plexus.*;
-import org.codehaus.plexus.component.repository.exception.ComponentLookupException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.*;
 import java.lang.reflect.Proxy;
 import java.util.ArrayList;
-import java.util.HashSet;
+import java.util.Collection;
+import java.util.Date;
 import java.util.List;
-import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
 
 public class CrawlIndex {
 
     // Get logger.
-    private final Logger logger = LoggerFactory.getLogger(this.getClass());
+    private static final Logger logger = LoggerFactory.getLogger(CrawlIndex.class);
 
     // Id of the index.
     private final int index;
 
-    // Input files and streams.
-    private final File indexFile;
+    // Input streams.
     private BufferedInputStream is;
     private IndexDataReader reader;
 
-    // Plexus stuff.
-    private PlexusContainer plexusContainer;
-    private List<IndexCreator> indexers;
-    private IndexingContext context;
+    // Statistics of the crawl, created before the reader so the bytes of the header (read on construction) count too.
+    private final CrawlStatistics statistics = new CrawlStatistics();
 
-    // Used to keep track of nonUnique artifacts
-    private static int nonUnique = 0;
+    // Repository the index belongs to.
+    private Repository repository = Repository.MAVEN_CENTRAL;
+
+    // Artifacts sent for earlier indexes, these are skipped (optional).
+    private FingerprintStore seenStore = null;
+
+    // Documents read by all crawls, by result. Reported every `REPORT_INTERVAL` documents, not per document.
+    private static final int REPORT_INTERVAL = 1 << 13;
+    private static final Counter uniqueDocuments = documentCounter("unique");
+    private static final Counter duplicateDocuments = documentCounter("duplicate");
+    private static final Counter alreadySentDocuments = documentCounter("already_sent");
+    private static final Counter invalidDocuments = documentCounter("invalid");
+    private static final Counter seenStoreFailures = Counter.builder("crawler.seen_store.failures")
+            .description("Failures to store sent artifacts in the seen store")
+            .register(Metrics.globalRegistry);
+    private long reportedDocuments, reportedDuplicates, reportedAlreadySent, reportedSkipped;
+
+    // Publish date of the index, once read.
+    private Date timestamp = null;
+
+    // Marks the end of the index in the streaming queue.
+    private static final List<MavenArtifact> END_OF_INDEX = new ArrayList<>(0);
 
     /**
      * Crawls a Maven Central (Lucene) index and outputs it.
@@ -46,48 +78,97 @@ public class CrawlIndex {
      * @param indexFile the index file (we expect a `.gz` Lucene index, generated by the Maven Indexer API).
      */
     public CrawlIndex(int index, File indexFile) {
+        this(index, openFile(index, indexFile));
+    }
+
+    /**
+     * Crawls a Maven Central (Lucene) index from a stream and outputs it.
+     * This allows to parse an index while it is being downloaded, the stream is closed once crawled.
+     *
+     * @param index the index number.
+     * @param inputStream the index stream (we expect a `.gz` Lucene index, generated by the Maven Indexer API).
+     */
+    public CrawlIndex(int index, InputStream inputStream) {
         this.index = index;
-        this.indexFile = indexFile;
         try {
-            this.is = new BufferedInputStream(new FileInputStream(this.indexFile));
+            this.is = new BufferedInputStream(new ProxyInputStream(inputStream) {
+                @Override
+                protected void afterRead(int n) {
+                    if (n > 0) {
+                        statistics.bytesRead(n);
+                    }
+                }
+            });
             this.reader = new IndexDataReader(is);
         } catch (IOException e) {
-            throw new IllegalArgumentException("Maven repository file can't be found for index: " + this.index, e);
+            throw new IllegalArgumentException("Maven repository stream can't be read for index: " + this.index, e);
         }
+    }
 
-        setupPlexus();
+    /**
+     * Skips artifacts which have been sent for earlier indexes, and stores the artifacts of this index once they
+     * are sent (and flushed) successfully.
+     * @param seenStore the store of sent artifacts, null disables this.
+     */
+    public void setSeenStore(FingerprintStore seenStore) {
+        this.seenStore = seenStore;
     }
 
     /**
-     * Setup Plexus, somehow we can't avoid this unfortunately.
+     * Sets the repository the index belongs to, which is included in the crawled artifacts.
+     * @param repository the repository, defaults to Maven Central.
      */
-    private void setupPlexus() {
-        try {
-            this.plexusContainer = new DefaultPlexusContainer();
-            final DefaultContainerConfiguration configuration = new DefaultContainerConfiguration();
-            configuration.setClassWorld( ( (DefaultPlexusContainer) this.plexusContainer ).getClassWorld() );
-            configuration.setClassPathScanning( PlexusConstants.SCANNING_INDEX );
+    public void setRepository(Repository repository) {
+        this.repository = repository;
+    }
 
-            this.plexusContainer = new DefaultPlexusContainer(configuration);
-        } catch (PlexusContainerException e) {
-            throw new RuntimeException("Cannot construct PlexusContainer for MavenCrawler.", e);
+    private static InputStream openFile(int index, File indexFile) {
+        try {
+            return new FileInputStream(indexFile);
+        } catch (IOException e) {
+            throw new IllegalArgumentException("Maven repository file can't be found for index: " + index, e);
         }
+    }
 
+    /**
+     * Closes the input stream, failures are only logged as the index has been read by then.
+     */
+    private void closeInput() {
         try {
-            this.indexers = new ArrayList<IndexCreator>();
-            for (Object component : plexusContainer.lookupList(IndexCreator.class)) {
-                indexers.add((IndexCreator) component);
-            }
-        } catch (ComponentLookupException e) {
-            throw new RuntimeException("Cannot add IndexCreators for MavenCrawler.", e);
+            is.close();
+        } catch (IOException e) {
+            logger.warn("Failed closing input of index " + index + ".", e);
         }
+    }
 
-        this.context = (IndexingContext) Proxy.newProxyInstance(
-                getClass().getClassLoader(), new Class[] { IndexingContext.class }, new PartImplementation()
+    /**
+     * Returns an IndexingContext with the default IndexCreators, only needed for `MavenArtifact.fromDocument(document, context)`.
+     * The context is created once and shared by all CrawlIndex instances. Its IndexCreators are constructed directly,
+     * instead of setting up a Plexus container (with classpath scanning) for every index.
+     *
+     * @return the shared context.
+     */
+    public static IndexingContext getIndexingContext() {
+        return SharedContext.CONTEXT;
+    }
+
+    /**
+     * Lazily holds the shared IndexingContext.
+     */
+    private static class SharedContext {
+        private static final List<IndexCreator> INDEXERS = List.of(
+                new MinimalArtifactInfoIndexCreator(),
+                new JarFileContentsIndexCreator(),
+                new MavenPluginArtifactInfoIndexCreator(),
+                new MavenArchetypeArtifactInfoIndexCreator(),
+                new OsgiArtifactIndexCreator());
+
+        private static final IndexingContext CONTEXT = (IndexingContext) Proxy.newProxyInstance(
+                CrawlIndex.class.getClassLoader(), new Class[] { IndexingContext.class }, new PartImplementation()
                 {
                     public List<IndexCreator> getIndexCreators()
                     {
-                        return indexers;
+                        return INDEXERS;
                     }
                 });
     }
@@ -98,23 +179,73 @@ public class CrawlIndex {
      *
      * @param output the class to output to (E.g. Kafka).
      * @param batchSize the batch size to send to the output.
+     * @return the result of the crawl.
      */
-    public boolean crawlAndSend(Output output, int batchSize) {
-        nonUnique = 0;
-        HashSet<MavenArtifact> artifactSet = new HashSet<>();
+    public CrawlResult crawlAndSend(Output output, int batchSize) {
+        List<MavenArtifact> artifacts;
+        try {
+            artifacts = crawl();
+        } catch (IOException e) {
+            logger.error("IOException while reading from the index. " + index + ". Exiting current crawl session.", e);
+            return new CrawlResult(index, false, statistics, null);
+        }
 
-        // Setup output.
-        output.open();
+        if (!send(index, repository, output, batchSize, artifacts)) {
+            return new CrawlResult(index, false, statistics, timestamp);
+        }
+
+        if (seenStore != null) {
+            commitSeen(() -> seenStore.addAll(artifacts));
+        }
+        return new CrawlResult(index, true, statistics, timestamp);
+    }
 
-        IndexDataReader.IndexDataReadVisitor visitor = setupUniqueVisitor(artifactSet);
+    /**
+     * Crawls the index without outputting it.
+     * This allows indexes to be crawled ahead (and concurrently), while sending them in order later on.
+     *
+     * @return the unique artifacts in this index, in the order they appear in the index.
+     * @throws IOException when reading from the index fails.
+     */
+    public List<MavenArtifact> crawl() throws IOException {
+        FingerprintSet seen = new FingerprintSet();
+        List<MavenArtifact> artifacts = new ArrayList<>();
 
+        IndexDataReader.IndexDataReadVisitor visitor = setupUniqueVisitor(seen, artifacts::add);
+        IndexDataReader.IndexDataReadResult result;
         try {
-            IndexDataReader.IndexDataReadResult result = reader.readIndex(visitor, context);
+            result = readIndex(visitor);
+        } finally {
+            closeInput();
+        }
 
-            // Send to output.
-            final List<List<MavenArtifact>> batchedLists = Lists.partition(Lists.newArrayList(artifactSet), batchSize);
-            for (List<MavenArtifact> artifacts : batchedLists) {
-                boolean res = output.send(artifacts);
+        timestamp = result.getTimestamp();
+        logFinished();
+
+        return artifacts;
+    }
+
+    /**
+     * Sends (crawled) artifacts to the output in batches.
+     *
+     * @param index the index the artifacts were crawled from.
+     * @param repository the repository the index belongs to, its checkpoint is passed to the output.
+     * @param output the class to output to (E.g. Kafka).
+     * @param batchSize the batch size to send to the output.
+     * @param artifacts the artifacts to send.
+     * @return if all batches were sent successfully.
+     */
+    public static boolean send(int index, Repository repository, Output output, int batchSize, Collection<MavenArtifact> artifacts) {
+        // Setup output.
+        output.open();
+
+        // Send to output, the output is closed on failure too (it may be shared with other crawls).
+        boolean flushed;
+        try {
+            final List<MavenArtifact> artifactList = artifacts instanceof List ? (List<MavenArtifact>) artifacts : Lists.newArrayList(artifacts);
+            final List<List<MavenArtifact>> batchedLists = Lists.partition(artifactList, batchSize);
+            for (List<MavenArtifact> batch : batchedLists) {
+                boolean res = output.send(batch);
 
                 if (!res) {
                     logger.error("Failed sending batch to ouput for index " + index  + ". Exiting current crawl session.");
@@ -122,46 +253,337 @@ public class CrawlIndex {
                 }
             }
 
-            // Flush and close output.
-            output.flush();
+            // Flush output, asynchronous outputs only report failed deliveries when flushing.
+            output.checkpoint(repository.getName(), index + 1);
+            flushed = output.flush();
+        } finally {
+            output.close();
+        }
+
+        if (!flushed) {
+            logger.error("Failed flushing output for index " + index  + ". Exiting current crawl session.");
+            return false;
+        }
+
+        return true;
+    }
+
+    /**
+     * Crawls the index and streams the results to the output while reading.
+     * Unique artifacts are gathered in batches which are handed to a sender thread through a bounded queue,
+     * if the queue is full reading blocks until the output catches up. This way parsing and sending overlap
+     * and only `maxPendingBatches` batches are kept in memory (next to the set used for deduplication).
+     * Note: only _unique_ artifacts are outputted. The uniqueness is defined in the MavenArtifact `equals` method.
+     *
+     * @param output the class to output to (E.g. Kafka).
+     * @param batchSize the batch size to send to the output.
+     * @param maxPendingBatches the maximum amount of batches waiting to be sent.
+     * @return the result of the crawl.
+     */
+    public CrawlResult crawlAndStream(Output output, int batchSize, int maxPendingBatches) {
+        FingerprintSet seen = new FingerprintSet();
+        BlockingQueue<List<MavenArtifact>> queue = new ArrayBlockingQueue<>(maxPendingBatches);
+        AtomicBoolean failed = new AtomicBoolean(false);
+        boolean closed = false;
+
+        // Setup output and start sending batches as soon as they are available.
+        output.open();
+        Thread sender = new Thread(() -> sendBatches(output, queue, failed), "crawl-sender-" + index);
+        sender.start();
+
+        List<MavenArtifact> batch = new ArrayList<>(batchSize);
+        IndexDataReader.IndexDataReadVisitor visitor = setupUniqueVisitor(seen, (artifact) -> {
+            batch.add(artifact);
+
+            if (batch.size() >= batchSize) {
+                enqueue(queue, new ArrayList<>(batch), failed);
+                batch.clear();
+            }
+        });
+
+        try {
+            timestamp = readIndex(visitor).getTimestamp();
+
+            // Send the last (partial) batch and wait for the sender to finish.
+            if (!batch.isEmpty()) {
+                enqueue(queue, batch, failed);
+            }
+            enqueue(queue, END_OF_INDEX, failed);
+            sender.join();
+
+            if (failed.get()) {
+                logger.error("Failed sending batch to ouput for index " + index  + ". Exiting current crawl session.");
+                return new CrawlResult(index, false, statistics, timestamp);
+            }
+
+            // Flush and close output, asynchronous outputs only report failed deliveries when flushing.
+            output.checkpoint(repository.getName(), getNextIndex());
+            boolean flushed = output.flush();
             output.close();
+            closed = true;
+
+            if (!flushed) {
+                logger.error("Failed flushing output for index " + index  + ". Exiting current crawl session.");
+                return new CrawlResult(index, false, statistics, timestamp);
+            }
 
-            logger.info("-- Finished crawling! --");
-            logger.info("Index publish date: " + result.getTimestamp().toString());
-            logger.info("Duplicate documents: " + nonUnique);
-            logger.info("Unique documents: " + artifactSet.size());
-            logger.info("Total documents: " + result.getDocumentCount());
+            if (seenStore != null) {
+                commitSeen(() -> seenStore.addAll(seen));
+            }
+
+            logFinished();
+        } catch (OutputFailedException e) {
+            logger.error("Failed sending batch to ouput for index " + index  + ". Exiting current crawl session.");
+            return new CrawlResult(index, false, statistics, null);
         } catch (IOException e) {
             logger.error("IOException while reading from the index. " + index + ". Exiting current crawl session.", e);
+            return new CrawlResult(index, false, statistics, null);
+        } catch (InterruptedException e) {
+            logger.error("Interrupted while crawling index " + index + ". Exiting current crawl session.", e);
+            Thread.currentThread().interrupt();
+            return new CrawlResult(index, false, statistics, null);
+        } finally {
+            sender.interrupt();
+            closeInput();
+            if (!closed) {
+                // Close the output on failure too (it may be shared with other crawls), once the sender stopped.
+                joinUninterruptibly(sender);
+                output.close();
+            }
+        }
+
+        return new CrawlResult(index, true, statistics, timestamp);
+    }
+
+    private static void joinUninterruptibly(Thread thread) {
+        boolean interrupted = false;
+        while (thread.isAlive()) {
+            try {
+                thread.join();
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Adds the sent artifacts to the seen store and writes it to disk.
+     * The artifacts have been delivered by then, so a failure only means they can be sent again later on. The failure
+     * is recorded in the statistics and the store isn't used for the rest of this crawl.
+     * @param add adds the artifacts to the store.
+     */
+    private void commitSeen(Runnable add) {
+        if (!commitSeen(seenStore, index, add)) {
+            statistics.seenStoreFailed();
+            seenStore = null;
+        }
+    }
+
+    /**
+     * Adds the sent artifacts of an index to the seen store and writes it to disk, failures are logged and counted.
+     * A store which failed (e.g. because it is full) shouldn't be used anymore.
+     * @param seenStore the store.
+     * @param index the index the artifacts were sent for.
+     * @param add adds the artifacts to the store.
+     * @return if the artifacts were stored.
+     */
+    static boolean commitSeen(FingerprintStore seenStore, int index, Runnable add) {
+        try {
+            add.run();
+            seenStore.commit();
+            return true;
+        } catch (RuntimeException e) {
+            logger.error("Failed storing the sent artifacts of index " + index + ", these can be sent again.", e);
+            seenStoreFailures.increment();
             return false;
+        }
+    }
+
+    private void logFinished() {
+        logger.info("-- Finished crawling! --");
+        logger.info("Index publish date: " + timestamp);
+        logger.info("Duplicate documents: " + statistics.getDuplicates());
+        if (seenStore != null) {
+            logger.info("Documents sent for earlier indexes: " + statistics.getAlreadySent());
+        }
+        logger.info("Unique documents: " + statistics.getEmitted());
+        logger.info("Total documents: " + statistics.getDocuments());
+    }
+
+    /**
+     * The next index to crawl once this index is crawled, which is the checkpoint passed to the output.
+     * @return the next index.
+     */
+    public int getNextIndex() {
+        return index + 1;
+    }
+
+    /**
+     * Get the statistics of the crawl of this index (an index is crawled once, its stream is consumed).
+     * @return the statistics.
+     */
+    public CrawlStatistics getStatistics() {
+        return statistics;
+    }
+
+    /**
+     * Puts a batch in the queue, blocks when the queue is full.
+     * @param queue the queue to put the batch in.
+     * @param batch the batch.
+     * @param failed flag which is set by the sender once the output failed.
+     * @throws OutputFailedException when the output failed, so that reading the index stops.
+     */
+    private void enqueue(BlockingQueue<List<MavenArtifact>> queue, List<MavenArtifact> batch, AtomicBoolean failed) {
+        if (failed.get()) {
+            throw new OutputFailedException();
+        }
+
+        try {
+            queue.put(batch);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new OutputFailedException();
+        }
+    }
+
+    /**
+     * Takes batches from the queue and sends them to the output until the end of the index is reached.
+     * Once sending fails (or throws), the remaining batches are drained without sending them, so the reader never
+     * blocks on a full queue.
+     * @param output the output to send to.
+     * @param queue the queue to take batches from.
+     * @param failed flag to signal a failed output.
+     */
+    private void sendBatches(Output output, BlockingQueue<List<MavenArtifact>> queue, AtomicBoolean failed) {
+        try {
+            List<MavenArtifact> batch;
+            while ((batch = queue.take()) != END_OF_INDEX) {
+                if (failed.get()) {
+                    continue;
+                }
+
+                try {
+                    if (!output.send(batch)) {
+                        failed.set(true);
+                    }
+                } catch (RuntimeException e) {
+                    logger.error("Failed sending batch to output for index " + index + ".", e);
+                    failed.set(true);
+                }
+            }
+        } catch (InterruptedException e) {
+            failed.set(true);
+        }
+    }
+
+    /**
+     * Reads all documents from the index and hands them to the visitor.
+     * Unlike `IndexDataReader.readIndex(visitor, context)` documents are passed as read, instead of rebuilding each of
+     * them through all IndexCreators. We only need a few fields, see MavenArtifact `fromDocument`.
+     *
+     * @param visitor the visitor to hand the documents to.
+     * @return the timestamp and amount of documents of the index.
+     * @throws IOException when reading from the index fails.
+     */
+    private IndexDataReader.IndexDataReadResult readIndex(IndexDataReader.IndexDataReadVisitor visitor) throws IOException {
+        long timestamp = reader.readHeader();
+
+        CrawlStatistics statistics = this.statistics;
+        reportedDocuments = reportedDuplicates = reportedAlreadySent = reportedSkipped = 0;
+
+        int documentCount = 0;
+        Document doc;
+        try {
+            while ((doc = reader.readDocument()) != null) {
+                statistics.documentRead();
+                visitor.visitDocument(doc);
+                documentCount++;
+
+                if (documentCount - reportedDocuments >= REPORT_INTERVAL) {
+                    reportDocuments(documentCount);
+                }
+            }
         } finally {
-            nonUnique = 0;
+            reportDocuments(documentCount);
         }
 
-        return true;
+        IndexDataReader.IndexDataReadResult result = new IndexDataReader.IndexDataReadResult();
+        result.setDocumentCount(documentCount);
+        result.setTimestamp(timestamp == -1 ? null : new Date(timestamp));
+        return result;
     }
 
     /**
-     * Setup DataReadVisitor which fills a set with unique artifacts.
-     * @param artifactSet reference to the set which will be filled with unique artifacts.
+     * Adds the documents read since the last report to the document counters.
+     * @param documentCount the amount of documents read so far.
+     */
+    private void reportDocuments(int documentCount) {
+        long duplicates = statistics.getDuplicates() - reportedDuplicates;
+        long sent = statistics.getAlreadySent() - reportedAlreadySent;
+        long skipped = statistics.getSkipped() - reportedSkipped;
+        duplicateDocuments.increment(duplicates);
+        alreadySentDocuments.increment(sent);
+        invalidDocuments.increment(skipped);
+        uniqueDocuments.increment(documentCount - reportedDocuments - duplicates - sent - skipped);
+
+        reportedDocuments = documentCount;
+        reportedDuplicates += duplicates;
+        reportedAlreadySent += sent;
+        reportedSkipped += skipped;
+    }
+
+    private static Counter documentCounter(String result) {
+        return Counter.builder("crawler.documents")
+                .description("Documents read from indexes")
+                .tag("result", result)
+                .register(Metrics.globalRegistry);
+    }
+
+    /**
+     * Setup DataReadVisitor which hands every unique artifact to a consumer.
+     * Artifacts are deduplicated by their fingerprint, so only 16 bytes per artifact are kept to detect duplicates.
+     * With a seen store, artifacts which have been sent for earlier indexes are skipped too.
+     * @param seen reference to the set which will be filled with the fingerprints of unique artifacts.
+     * @param onUnique called for every artifact which is seen for the first time.
      * @return the visitor.
      */
-    public IndexDataReader.IndexDataReadVisitor setupUniqueVisitor(HashSet<MavenArtifact> artifactSet) {
+    public IndexDataReader.IndexDataReadVisitor setupUniqueVisitor(FingerprintSet seen, Consumer<MavenArtifact> onUnique) {
+        Fingerprint fingerprint = new Fingerprint();
+        CrawlStatistics statistics = this.statistics;
+        Repository repository = this.repository;
         IndexDataReader.IndexDataReadVisitor visitor = (doc) -> {
-            MavenArtifact artifact = MavenArtifact.fromDocument(doc, context);
+            MavenArtifact artifact = MavenArtifact.fromDocument(doc, repository);
             if (artifact == null) {
                 logger.warn("Couldn't construct artifact info for document: " + doc.toString() + ". We will skip it.");
+                statistics.documentSkipped();
+                return;
+            }
+
+            fingerprint.compute(artifact);
+            if (seenStore != null && seenStore.contains(fingerprint.getHigh(), fingerprint.getLow())) {
+                statistics.artifactAlreadySent();
                 return;
             }
 
-            if (artifactSet.contains(artifact)) {
-                nonUnique += 1;
+            if (seen.add(fingerprint.getHigh(), fingerprint.getLow())) {
+                statistics.artifactEmitted();
+                onUnique.accept(artifact);
             } else {
-                artifactSet.add(artifact);
+                statistics.artifactDuplicate();
             }
         };
 
         return visitor;
     }
 
+    /**
+     * Thrown from within the visitor to stop reading the index once the output failed.
+     */
+    private static class OutputFailedException extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+    }
+
 }
@@ -0,0 +1,61 @@
+package eu.fasten.crawler;
+
+import java.util.Date;
+
+/**
+ * Result of crawling and outputting an index: whether it succeeded, and the statistics of the crawl.
+ * The statistics are also available for a failed crawl, up to the point where it failed.
+ */
+public class CrawlResult {
+
+    private final int index;
+    private final boolean success;
+    private final CrawlStatistics statistics;
+    private final Date timestamp;
+
+    /**
+     * @param index the crawled index.
+     * @param success if all artifacts were sent (and flushed) successfully.
+     * @param statistics the statistics of the crawl.
+     * @param timestamp the publish date of the index, null if unknown (e.g. when reading failed).
+     */
+    public CrawlResult(int index, boolean success, CrawlStatistics statistics, Date timestamp) {
+        this.index = index;
+        this.success = success;
+        this.statistics = statistics;
+        this.timestamp = timestamp;
+    }
+
+    /**
+     * @return the crawled index.
+     */
+    public int getIndex() {
+        return index;
+    }
+
+    /**
+     * @return if all artifacts were sent (and flushed) successfully.
+     */
+    public boolean isSuccess() {
+        return success;
+    }
+
+    /**
+     * @return the statistics of the crawl.
+     */
+    public CrawlStatistics getStatistics() {
+        return statistics;
+    }
+
+    /**
+     * @return the publish date of the index, null if unknown.
+     */
+    public Date getTimestamp() {
+        return timestamp;
+    }
+
+    @Override
+    public String toString() {
+        return "CrawlResult{index=" + index + ", success=" + success + ", " + statistics + "}";
+    }
+}
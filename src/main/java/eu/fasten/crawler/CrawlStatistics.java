@@ -0,0 +1,113 @@
+package eu.fasten.crawler;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Statistics of a single crawl of an index.
+ *
+ * Counters are LongAdders, so they can be updated from several threads (e.g. the reading and the sending thread)
+ * without locking, and read while the crawl is running.
+ */
+public class CrawlStatistics {
+
+    private final LongAdder documents = new LongAdder();
+    private final LongAdder skipped = new LongAdder();
+    private final LongAdder alreadySent = new LongAdder();
+    private final LongAdder duplicates = new LongAdder();
+    private final LongAdder emitted = new LongAdder();
+    private final LongAdder bytes = new LongAdder();
+    private final LongAdder seenStoreFailures = new LongAdder();
+
+    /** Counts a document read from the index. **/
+    public void documentRead() {
+        documents.increment();
+    }
+
+    /** Counts a document which couldn't be turned into an artifact. **/
+    public void documentSkipped() {
+        skipped.increment();
+    }
+
+    /** Counts an artifact which was sent for an earlier index (see the seen store). **/
+    public void artifactAlreadySent() {
+        alreadySent.increment();
+    }
+
+    /** Counts an artifact which appeared earlier in the index. **/
+    public void artifactDuplicate() {
+        duplicates.increment();
+    }
+
+    /** Counts a unique artifact which is emitted to the output. **/
+    public void artifactEmitted() {
+        emitted.increment();
+    }
+
+    /**
+     * Counts bytes read from the (compressed) index.
+     * @param amount the amount of bytes.
+     */
+    public void bytesRead(long amount) {
+        bytes.add(amount);
+    }
+
+    /** Counts a failure to store the sent artifacts in the seen store. **/
+    public void seenStoreFailed() {
+        seenStoreFailures.increment();
+    }
+
+    /**
+     * @return the amount of documents read from the index.
+     */
+    public long getDocuments() {
+        return documents.sum();
+    }
+
+    /**
+     * @return the amount of documents which couldn't be turned into an artifact.
+     */
+    public long getSkipped() {
+        return skipped.sum();
+    }
+
+    /**
+     * @return the amount of artifacts which were sent for earlier indexes.
+     */
+    public long getAlreadySent() {
+        return alreadySent.sum();
+    }
+
+    /**
+     * @return the amount of artifacts which appeared earlier in the index.
+     */
+    public long getDuplicates() {
+        return duplicates.sum();
+    }
+
+    /**
+     * @return the amount of unique artifacts emitted to the output.
+     */
+    public long getEmitted() {
+        return emitted.sum();
+    }
+
+    /**
+     * @return the amount of bytes read from the (compressed) index.
+     */
+    public long getBytes() {
+        return bytes.sum();
+    }
+
+    /**
+     * @return the amount of failures to store the sent artifacts in the seen store.
+     */
+    public long getSeenStoreFailures() {
+        return seenStoreFailures.sum();
+    }
+
+    @Override
+    public String toString() {
+        return "documents=" + getDocuments() + ", skipped=" + getSkipped() + ", alreadySent=" + getAlreadySent()
+                + ", duplicates=" + getDuplicates() + ", emitted=" + getEmitted() + ", bytes=" + getBytes() + ", seenStoreFailures=" + getSeenStoreFailures();
+    }
+}
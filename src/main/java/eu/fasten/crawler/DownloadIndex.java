@@ -1,19 +1,106 @@
 package eu.fasten.crawler;
 
-import org.codehaus.plexus.util.FileUtils;
+import com.google.common.io.ByteStreams;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.Timer;
+import org.apache.commons.io.input.ProxyInputStream;
+import org.apache.commons.io.input.TeeInputStream;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.BufferedOutputStream;
 import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
 import java.net.HttpURLConnection;
-import java.net.MalformedURLException;
 import java.net.URL;
+import java.net.URLConnection;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 
 public class DownloadIndex {
 
     private static Logger logger = LoggerFactory.getLogger(DownloadIndex.class);
-    private static final String BASE_URL = "https://repo1.maven.org/maven2/.index/nexus-maven-repository-index.";
+
+    public static final String MAVEN_CENTRAL = "https://repo1.maven.org/maven2/.index/";
+    private static final String INDEX_PREFIX = "nexus-maven-repository-index.";
+
+    // The full index and its properties, which list the incremental indexes it includes.
+    public static final String FULL_INDEX = "nexus-maven-repository-index.gz";
+    public static final String INDEX_PROPERTIES = "nexus-maven-repository-index.properties";
+    public static final String LAST_INCREMENTAL = "nexus.index.last-incremental";
+
+    // Defaults used when no downloader is configured.
+    private static final int DEFAULT_PARTS = 4;
+    public static final long DEFAULT_MIN_PART_SIZE = 4 * 1024 * 1024;
+    private static final DownloadIndex central = new DownloadIndex(MAVEN_CENTRAL);
+
+    // Metrics of all downloads, also of indexes which are streamed instead of downloaded.
+    private static final Counter downloadedBytes = Counter.builder("crawler.download.bytes")
+            .description("Bytes downloaded from the repository")
+            .baseUnit("bytes")
+            .register(Metrics.globalRegistry);
+    private static final Timer downloadDuration = Timer.builder("crawler.download.duration")
+            .description("Duration of downloading an index to disk")
+            .register(Metrics.globalRegistry);
+
+    // Where to download from and to.
+    private final String baseUrl;
+    private final File downloadDir;
+
+    // Settings for ranged downloads.
+    private final int parts;
+    private final long minPartSize;
+    private ExecutorService partPool;
+
+    /**
+     * Downloads indexes from a repository into the `/tmp` folder.
+     * @param baseUrl the url of the index directory (i.e. the `.index` directory), may also be a `file://` url.
+     */
+    public DownloadIndex(String baseUrl) {
+        this(baseUrl, new File(System.getProperty("java.io.tmpdir")), DEFAULT_PARTS, DEFAULT_MIN_PART_SIZE);
+    }
+
+    /**
+     * Downloads indexes from a repository.
+     * Large files are downloaded in several parts concurrently, every part is resumed after a crash or restart.
+     *
+     * @param baseUrl the url of the index directory (i.e. the `.index` directory), may also be a `file://` url.
+     * @param downloadDir the directory to download to.
+     * @param parts the maximum amount of parts to download concurrently.
+     * @param minPartSize the minimum size (in bytes) of a single part.
+     */
+    public DownloadIndex(String baseUrl, File downloadDir, int parts, long minPartSize) {
+        this.baseUrl = baseUrl.endsWith("/") ? baseUrl : baseUrl + "/";
+        this.downloadDir = downloadDir;
+        this.parts = Math.max(1, parts);
+        this.minPartSize = Math.max(1, minPartSize);
+    }
+
+    /**
+     * Sets the pool to download parts with, e.g. to share it between the downloaders of several repositories.
+     * By default every downloader creates its own pool of `parts` threads.
+     * @param partPool the pool.
+     */
+    public synchronized void setPartPool(ExecutorService partPool) {
+        this.partPool = partPool;
+    }
 
     /**
      * Verify if an (incremental) index exists on Maven Central.
@@ -21,33 +108,601 @@ public class DownloadIndex {
      * @return whether an index is on Maven central (or not).
      */
     public static boolean indexExists(int index) {
-        try {
-            URL url = new URL(BASE_URL + index + ".gz");
-            HttpURLConnection huc = (HttpURLConnection) url.openConnection();
+        return central.exists(index);
+    }
 
-            int responseCode = huc.getResponseCode();
-            return responseCode == 200;
+    /**
+     * Downloads a Maven Central index in the `/tmp` folder.
+     * @param index the index to download.
+     * @return the downloaded file.
+     */
+    public static File download(int index) {
+        return central.fetch(index);
+    }
+
+    /**
+     * Verify if an (incremental) index exists, using a HEAD request.
+     * @param index index to check.
+     * @return whether an index is in the repository (or not).
+     */
+    public boolean exists(int index) {
+        try {
+            return probe(indexUrl(index)) != null;
         } catch (IOException e) {
-            logger.error("IOException while checking if index " + index + " exists on Maven Central.", e);
+            logger.error("IOException while checking if index " + index + " exists on " + baseUrl + ".", e);
         }
 
         return false;
     }
 
     /**
-     * Downloads a Maven index in the `/tmp` folder.
+     * Downloads an index in the download directory.
+     * Parts of a previous (crashed) attempt are resumed.
      * @param index the index to download.
      * @return the downloaded file.
      */
-    public static File download(int index) {
+    public File fetch(int index) {
         try {
-            File tempFile = File.createTempFile("nexus-maven-repository-index.", index + ".gz");
-            FileUtils.copyURLToFile(new URL(BASE_URL + index + ".gz"), tempFile);
-
-            return tempFile;
+            return fetch(indexUrl(index), indexFile(index));
         } catch (IOException e) {
             logger.error("IOException while downloading index " + index, e);
             throw new RuntimeException("Couldn't download index. Now exiting.");
         }
     }
+
+    /**
+     * Downloads the full index (all artifacts in the repository) in the download directory, like `fetch`.
+     * @return the downloaded file.
+     * @throws IOException if the download fails.
+     */
+    public File fetchFull() throws IOException {
+        return fetch(new URL(baseUrl + FULL_INDEX), new File(downloadDir, FULL_INDEX));
+    }
+
+    private File fetch(URL url, File target) throws IOException {
+        long start = System.nanoTime();
+        try {
+            return download(url, target);
+        } finally {
+            downloadDuration.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    private File download(URL url, File target) throws IOException {
+        try {
+            return download(url, target, true);
+        } catch (RemoteFileChangedException e) {
+            logger.warn(e.getMessage() + " Restarting the download of " + url + ".");
+            return download(url, target, false);
+        }
+    }
+
+    /**
+     * Downloads a file in parts, parts of an earlier attempt are only resumed if the remote file didn't change since.
+     * @param url the url to download from.
+     * @param target the file to download to.
+     * @param resume if parts of an earlier attempt may be resumed.
+     * @return the downloaded file.
+     * @throws RemoteFileChangedException if the remote file changed while resuming.
+     * @throws IOException if the download fails.
+     */
+    private File download(URL url, File target, boolean resume) throws IOException {
+        RemoteFile remote = probe(url);
+        if (remote == null) {
+            throw new FileNotFoundException(url + " does not exist.");
+        }
+
+        downloadDir.mkdirs();
+
+        // Files like the full index are republished under the same name, so parts are only valid for the same version.
+        File validatorFile = new File(target.getPath() + ".validator");
+        if (!resume || remote.validator == null || !remote.validator.equals(readValidator(validatorFile))) {
+            removeStaleParts(target, List.of());
+            validatorFile.delete();
+        }
+        if (remote.validator != null) {
+            Files.writeString(validatorFile.toPath(), remote.validator);
+        }
+
+        List<Part> layout = split(target, remote);
+        removeStaleParts(target, layout);
+
+        if (layout.size() == 1) {
+            layout.get(0).download(url, remote.validator);
+        } else {
+            downloadConcurrently(url, remote.validator, layout);
+        }
+
+        concatenate(layout, target);
+        validatorFile.delete();
+
+        if (remote.length >= 0 && target.length() != remote.length) {
+            target.delete();
+            throw new IOException("Downloaded " + target.length() + " bytes, but expected " + remote.length + ".");
+        }
+
+        return target;
+    }
+
+    /**
+     * Opens an index as a stream, so it can be parsed while downloading without a temporary file.
+     * Optionally the stream is teed to the download directory, so that a retry doesn't need to download the index again.
+     * Once such a (complete) copy exists it is opened instead of the remote index, until it is deleted.
+     *
+     * @param index the index to open.
+     * @param tee if the stream should be copied to the download directory.
+     * @return the (gzipped) index stream.
+     * @throws IOException if the index doesn't exist or can't be opened.
+     */
+    public InputStream open(int index, boolean tee) throws IOException {
+        return open(indexUrl(index), indexFile(index), tee);
+    }
+
+    /**
+     * Opens the full index (all artifacts in the repository) as a stream, like `open`.
+     * @param tee if the stream should be copied to the download directory.
+     * @return the (gzipped) index stream.
+     * @throws IOException if the index doesn't exist or can't be opened.
+     */
+    public InputStream openFull(boolean tee) throws IOException {
+        return open(new URL(baseUrl + FULL_INDEX), new File(downloadDir, FULL_INDEX), tee);
+    }
+
+    private InputStream open(URL url, File target, boolean tee) throws IOException {
+        if (tee && target.exists()) {
+            logger.info("Opening " + url + " from earlier download " + target + ".");
+            return new FileInputStream(target);
+        }
+
+        RemoteFile remote = probe(url);
+        if (remote == null) {
+            throw new FileNotFoundException(url + " does not exist.");
+        }
+
+        InputStream in = openRange(url, 0, -1);
+        if (!tee) {
+            return in;
+        }
+
+        downloadDir.mkdirs();
+        return new TeeToFileInputStream(in, new File(target.getPath() + ".tee"), target, remote.length);
+    }
+
+    /**
+     * Deletes a downloaded (or teed) index from the download directory.
+     * @param index the index to delete.
+     */
+    public void delete(int index) {
+        indexFile(index).delete();
+    }
+
+    /**
+     * Deletes the downloaded (or teed) full index from the download directory.
+     */
+    public void deleteFull() {
+        new File(downloadDir, FULL_INDEX).delete();
+    }
+
+    /**
+     * Reads the properties of the index, e.g. the last incremental index which is included in the full index.
+     * @return the properties.
+     * @throws IOException if the properties can't be read.
+     */
+    public Properties fetchProperties() throws IOException {
+        Properties properties = new Properties();
+        try (InputStream in = openRange(new URL(baseUrl + INDEX_PROPERTIES), 0, -1)) {
+            properties.load(in);
+        }
+
+        return properties;
+    }
+
+    /**
+     * Reads the last published incremental index from the properties of the index.
+     * @return the last incremental index.
+     * @throws IOException if the properties can't be read or don't contain the last incremental index.
+     */
+    public int fetchLastIncremental() throws IOException {
+        String lastIncremental = fetchProperties().getProperty(LAST_INCREMENTAL);
+        try {
+            return Integer.parseInt(lastIncremental);
+        } catch (NumberFormatException e) {
+            throw new IOException("Expected " + LAST_INCREMENTAL + " in " + baseUrl + INDEX_PROPERTIES + ", but got " + lastIncremental + ".", e);
+        }
+    }
+
+    /**
+     * Returns the base url of this downloader.
+     * @return the base url.
+     */
+    public String getBaseUrl() {
+        return baseUrl;
+    }
+
+    /**
+     * Constructs the url of an (incremental) index.
+     * @param index the index.
+     * @return the url.
+     * @throws IOException if the url is malformed.
+     */
+    private URL indexUrl(int index) throws IOException {
+        return new URL(baseUrl + INDEX_PREFIX + index + ".gz");
+    }
+
+    /**
+     * Returns the location of an index in the download directory.
+     * @param index the index.
+     * @return the file.
+     */
+    private File indexFile(int index) {
+        return new File(downloadDir, INDEX_PREFIX + index + ".gz");
+    }
+
+    /**
+     * Requests the headers of a remote file.
+     * @param url the url of the file.
+     * @return the size, range support and validator of the file, null if it doesn't exist.
+     * @throws IOException if the connection fails.
+     */
+    private RemoteFile probe(URL url) throws IOException {
+        URLConnection connection = url.openConnection();
+        if (connection instanceof HttpURLConnection) {
+            HttpURLConnection huc = (HttpURLConnection) connection;
+            huc.setRequestMethod("HEAD");
+            if (huc.getResponseCode() != 200) {
+                return null;
+            }
+
+            // If-Range only accepts a strong ETag, otherwise the modification date is used.
+            String validator = huc.getHeaderField("ETag");
+            if (validator == null || validator.startsWith("W/")) {
+                validator = huc.getHeaderField("Last-Modified");
+            }
+
+            return new RemoteFile(huc.getContentLengthLong(), "bytes".equals(huc.getHeaderField("Accept-Ranges")), validator);
+        }
+
+        // Other protocols (e.g. file://) can be skipped through.
+        try {
+            connection.connect();
+            long length = connection.getContentLengthLong();
+            long lastModified = connection.getLastModified();
+            connection.getInputStream().close();
+            return new RemoteFile(length, true, lastModified > 0 ? String.valueOf(lastModified) : null);
+        } catch (FileNotFoundException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Reads the validator of the remote file which the parts of an earlier attempt were downloaded from.
+     * @param validatorFile the file the validator is stored in.
+     * @return the validator, or null if it isn't stored.
+     */
+    private static String readValidator(File validatorFile) {
+        try {
+            return validatorFile.exists() ? Files.readString(validatorFile.toPath()) : null;
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Splits a remote file into parts, large files are split into at most `parts` parts of at least `minPartSize` bytes.
+     * @param target the file to download to.
+     * @param remote the remote file.
+     * @return the parts to download.
+     */
+    private List<Part> split(File target, RemoteFile remote) {
+        List<Part> layout = new ArrayList<>();
+        if (remote.length <= 0 || !remote.acceptsRanges) {
+            layout.add(new Part(new File(target.getPath() + ".part"), 0, -1, false));
+            return layout;
+        }
+
+        int amount = (int) Math.max(1, Math.min(parts, remote.length / minPartSize));
+        long partSize = (remote.length + amount - 1) / amount;
+        for (long start = 0; start < remote.length; start += partSize) {
+            long end = Math.min(remote.length, start + partSize) - 1;
+            layout.add(new Part(new File(target.getPath() + "." + start + "-" + end + ".part"), start, end, true));
+        }
+
+        return layout;
+    }
+
+    /**
+     * Removes parts of an earlier attempt which don't match the current layout (e.g. because the remote file changed).
+     * @param target the file to download to.
+     * @param layout the current layout.
+     */
+    private void removeStaleParts(File target, List<Part> layout) {
+        File[] existing = downloadDir.listFiles((dir, name) -> name.startsWith(target.getName() + ".") && name.endsWith(".part"));
+        if (existing == null) {
+            return;
+        }
+
+        for (File f : existing) {
+            if (layout.stream().noneMatch((p) -> p.file.equals(f))) {
+                f.delete();
+            }
+        }
+    }
+
+    /**
+     * Downloads all parts concurrently.
+     * @param url the url to download from.
+     * @param validator the validator of the remote file, null if it has none.
+     * @param layout the parts to download.
+     * @throws IOException if one of the parts fails.
+     */
+    private void downloadConcurrently(URL url, String validator, List<Part> layout) throws IOException {
+        List<Future<?>> futures = new ArrayList<>();
+        for (Part part : layout) {
+            futures.add(getPartPool().submit(() -> {
+                part.download(url, validator);
+                return null;
+            }));
+        }
+
+        try {
+            for (Future<?> f : futures) {
+                f.get();
+            }
+        } catch (ExecutionException e) {
+            futures.forEach((f) -> f.cancel(true));
+            throw e.getCause() instanceof IOException ? (IOException) e.getCause() : new IOException(e.getCause());
+        } catch (InterruptedException e) {
+            futures.forEach((f) -> f.cancel(true));
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while downloading " + url, e);
+        }
+    }
+
+    private synchronized ExecutorService getPartPool() {
+        if (partPool == null) {
+            partPool = Executors.newFixedThreadPool(parts, new ThreadFactoryBuilder()
+                    .setNameFormat("index-download-%d")
+                    .setDaemon(true)
+                    .build());
+        }
+
+        return partPool;
+    }
+
+    /**
+     * Concatenates all parts into the target file and removes the parts.
+     * @param layout the (downloaded) parts.
+     * @param target the file to write to.
+     * @throws IOException if writing fails.
+     */
+    private static void concatenate(List<Part> layout, File target) throws IOException {
+        if (layout.size() == 1) {
+            Files.move(layout.get(0).file.toPath(), target.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            return;
+        }
+
+        try (FileChannel out = FileChannel.open(target.toPath(), StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            for (Part part : layout) {
+                try (FileChannel in = FileChannel.open(part.file.toPath(), StandardOpenOption.READ)) {
+                    long position = 0;
+                    while (position < in.size()) {
+                        position += in.transferTo(position, in.size() - position, out);
+                    }
+                }
+            }
+        }
+
+        // Only remove the parts once the target is complete, so a crash while concatenating can be recovered.
+        layout.forEach((p) -> p.file.delete());
+    }
+
+    /**
+     * Opens a stream from the start offset up to (and including) the end offset, -1 means the end of the file.
+     * @param url the url to open.
+     * @param from the start offset.
+     * @param to the end offset.
+     * @return the stream.
+     * @throws IOException if the range can't be opened.
+     */
+    private static InputStream openRange(URL url, long from, long to) throws IOException {
+        return openRange(url, from, to, null);
+    }
+
+    /**
+     * Opens a stream from the start offset up to (and including) the end offset, -1 means the end of the file.
+     * @param url the url to open.
+     * @param from the start offset.
+     * @param to the end offset.
+     * @param ifRange the validator the range is only valid for (sent as `If-Range`), null to always get the range.
+     * @return the stream.
+     * @throws RemoteFileChangedException if the remote file doesn't match the validator anymore.
+     * @throws IOException if the range can't be opened.
+     */
+    private static InputStream openRange(URL url, long from, long to, String ifRange) throws IOException {
+        URLConnection connection = url.openConnection();
+        boolean ranged = from > 0 || to >= 0;
+
+        if (connection instanceof HttpURLConnection) {
+            HttpURLConnection huc = (HttpURLConnection) connection;
+            if (ranged) {
+                huc.setRequestProperty("Range", "bytes=" + from + "-" + (to >= 0 ? to : ""));
+                if (ifRange != null) {
+                    huc.setRequestProperty("If-Range", ifRange);
+                }
+            }
+
+            int responseCode = huc.getResponseCode();
+            if (ranged && ifRange != null && responseCode == 200) {
+                huc.disconnect();
+                throw new RemoteFileChangedException(url + " changed since " + ifRange + ".");
+            } else if (ranged && responseCode != 206) {
+                huc.disconnect();
+                throw new IOException("Expected partial content for " + url + ", but got " + responseCode);
+            } else if (!ranged && responseCode != 200) {
+                huc.disconnect();
+                throw new IOException("Expected response 200 for " + url + ", but got " + responseCode);
+            }
+
+            return new CountingInputStream(huc.getInputStream());
+        }
+
+        // Other protocols (e.g. file://) don't support ranges, so skip and limit the stream instead.
+        InputStream in = connection.getInputStream();
+        ByteStreams.skipFully(in, from);
+        return new CountingInputStream(to >= 0 ? ByteStreams.limit(in, to - from + 1) : in);
+    }
+
+    /**
+     * Size, range support and validator (ETag or modification date) of a remote file.
+     */
+    private static class RemoteFile {
+        private final long length;
+        private final boolean acceptsRanges;
+        private final String validator;
+
+        RemoteFile(long length, boolean acceptsRanges, String validator) {
+            this.length = length;
+            this.acceptsRanges = acceptsRanges;
+            this.validator = validator;
+        }
+    }
+
+    /**
+     * Thrown when a remote file changed while resuming its download, so the parts on disk are stale.
+     */
+    private static class RemoteFileChangedException extends IOException {
+        private static final long serialVersionUID = 1L;
+
+        RemoteFileChangedException(String message) {
+            super(message);
+        }
+    }
+
+    /**
+     * A (byte range) part of a remote file, stored in its own file.
+     */
+    private static class Part {
+        private final File file;
+        private final long start;
+        private final long end;
+        private final boolean resumable;
+
+        Part(File file, long start, long end, boolean resumable) {
+            this.file = file;
+            this.start = start;
+            this.end = end;
+            this.resumable = resumable;
+        }
+
+        /**
+         * Downloads (the remainder of) this part.
+         * @param url the url to download from.
+         * @param validator the validator of the remote file, the remainder is only requested for that version.
+         * @throws RemoteFileChangedException if the remote file changed since the part was started.
+         * @throws IOException if the download fails.
+         */
+        void download(URL url, String validator) throws IOException {
+            long done = resumable && file.exists() ? file.length() : 0;
+            long size = end - start + 1;
+            if (resumable && done > size) {
+                file.delete();
+                done = 0;
+            }
+            if (resumable && done == size) {
+                return;
+            }
+
+            try (InputStream in = openRange(url, start + done, end, done > 0 ? validator : null);
+                 OutputStream out = new FileOutputStream(file, done > 0)) {
+                in.transferTo(out);
+            }
+        }
+    }
+
+    /**
+     * Counts the bytes read in the download metrics.
+     */
+    private static class CountingInputStream extends ProxyInputStream {
+        CountingInputStream(InputStream in) {
+            super(in);
+        }
+
+        @Override
+        protected void afterRead(int n) {
+            if (n > 0) {
+                downloadedBytes.increment(n);
+            }
+        }
+    }
+
+    /**
+     * Copies everything read to a file, which is moved to its target once the stream was read completely.
+     * On close only a short tail is read (e.g. the gzip trailer after the last document), if more is left the reader
+     * stopped early (e.g. a failed or interrupted crawl) so the copy is deleted instead of downloading the remainder.
+     */
+    private static class TeeToFileInputStream extends TeeInputStream {
+        private static final int MAX_TAIL = 64 * 1024;
+
+        private final File part;
+        private final File target;
+        private final long expectedLength;
+        private long count = 0;
+        private boolean eof = false;
+
+        TeeToFileInputStream(InputStream in, File part, File target, long expectedLength) throws IOException {
+            super(in, new BufferedOutputStream(new FileOutputStream(part)), true);
+            this.part = part;
+            this.target = target;
+            this.expectedLength = expectedLength;
+        }
+
+        @Override
+        protected void afterRead(int n) {
+            if (n < 0) {
+                eof = true;
+            } else {
+                count += n;
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            boolean complete;
+            try {
+                complete = eof || readTail();
+            } finally {
+                super.close();
+            }
+
+            if (complete && (expectedLength < 0 || part.length() == expectedLength)) {
+                Files.move(part.toPath(), target.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            } else {
+                part.delete();
+            }
+        }
+
+        /**
+         * Reads the remainder of the stream, if it is at most `MAX_TAIL` bytes.
+         * @return if the end of the stream was reached.
+         */
+        private boolean readTail() {
+            if (expectedLength >= 0 && expectedLength - count > MAX_TAIL) {
+                return false;
+            }
+
+            long limit = count + MAX_TAIL;
+            byte[] buffer = new byte[8192];
+            try {
+                while (count <= limit) {
+                    if (read(buffer) < 0) {
+                        return true;
+                    }
+                }
+            } catch (IOException e) {
+                logger.warn("Failed reading the remainder of " + target + ", the copy is deleted.", e);
+            }
+
+            return false;
+        }
+    }
 }
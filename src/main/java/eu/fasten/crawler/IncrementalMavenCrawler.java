@@ -1,20 +1,42 @@
 package eu.fasten.crawler;
 
+import eu.fasten.crawler.data.FingerprintStore;
+import eu.fasten.crawler.data.MavenArtifact;
+import eu.fasten.crawler.data.Repository;
+import eu.fasten.crawler.metrics.MetricsServer;
 import eu.fasten.crawler.output.*;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.MeterBinder;
 import org.apache.commons.cli.*;
-import org.codehaus.plexus.util.FileUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import scala.Int;
 
 import java.io.File;
+import java.io.FileInputStream;
 import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
 import java.util.Properties;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
-import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.TimeUnit;
 
-public class IncrementalMavenCrawler implements Runnable {
+public class IncrementalMavenCrawler implements Runnable, MeterBinder {
 
     // Arguments for incremental maven crawler.
     static Options options = new Options();
@@ -22,8 +44,7 @@ public class IncrementalMavenCrawler implements Runnable {
             .longOpt("start_index")
             .hasArg()
             .argName("index")
-            .required()
-            .desc("Index to start crawling from (inclusive). Required.")
+            .desc("Index to start crawling from (inclusive). Required, unless bootstrapping.")
             .type(Integer.class)
             .build();
 
@@ -38,18 +59,32 @@ public class IncrementalMavenCrawler implements Runnable {
     static Option optOutputType = Option.builder("o")
             .longOpt("output")
             .hasArg()
-            .argName("[std|kafka|rest]")
-            .desc("Output to send the crawled artifacts to. Defaults to std.")
+            .argName("[std|kafka|rest|file]")
+            .desc("Output to send the crawled artifacts to, multiple outputs can be separated by a comma (e.g. kafka,rest). Defaults to std.")
             .type(String.class)
             .build();
 
+    static Option optOutputQueue = Option.builder("oq")
+            .longOpt("output_queue")
+            .hasArg()
+            .argName("batches")
+            .desc("With multiple outputs, the maximum amount of batches queued per output. Defaults to 8.")
+            .type(Integer.class)
+            .build();
+
     static Option optCrawlInterval = Option.builder("i")
             .longOpt("interval")
             .hasArg()
             .required()
-            .argName("hours")
-            .desc("Time to wait between crawl attempts (in hours). Defaults to 1 hour.")
-            .type(Integer.class)
+            .argName("duration")
+            .desc("Time to wait after a crawl attempt without a new index, e.g. 30s, 5m or 1h (a number without unit is in hours). Defaults to 1 hour.")
+            .build();
+
+    static Option optMaxInterval = Option.builder("mi")
+            .longOpt("max_interval")
+            .hasArg()
+            .argName("duration")
+            .desc("Maximum time to wait between crawl attempts, the interval is doubled for every attempt without a new index up to this. Defaults to the interval (no backoff).")
             .build();
 
     static Option optCheckpointDir = Option.builder("cd")
@@ -81,6 +116,219 @@ public class IncrementalMavenCrawler implements Runnable {
             .desc("HTTP endpoint to post crawled batches to.")
             .build();
 
+    static Option optKafkaFormat = Option.builder("kf")
+            .longOpt("kafka_format")
+            .hasArg()
+            .argName("[json|cbor|smile]")
+            .desc("Format to encode the Kafka record values with. Defaults to json.")
+            .build();
+
+    static Option optKafkaInFlight = Option.builder("kif")
+            .longOpt("kafka_in_flight")
+            .hasArg()
+            .argName("batches")
+            .desc("Send to Kafka asynchronously, keeping at most this amount of unacknowledged batches in-flight. Failures surface before checkpointing. Disabled (synchronous) by default.")
+            .type(Integer.class)
+            .build();
+
+    static Option optKafkaCompression = Option.builder("kz")
+            .longOpt("kafka_compression")
+            .hasArg()
+            .argName("[none|gzip|snappy|lz4|zstd]")
+            .desc("Compression of the Kafka record batches. Defaults to lz4.")
+            .build();
+
+    static Option optKafkaProperty = Option.builder("kp")
+            .longOpt("kafka_property")
+            .numberOfArgs(2)
+            .valueSeparator('=')
+            .argName("key=value")
+            .desc("Kafka producer setting, e.g. -kp batch.size=65536. Can be repeated and overrides the properties file. Optional.")
+            .build();
+
+    static Option optKafkaPropertiesFile = Option.builder("kpf")
+            .longOpt("kafka_properties_file")
+            .hasArg()
+            .argName("file")
+            .desc("Properties file with Kafka producer settings. Optional.")
+            .build();
+
+    static Option optKafkaCheckpointTopic = Option.builder("kct")
+            .longOpt("kafka_checkpoint_topic")
+            .hasArg()
+            .argName("topic")
+            .desc("Commit the records of every index atomically with its checkpoint to this (compacted) Kafka topic, using a transactional producer. On restart crawling continues from these checkpoints. Requires Kafka to be the only output. Disabled by default.")
+            .build();
+
+    static Option optKafkaTransactionalId = Option.builder("kti")
+            .longOpt("kafka_transactional_id")
+            .hasArg()
+            .argName("id")
+            .desc("Transactional id of the Kafka producer, suffixed with the repository name. Must be unique per deployment. Defaults to incremental-maven-crawler.")
+            .build();
+
+    static Option optRestFormat = Option.builder("rf")
+            .longOpt("rest_format")
+            .hasArg()
+            .argName("[json|cbor|smile]")
+            .desc("Format to encode the posted batches with. Defaults to json.")
+            .build();
+
+    static Option optRestConcurrency = Option.builder("rc")
+            .longOpt("rest_concurrency")
+            .hasArg()
+            .argName("requests")
+            .desc("Maximum amount of concurrent requests to the HTTP endpoint. Defaults to 1 (synchronous).")
+            .type(Integer.class)
+            .build();
+
+    static Option optRestRetries = Option.builder("rr")
+            .longOpt("rest_retries")
+            .hasArg()
+            .argName("retries")
+            .desc("Amount of times to retry failed requests or 5xx responses, with exponential backoff. Defaults to " + RestOutput.DEFAULT_RETRIES + ".")
+            .type(Integer.class)
+            .build();
+
+    static Option optRestBackoff = Option.builder("rb")
+            .longOpt("rest_backoff")
+            .hasArg()
+            .argName("ms")
+            .desc("Time to wait before the first retry, doubled for each next retry. Defaults to " + RestOutput.DEFAULT_BACKOFF + " ms.")
+            .type(Long.class)
+            .build();
+
+    static Option optRestGzip = Option.builder("rg")
+            .longOpt("rest_gzip")
+            .desc("Compress request bodies with gzip (Content-Encoding: gzip).")
+            .build();
+
+    static Option optFileDir = Option.builder("fd")
+            .longOpt("file_dir")
+            .hasArg()
+            .argName("directory")
+            .desc("Directory to write newline delimited JSON files to.")
+            .build();
+
+    static Option optFileCompression = Option.builder("fc")
+            .longOpt("file_compression")
+            .hasArg()
+            .argName("[none|gzip|zstd]")
+            .desc("Compression of the output files. Defaults to none.")
+            .build();
+
+    static Option optFileMaxSize = Option.builder("fs")
+            .longOpt("file_max_size")
+            .hasArg()
+            .argName("bytes")
+            .desc("Start a new output file after this amount of (uncompressed) bytes. No limit by default.")
+            .type(Long.class)
+            .build();
+
+    static Option optFileMaxRecords = Option.builder("fr")
+            .longOpt("file_max_records")
+            .hasArg()
+            .argName("amount")
+            .desc("Start a new output file after this amount of artifacts. No limit by default.")
+            .type(Long.class)
+            .build();
+
+    static Option optStreamQueue = Option.builder("sq")
+            .longOpt("stream_queue")
+            .hasArg()
+            .argName("batches")
+            .desc("Stream artifacts to the output while crawling, buffering at most this amount of batches. Disabled by default.")
+            .type(Integer.class)
+            .build();
+
+    static Option optCatchUpWorkers = Option.builder("cw")
+            .longOpt("catch_up_workers")
+            .hasArg()
+            .argName("workers")
+            .desc("When several indexes are pending, download and parse this amount of indexes concurrently. Disabled by default.")
+            .type(Integer.class)
+            .build();
+
+    static Option optBaseUrl = Option.builder("bu")
+            .longOpt("base_url")
+            .hasArg()
+            .argName("url")
+            .desc("Url of the index directory to crawl from, e.g. a local mirror. Defaults to " + DownloadIndex.MAVEN_CENTRAL + ".")
+            .build();
+
+    static Option optDownloadDir = Option.builder("dd")
+            .longOpt("download_dir")
+            .hasArg()
+            .argName("directory")
+            .desc("Directory to download indexes to. Partially downloaded indexes are resumed from here. Defaults to the temp directory.")
+            .build();
+
+    static Option optDownloadParts = Option.builder("dp")
+            .longOpt("download_parts")
+            .hasArg()
+            .argName("amount")
+            .desc("Maximum amount of parts to download concurrently (using HTTP ranges) for large indexes. Defaults to 4.")
+            .type(Integer.class)
+            .build();
+
+    static Option optStreamDownload = Option.builder("sd")
+            .longOpt("stream_download")
+            .desc("Parse indexes directly from the network stream instead of downloading them to a temporary file first.")
+            .build();
+
+    static Option optTeeDownload = Option.builder("td")
+            .longOpt("tee_download")
+            .desc("When streaming indexes, also copy them to the download directory so a retry doesn't download them again.")
+            .build();
+
+    static Option optSeenStore = Option.builder("ss")
+            .longOpt("seen_store")
+            .desc("Remember sent artifacts in the checkpoint directory, so an artifact which reappears in a later index isn't sent again. Requires `checkpoint_dir`.")
+            .build();
+
+    static Option optSeenBloomFpp = Option.builder("sbf")
+            .longOpt("seen_bloom_fpp")
+            .hasArg()
+            .argName("rate")
+            .desc("False positive rate of the in-memory Bloom filter which is checked before the seen store, 0 disables it. Defaults to 0.01.")
+            .type(Double.class)
+            .build();
+
+    static Option optSeenBloomSnapshot = Option.builder("sbs")
+            .longOpt("seen_bloom_snapshot")
+            .hasArg()
+            .argName("indexes")
+            .desc("Snapshot the Bloom filter to the checkpoint directory after this amount of indexes. Defaults to 10.")
+            .type(Integer.class)
+            .build();
+
+    static Option optBootstrap = Option.builder("b")
+            .longOpt("bootstrap")
+            .desc("Without a checkpoint, first crawl the full index (all artifacts) and continue with the incremental indexes published after it, instead of starting at `start_index`.")
+            .build();
+
+    static Option optMetricsPort = Option.builder("mp")
+            .longOpt("metrics_port")
+            .hasArg()
+            .argName("port")
+            .desc("Serve Prometheus metrics on http://localhost:port/metrics. Disabled by default.")
+            .type(Integer.class)
+            .build();
+
+    static Option optRepositories = Option.builder("rs")
+            .longOpt("repositories")
+            .hasArg()
+            .argName("file")
+            .desc("Properties file with several repositories to crawl concurrently, as `name.key=value` (e.g. `mirror.base_url`). Defaults to a single repository at `base_url`.")
+            .build();
+
+    // Prefix of the properties of a single repository.
+    public static final String REPOSITORY_PREFIX = "repository.";
+
+    // Keys which can be configured per repository, other properties are shared by all repositories.
+    private static final List<String> REPOSITORY_KEYS = Arrays.asList("base_url", "repository_url", "checkpoint_dir",
+            "start_index", "download_dir", "interval", "max_interval", "bootstrap");
+
     public static void main(String[] args) {
         addOptions();
         CommandLineParser parser = new DefaultParser();
@@ -93,28 +341,172 @@ public class IncrementalMavenCrawler implements Runnable {
             throw new RuntimeException(e);
         }
 
-        // Setup arguments for crawler.
+        int metricsPort = Integer.parseInt(properties.getProperty("metrics_port"));
+        if (metricsPort > 0) {
+            try {
+                new MetricsServer(metricsPort).start();
+            } catch (IOException e) {
+                throw new RuntimeException(e);
+            }
+        }
+
+        // The output and thread pools are shared by the crawlers of all repositories.
+        List<String> repositories = Arrays.asList(properties.getProperty("repositories").split(","));
+        String checkpointTopic = properties.getProperty("kafka_checkpoint_topic");
+        Output sharedOutput = null;
+        Map<String, Integer> checkpoints = new HashMap<>();
+        if (checkpointTopic.isEmpty()) {
+            sharedOutput = OutputFactory.getOutput(properties.getProperty("output"), properties);
+            if (repositories.size() > 1) {
+                sharedOutput = new SharedOutput(sharedOutput);
+            }
+        } else {
+            checkpoints = KafkaCheckpoints.read(properties.getProperty("kafka_brokers"), checkpointTopic,
+                    OutputFactory.getProducerProperties(properties));
+        }
+        int catchUpWorkers = Integer.parseInt(properties.getProperty("catch_up_workers"));
+        ExecutorService catchUpPool = catchUpWorkers > 0 ? Executors.newFixedThreadPool(catchUpWorkers, daemonThreads("catch-up")) : null;
+        ExecutorService partPool = Executors.newFixedThreadPool(Integer.parseInt(properties.getProperty("download_parts")), daemonThreads("index-download"));
+
+        // Start a crawler per repository and execute it with an interval.
+        for (String name : repositories) {
+            Properties repository = getRepositoryProperties(properties, name);
+            Output output = sharedOutput;
+            if (output == null) {
+                // A transaction holds the records of a single crawl, so every repository gets its own producer.
+                repository.setProperty("kafka_transactional_id", properties.getProperty("kafka_transactional_id") + "-" + name);
+                output = OutputFactory.getOutput(repository.getProperty("output"), repository);
+            }
+
+            IncrementalMavenCrawler crawler = createCrawler(name, repository, output, catchUpPool, partPool);
+            if (checkpoints.containsKey(name)) {
+                crawler.restoreCheckpoint(checkpoints.get(name));
+            }
+            crawler.bindTo(Metrics.globalRegistry);
+
+            Duration interval = AdaptiveScheduler.parseDuration(repository.getProperty("interval"));
+            Duration maxInterval = AdaptiveScheduler.parseDuration(repository.getProperty("max_interval"));
+            new AdaptiveScheduler(crawler::poll, interval, maxInterval).start();
+        }
+    }
+
+    /**
+     * Creates daemon threads for the pools of the crawlers, which are never shut down, so they don't keep the JVM alive.
+     * @param name the name of the threads.
+     * @return the thread factory.
+     */
+    static ThreadFactory daemonThreads(String name) {
+        return (r) -> {
+            Thread thread = new Thread(r, name);
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    /**
+     * Sets up the crawler of a single repository.
+     * @param name the name of the repository.
+     * @param properties the (verified) properties of the repository, see `getRepositoryProperties`.
+     * @param output the (shared) output.
+     * @param catchUpPool the (shared) pool to crawl indexes ahead with, null if catch-up is disabled.
+     * @param partPool the (shared) pool to download index parts with.
+     * @return the crawler.
+     */
+    static IncrementalMavenCrawler createCrawler(String name, Properties properties, Output output,
+                                                 ExecutorService catchUpPool, ExecutorService partPool) {
         int batchSize = Integer.parseInt(properties.getProperty("batch_size"));
         int startIndex = Integer.parseInt(properties.getProperty("index"));
-        int interval = Integer.parseInt(properties.getProperty("interval"));
         String checkpointDir = properties.getProperty("checkpoint_dir");
-        Output output = OutputFactory.getOutput(properties.getProperty("output"), properties);
+        DownloadIndex downloadIndex = new DownloadIndex(properties.getProperty("base_url"),
+                new File(properties.getProperty("download_dir")),
+                Integer.parseInt(properties.getProperty("download_parts")),
+                DownloadIndex.DEFAULT_MIN_PART_SIZE);
+        downloadIndex.setPartPool(partPool);
 
-        // Start cralwer and execute it with an interval.
         IncrementalMavenCrawler crawler = new IncrementalMavenCrawler(startIndex, batchSize, output, checkpointDir);
-        ScheduledExecutorService service = Executors.newSingleThreadScheduledExecutor();
-        service.scheduleAtFixedRate(crawler, 0, interval, TimeUnit.HOURS);
+        crawler.setRepository(new Repository(name, properties.getProperty("repository_url")));
+        crawler.setStreamQueue(Integer.parseInt(properties.getProperty("stream_queue")));
+        crawler.setCatchUpWorkers(Integer.parseInt(properties.getProperty("catch_up_workers")), catchUpPool);
+        crawler.setDownloadIndex(downloadIndex);
+        crawler.setStreamDownload(Boolean.parseBoolean(properties.getProperty("stream_download")),
+                Boolean.parseBoolean(properties.getProperty("tee_download")));
+        crawler.setBootstrap(Boolean.parseBoolean(properties.getProperty("bootstrap")));
+        if (Boolean.parseBoolean(properties.getProperty("seen_store"))) {
+            try {
+                FingerprintStore seenStore = new FingerprintStore(new File(checkpointDir, FingerprintStore.FILE_NAME));
+                double bloomFpp = Double.parseDouble(properties.getProperty("seen_bloom_fpp"));
+                if (bloomFpp > 0) {
+                    seenStore.setBloomFilter(bloomFpp, Integer.parseInt(properties.getProperty("seen_bloom_snapshot")));
+                }
+                crawler.setSeenStore(seenStore);
+            } catch (IOException e) {
+                throw new RuntimeException(e);
+            }
+        }
+
+        return crawler;
+    }
+
+    /**
+     * Gets the properties of a single repository: the global properties, overridden by those of the repository.
+     * @param properties the verified properties.
+     * @param name the name of the repository.
+     * @return the properties of the repository.
+     */
+    public static Properties getRepositoryProperties(Properties properties, String name) {
+        Properties repository = new Properties();
+        repository.putAll(properties);
+
+        String prefix = REPOSITORY_PREFIX + name + ".";
+        for (String key : properties.stringPropertyNames()) {
+            if (key.startsWith(prefix)) {
+                repository.setProperty(key.substring(prefix.length()), properties.getProperty(key));
+            }
+        }
+
+        return repository;
     }
 
     public static void addOptions() {
         options.addOption(optStartIndex);
         options.addOption(optBatchSize);
         options.addOption(optOutputType);
+        options.addOption(optOutputQueue);
         options.addOption(optCrawlInterval);
+        options.addOption(optMaxInterval);
         options.addOption(optCheckpointDir);
         options.addOption(optKafkaTopic);
         options.addOption(optKafkaBrokers);
         options.addOption(optRestEndpoint);
+        options.addOption(optStreamQueue);
+        options.addOption(optCatchUpWorkers);
+        options.addOption(optBaseUrl);
+        options.addOption(optDownloadDir);
+        options.addOption(optDownloadParts);
+        options.addOption(optStreamDownload);
+        options.addOption(optTeeDownload);
+        options.addOption(optKafkaFormat);
+        options.addOption(optRestFormat);
+        options.addOption(optKafkaInFlight);
+        options.addOption(optKafkaCompression);
+        options.addOption(optKafkaProperty);
+        options.addOption(optKafkaPropertiesFile);
+        options.addOption(optKafkaCheckpointTopic);
+        options.addOption(optKafkaTransactionalId);
+        options.addOption(optRestConcurrency);
+        options.addOption(optRestRetries);
+        options.addOption(optRestBackoff);
+        options.addOption(optRestGzip);
+        options.addOption(optFileDir);
+        options.addOption(optFileCompression);
+        options.addOption(optFileMaxSize);
+        options.addOption(optFileMaxRecords);
+        options.addOption(optSeenStore);
+        options.addOption(optSeenBloomFpp);
+        options.addOption(optSeenBloomSnapshot);
+        options.addOption(optBootstrap);
+        options.addOption(optMetricsPort);
+        options.addOption(optRepositories);
     }
 
     /**
@@ -126,33 +518,251 @@ public class IncrementalMavenCrawler implements Runnable {
     public static Properties verifyAndParseArguments(CommandLine cmd) throws ParseException {
         Properties props = new Properties();
 
-        if (cmd.getOptionValue("output").equals("kafka") && !(cmd.hasOption("kafka_topic") || cmd.hasOption("kafka_brokers"))) {
+        if (!cmd.hasOption("start_index") && !cmd.hasOption("bootstrap") && !cmd.hasOption("repositories")) {
+            throw new ParseException("Configured no `start_index`, which is required unless bootstrapping.");
+        }
+
+        List<String> outputs = Arrays.asList(cmd.getOptionValue("output", "std").split(","));
+        for (String output : outputs) {
+            if (!(output.equals("std") || output.equals("kafka") || output.equals("rest") || output.equals("file"))) {
+                throw new ParseException("Configured output to be " + output + ", but only std, kafka, rest and file are supported.");
+            }
+        }
+
+        if (outputs.contains("kafka") && !(cmd.hasOption("kafka_topic") || cmd.hasOption("kafka_brokers"))) {
             throw new ParseException("Configured output to be Kafka, but no `kafka_topic` or `kafka_brokers` have been configured.");
         }
 
-        if (cmd.getOptionValue("output").equals("rest") && !(cmd.hasOption("rest_endpoint"))) {
+        if (outputs.contains("rest") && !(cmd.hasOption("rest_endpoint"))) {
             throw new ParseException("Configured output to be Rest, but no `rest_endpoint` has been configured.");
         }
 
+        if (outputs.contains("file") && !(cmd.hasOption("file_dir"))) {
+            throw new ParseException("Configured output to be File, but no `file_dir` has been configured.");
+        }
+
+        if (cmd.hasOption("kafka_checkpoint_topic") && !outputs.equals(Arrays.asList("kafka"))) {
+            throw new ParseException("Configured `kafka_checkpoint_topic`, but Kafka is not the only output.");
+        }
+
+        // The full index doesn't fit in a single transaction (the transaction timeout is at most 15 minutes).
+        if (cmd.hasOption("kafka_checkpoint_topic") && cmd.hasOption("bootstrap")) {
+            throw new ParseException("Configured `kafka_checkpoint_topic` and `bootstrap`, bootstrap without `kafka_checkpoint_topic` first.");
+        }
+
+        if (cmd.hasOption("seen_store") && !cmd.hasOption("checkpoint_dir")) {
+            throw new ParseException("Configured `seen_store`, but no `checkpoint_dir` has been configured.");
+        }
+
+        String seenBloomFpp = cmd.getOptionValue("seen_bloom_fpp", "0.01");
+        try {
+            double fpp = Double.parseDouble(seenBloomFpp);
+            if (fpp < 0 || fpp >= 1) {
+                throw new ParseException("Configured `seen_bloom_fpp` to be " + seenBloomFpp + ", but it should be at least 0 and below 1.");
+            }
+        } catch (NumberFormatException e) {
+            throw new ParseException("Configured `seen_bloom_fpp` to be " + seenBloomFpp + ", but it is not a number.");
+        }
+
+        String interval = cmd.getOptionValue("interval", "1");
+        for (String duration : new String[]{interval, cmd.getOptionValue("max_interval", interval)}) {
+            try {
+                AdaptiveScheduler.parseDuration(duration);
+            } catch (IllegalArgumentException e) {
+                throw new ParseException(e.getMessage());
+            }
+        }
+
+        String metricsPort = cmd.getOptionValue("metrics_port", "0");
+        try {
+            int port = Integer.parseInt(metricsPort);
+            if (port < 0 || port > 65535) {
+                throw new ParseException("Configured `metrics_port` to be " + metricsPort + ", but it should be between 0 and 65535.");
+            }
+        } catch (NumberFormatException e) {
+            throw new ParseException("Configured `metrics_port` to be " + metricsPort + ", but it is not a number.");
+        }
+
+        String fileCompression = cmd.getOptionValue("file_compression", "none");
+        if (!(fileCompression.equals("none") || fileCompression.equals("gzip") || fileCompression.equals("zstd"))) {
+            throw new ParseException("Configured `file_compression` to be " + fileCompression + ", but only none, gzip and zstd are supported.");
+        }
+
+        for (String format : new String[]{"kafka_format", "rest_format"}) {
+            String value = cmd.getOptionValue(format, "json");
+            if (!(value.equals("json") || value.equals("cbor") || value.equals("smile"))) {
+                throw new ParseException("Configured `" + format + "` to be " + value + ", but only json, cbor and smile are supported.");
+            }
+        }
+
         props.setProperty("index", cmd.getOptionValue("start_index", "0"));
         props.setProperty("batch_size", cmd.getOptionValue("batch_size", "50"));
         props.setProperty("output", cmd.getOptionValue("output", "std"));
-        props.setProperty("interval", cmd.getOptionValue("interval", "1"));
+        props.setProperty("output_queue", cmd.getOptionValue("output_queue", "8"));
+        props.setProperty("interval", interval);
+        props.setProperty("max_interval", cmd.getOptionValue("max_interval", interval));
         props.setProperty("checkpoint_dir", cmd.getOptionValue("checkpoint_dir", ""));
         props.setProperty("kafka_topic", cmd.getOptionValue("kafka_topic", ""));
         props.setProperty("kafka_brokers", cmd.getOptionValue("kafka_brokers", ""));
         props.setProperty("rest_endpoint", cmd.getOptionValue("rest_endpoint", ""));
+        props.setProperty("stream_queue", cmd.getOptionValue("stream_queue", "0"));
+        props.setProperty("catch_up_workers", cmd.getOptionValue("catch_up_workers", "0"));
+        props.setProperty("base_url", cmd.getOptionValue("base_url", DownloadIndex.MAVEN_CENTRAL));
+        props.setProperty("download_dir", cmd.getOptionValue("download_dir", System.getProperty("java.io.tmpdir")));
+        props.setProperty("download_parts", cmd.getOptionValue("download_parts", "4"));
+        props.setProperty("stream_download", String.valueOf(cmd.hasOption("stream_download")));
+        props.setProperty("tee_download", String.valueOf(cmd.hasOption("tee_download")));
+        props.setProperty("kafka_format", cmd.getOptionValue("kafka_format", "json"));
+        props.setProperty("rest_format", cmd.getOptionValue("rest_format", "json"));
+        props.setProperty("kafka_in_flight", cmd.getOptionValue("kafka_in_flight", "0"));
+        props.setProperty("kafka_checkpoint_topic", cmd.getOptionValue("kafka_checkpoint_topic", ""));
+        props.setProperty("kafka_transactional_id", cmd.getOptionValue("kafka_transactional_id", "incremental-maven-crawler"));
+        props.setProperty("rest_concurrency", cmd.getOptionValue("rest_concurrency", "1"));
+        props.setProperty("rest_retries", cmd.getOptionValue("rest_retries", String.valueOf(RestOutput.DEFAULT_RETRIES)));
+        props.setProperty("rest_backoff", cmd.getOptionValue("rest_backoff", String.valueOf(RestOutput.DEFAULT_BACKOFF)));
+        props.setProperty("rest_gzip", String.valueOf(cmd.hasOption("rest_gzip")));
+        props.setProperty("file_dir", cmd.getOptionValue("file_dir", ""));
+        props.setProperty("file_compression", fileCompression);
+        props.setProperty("file_max_size", cmd.getOptionValue("file_max_size", "0"));
+        props.setProperty("file_max_records", cmd.getOptionValue("file_max_records", "0"));
+        props.setProperty("seen_store", String.valueOf(cmd.hasOption("seen_store")));
+        props.setProperty("bootstrap", String.valueOf(cmd.hasOption("bootstrap")));
+        props.setProperty("seen_bloom_fpp", seenBloomFpp);
+        props.setProperty("seen_bloom_snapshot", cmd.getOptionValue("seen_bloom_snapshot", "10"));
+        props.setProperty("metrics_port", metricsPort);
+        props.setProperty("metrics", String.valueOf(!metricsPort.equals("0")));
+
+        // Kafka producer settings: the properties file, overridden by the compression and separate properties.
+        Properties producerProps = new Properties();
+        if (cmd.hasOption("kafka_properties_file")) {
+            try (FileInputStream in = new FileInputStream(cmd.getOptionValue("kafka_properties_file"))) {
+                producerProps.load(in);
+            } catch (IOException e) {
+                throw new ParseException("Could not read `kafka_properties_file`: " + e.getMessage());
+            }
+        }
+        if (cmd.hasOption("kafka_compression")) {
+            producerProps.setProperty("compression.type", cmd.getOptionValue("kafka_compression"));
+        }
+        producerProps.putAll(cmd.getOptionProperties("kafka_property"));
+        for (String key : producerProps.stringPropertyNames()) {
+            props.setProperty(OutputFactory.KAFKA_PRODUCER_PREFIX + key, producerProps.getProperty(key));
+        }
+
+        if (cmd.hasOption("repositories")) {
+            Properties repositories = new Properties();
+            try (FileInputStream in = new FileInputStream(cmd.getOptionValue("repositories"))) {
+                repositories.load(in);
+            } catch (IOException e) {
+                throw new ParseException("Could not read `repositories`: " + e.getMessage());
+            }
+            verifyAndParseRepositories(repositories, cmd, props);
+        } else {
+            props.setProperty("repositories", "default");
+            props.setProperty(REPOSITORY_PREFIX + "default.repository_url",
+                    Repository.fromIndexUrl("default", props.getProperty("base_url")).getUrl());
+        }
 
         return props;
     }
 
+    /**
+     * Verifies the repositories file and stores the repositories in the properties, as `repository.name.key`.
+     * Every repository needs its own `base_url`, and its own `checkpoint_dir` if checkpointing.
+     * @param repositories the repositories, as `name.key=value`.
+     * @param cmd the parsed command line arguments.
+     * @param props the properties to store the repositories in.
+     * @throws ParseException when a repository is misconfigured.
+     */
+    private static void verifyAndParseRepositories(Properties repositories, CommandLine cmd, Properties props) throws ParseException {
+        Set<String> names = new TreeSet<>();
+        for (String key : repositories.stringPropertyNames()) {
+            int separator = key.indexOf('.');
+            if (separator <= 0 || !REPOSITORY_KEYS.contains(key.substring(separator + 1))) {
+                throw new ParseException("Unknown repository setting " + key + ", expected name.key with key one of " + REPOSITORY_KEYS + ".");
+            }
+            names.add(key.substring(0, separator));
+        }
+
+        if (names.isEmpty()) {
+            throw new ParseException("Configured `repositories`, but the file contains no repositories.");
+        }
+
+        Set<String> checkpointDirs = new HashSet<>();
+        for (String name : names) {
+            String baseUrl = repositories.getProperty(name + ".base_url");
+            if (baseUrl == null) {
+                throw new ParseException("Configured no `base_url` for repository " + name + ".");
+            }
+
+            String checkpointDir = repositories.getProperty(name + ".checkpoint_dir", props.getProperty("checkpoint_dir"));
+            if (!checkpointDir.isEmpty() && !checkpointDirs.add(new File(checkpointDir).getAbsolutePath())) {
+                throw new ParseException("Configured `checkpoint_dir` " + checkpointDir + " for more than one repository.");
+            }
+
+            boolean bootstrap = Boolean.parseBoolean(repositories.getProperty(name + ".bootstrap", props.getProperty("bootstrap")));
+            if (!repositories.containsKey(name + ".start_index") && !cmd.hasOption("start_index") && !bootstrap) {
+                throw new ParseException("Configured no `start_index` for repository " + name + ", which is required unless bootstrapping.");
+            }
+            if (bootstrap && cmd.hasOption("kafka_checkpoint_topic")) {
+                throw new ParseException("Configured `bootstrap` for repository " + name + " and `kafka_checkpoint_topic`, bootstrap without `kafka_checkpoint_topic` first.");
+            }
+
+            String prefix = REPOSITORY_PREFIX + name + ".";
+            for (String key : REPOSITORY_KEYS) {
+                String value = repositories.getProperty(name + "." + key);
+                if (value != null) {
+                    // The start index is stored as `index`, like the command line argument.
+                    props.setProperty(prefix + (key.equals("start_index") ? "index" : key), value);
+                }
+            }
+
+            // Indexes of different repositories have the same file names, so download them to separate directories.
+            if (!repositories.containsKey(name + ".download_dir")) {
+                props.setProperty(prefix + "download_dir", new File(props.getProperty("download_dir"), name).getPath());
+            }
+            if (!repositories.containsKey(name + ".repository_url")) {
+                props.setProperty(prefix + "repository_url", Repository.fromIndexUrl(name, baseUrl).getUrl());
+            }
+            for (String interval : new String[]{"interval", "max_interval"}) {
+                if (repositories.containsKey(name + "." + interval)) {
+                    try {
+                        AdaptiveScheduler.parseDuration(repositories.getProperty(name + "." + interval));
+                    } catch (IllegalArgumentException e) {
+                        throw new ParseException(e.getMessage());
+                    }
+                }
+            }
+        }
+
+        props.setProperty("repositories", String.join(",", names));
+    }
+
     private Logger logger = LoggerFactory.getLogger(this.getClass());
 
     // Crawler related settings.
-    private int index;
+    private volatile int index;
     private String checkpointDir;
     private int batchSize;
     private Output output;
+    private int streamQueue = 0;
+    private DownloadIndex downloadIndex = new DownloadIndex(DownloadIndex.MAVEN_CENTRAL);
+    private boolean streamDownload = false;
+    private boolean teeDownload = false;
+    private ExecutorService catchUpPool = null;
+    private int catchUpWorkers = 0;
+    private FingerprintStore seenStore = null;
+    private boolean bootstrap = false;
+
+    // Batches buffered while streaming the full index, if streaming isn't configured.
+    private static final int BOOTSTRAP_STREAM_QUEUE = 8;
+
+    // Repository to crawl.
+    private Repository repository = Repository.MAVEN_CENTRAL;
+    private boolean ownsCatchUpPool = false;
+
+    // Last index known to be available, -1 if not looked up yet.
+    private volatile int lastAvailableIndex = -1;
 
     /**
      * Crawls the incremental index from Maven (incrementally).
@@ -176,6 +786,119 @@ public class IncrementalMavenCrawler implements Runnable {
         logger.info("Starting IncrementalMavenCrawler with index: " + this.index + ", batch size: " + batchSize + " and output " + output.getClass().getSimpleName() + ".");
     }
 
+    /**
+     * Enables streaming artifacts to the output while crawling (instead of sending them after the whole index is read).
+     * @param streamQueue the maximum amount of batches waiting to be sent, 0 disables streaming.
+     */
+    public void setStreamQueue(int streamQueue) {
+        this.streamQueue = streamQueue;
+    }
+
+    /**
+     * Sets the downloader to fetch indexes with (e.g. to crawl from a mirror). Defaults to Maven Central.
+     * @param downloadIndex the downloader.
+     */
+    public void setDownloadIndex(DownloadIndex downloadIndex) {
+        this.downloadIndex = downloadIndex;
+    }
+
+    /**
+     * Enables parsing indexes directly from the network stream, so no temporary file is needed.
+     * @param streamDownload if indexes should be streamed instead of downloaded first.
+     * @param teeDownload if streamed indexes should be copied to the download directory, so a retry doesn't download again.
+     */
+    public void setStreamDownload(boolean streamDownload, boolean teeDownload) {
+        this.streamDownload = streamDownload;
+        this.teeDownload = streamDownload && teeDownload;
+    }
+
+    /**
+     * Enables catch-up mode: every run crawls all available indexes instead of a single one.
+     * Indexes are downloaded and parsed concurrently, but sent and checkpointed in index order.
+     * @param catchUpWorkers the amount of indexes to download and parse concurrently, 0 disables catch-up mode.
+     */
+    public void setCatchUpWorkers(int catchUpWorkers) {
+        setCatchUpWorkers(catchUpWorkers, catchUpWorkers > 0 ? Executors.newFixedThreadPool(catchUpWorkers, daemonThreads("catch-up")) : null);
+        this.ownsCatchUpPool = catchUpWorkers > 0;
+    }
+
+    /**
+     * Enables catch-up mode, see `setCatchUpWorkers(int)`, with a pool which may be shared with other crawlers.
+     * @param catchUpWorkers the amount of indexes to download and parse ahead, 0 disables catch-up mode.
+     * @param catchUpPool the pool to download and parse indexes with, which is not shut down by this crawler.
+     */
+    public void setCatchUpWorkers(int catchUpWorkers, ExecutorService catchUpPool) {
+        this.catchUpWorkers = catchUpWorkers;
+
+        if (this.catchUpPool != null && ownsCatchUpPool) {
+            this.catchUpPool.shutdown();
+        }
+        this.catchUpPool = catchUpWorkers > 0 ? catchUpPool : null;
+        this.ownsCatchUpPool = false;
+    }
+
+    /**
+     * Sets the repository which is crawled, it is included in the crawled artifacts. Defaults to Maven Central.
+     * The downloader (see `setDownloadIndex`) should point to the index of this repository.
+     * @param repository the repository.
+     */
+    public void setRepository(Repository repository) {
+        this.repository = repository;
+        this.logger = LoggerFactory.getLogger(this.getClass().getName() + "." + repository.getName());
+    }
+
+    /**
+     * Returns the repository which is crawled.
+     * @return the repository.
+     */
+    public Repository getRepository() {
+        return repository;
+    }
+
+    /**
+     * Enables skipping artifacts which have been sent for an earlier index (instead of only deduplicating per index).
+     * Artifacts are added to the store once their index has been sent successfully.
+     * @param seenStore the store of sent artifacts, null disables this.
+     */
+    public void setSeenStore(FingerprintStore seenStore) {
+        this.seenStore = seenStore;
+    }
+
+    /**
+     * Enables bootstrapping: if there is no checkpoint, the first run crawls the full index (all artifacts in the
+     * repository) and continues with the first incremental index which isn't included in it.
+     * @param bootstrap if the crawler should bootstrap.
+     */
+    public void setBootstrap(boolean bootstrap) {
+        this.bootstrap = bootstrap && !hasCheckpoint();
+    }
+
+    /**
+     * Checks if the checkpoint directory holds an index.
+     * @return if a checkpoint exists.
+     */
+    private boolean hasCheckpoint() {
+        if (this.checkpointDir == null) {
+            return false;
+        }
+
+        String[] files = new File(checkpointDir).list((dir, name) -> name.endsWith(".index"));
+        return files != null && files.length > 0;
+    }
+
+    /**
+     * Continues from a checkpoint which is stored outside the checkpoint directory, i.e. in the checkpoint topic of
+     * a transactional KafkaOutput. The highest checkpoint is picked, and bootstrapping is skipped.
+     * @param checkpoint the next index to crawl.
+     */
+    public void restoreCheckpoint(int checkpoint) {
+        if (checkpoint > this.index) {
+            logger.info("Found (committed) checkpoint in the checkpoint topic. Will start crawling from index " + checkpoint);
+            this.index = checkpoint;
+        }
+        this.bootstrap = false;
+    }
+
     /**
      * Initialize the index by checking the checkpoint directory.
      * The highest checkpoint is picked.
@@ -205,35 +928,347 @@ public class IncrementalMavenCrawler implements Runnable {
     }
 
     /**
-     * This method is called every x hours and crawls the (new) index if it exists.
+     * Registers gauges of the progress of the crawler:
+     * - `crawler.index.next`: the next index to crawl (the checkpoint);
+     * - `crawler.index.latest`: the last available index;
+     * - `crawler.index.lag`: the amount of available indexes which haven't been crawled yet.
+     * @param registry the registry to register in.
+     */
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("crawler.index.next", this, (c) -> c.index)
+                .description("Next index to crawl")
+                .tag("repository", repository.getName())
+                .strongReference(true)
+                .register(registry);
+        Gauge.builder("crawler.index.latest", this, (c) -> c.lastAvailableIndex)
+                .description("Last available index")
+                .tag("repository", repository.getName())
+                .strongReference(true)
+                .register(registry);
+        Gauge.builder("crawler.index.lag", this, (c) -> Math.max(0, c.lastAvailableIndex - c.index + 1))
+                .description("Available indexes which haven't been crawled yet")
+                .tag("repository", repository.getName())
+                .strongReference(true)
+                .register(registry);
+    }
+
+    /**
+     * Records the duration of crawling an index (or the full index) in `crawler.index.duration`.
+     * @param type the type of index, `incremental` or `full`.
+     * @param start the start time in nanoseconds.
+     * @param success if crawling succeeded.
+     */
+    private void recordCrawl(String type, long start, boolean success) {
+        Timer.builder("crawler.index.duration")
+                .description("Duration of crawling and outputting an index")
+                .tags("repository", repository.getName(), "type", type, "result", success ? "success" : "failure")
+                .register(Metrics.globalRegistry)
+                .record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Crawls the (new) indexes if they exist, see `poll`.
      */
     public void run() {
-        if (!DownloadIndex.indexExists(index)) {
+        poll();
+    }
+
+    /**
+     * This method is called by the scheduler and crawls the (new) indexes if they exist.
+     * All indexes published since the last run are crawled back-to-back, the first failure stops this run.
+     * @return the outcome, which determines when the next run starts.
+     */
+    public AdaptiveScheduler.Outcome poll() {
+        boolean bootstrapped = bootstrap;
+        if (bootstrap && !bootstrap()) {
+            return AdaptiveScheduler.Outcome.FAILED;
+        }
+
+        AdaptiveScheduler.Outcome outcome;
+        if (catchUpWorkers > 0) {
+            outcome = catchUp();
+        } else {
+            outcome = crawlPending();
+        }
+
+        return bootstrapped && outcome == AdaptiveScheduler.Outcome.NOTHING_NEW ? AdaptiveScheduler.Outcome.CRAWLED : outcome;
+    }
+
+    /**
+     * Crawls all available indexes starting from the current index, one after another.
+     * @return the outcome of this run.
+     */
+    private AdaptiveScheduler.Outcome crawlPending() {
+        int lastIndex = findLastAvailableIndex();
+        if (lastIndex < index) {
             logger.info("Attempting to download index " + index + ", but it doesn't exist yet.");
-            return;
+            return AdaptiveScheduler.Outcome.NOTHING_NEW;
         }
 
+        while (index <= lastIndex) {
+            if (!crawlNext()) {
+                return AdaptiveScheduler.Outcome.FAILED;
+            }
+        }
+
+        return AdaptiveScheduler.Outcome.CRAWLED;
+    }
+
+    /**
+     * Crawls the current index and increments it on success.
+     * @return if the index was crawled successfully.
+     */
+    private boolean crawlNext() {
         logger.info(index + " exists. Now downloading the index file.");
+        long start = System.nanoTime();
+
+        // Download (or open a stream to) the index.
+        CrawlIndex crawlIndex;
+        try {
+            crawlIndex = openIndex(index);
+        } catch (IOException | RuntimeException e) {
+            logger.error("Failed opening index " + index + ". Will retry on next interval.", e);
+            recordCrawl("incremental", start, false);
+            return false;
+        }
 
-        // Download the index.
-        File indexFile = DownloadIndex.download(index);
+        logger.info("Index successfully opened. Now crawling and outputting it.");
+        crawlIndex.setSeenStore(seenStore);
 
-        logger.info("Index file successfully downloaded. Now crawling and outputting it.");
+        // Crawl the index.
+        CrawlResult result = streamQueue > 0
+                ? crawlIndex.crawlAndStream(output, batchSize, streamQueue)
+                : crawlIndex.crawlAndSend(output, batchSize);
+        boolean success = result.isSuccess();
 
-        // Setup crawler.
-        CrawlIndex crawlIndex = new CrawlIndex(index, indexFile);
-        boolean success = crawlIndex.crawlAndSend(output, batchSize);
+        recordCrawl("incremental", start, success);
+        if (result.getStatistics().getSeenStoreFailures() > 0) {
+            disableSeenStore();
+        }
 
-        // Delete the index file.
-        indexFile.delete();
+        // Delete the index file, a teed copy is kept for a retry.
+        if (success || !teeDownload) {
+            downloadIndex.delete(index);
+        }
 
         if (success) {
-            logger.info("Index " + index + " successfully crawled.");
+            logger.info("Index " + index + " successfully crawled (" + result.getStatistics() + ").");
             // Update (and increment) the index.
             updateIndex();
         } else {
             logger.warn("Failed crawling index " + index + ". Will retry on next interval.");
         }
+
+        return success;
+    }
+
+    /**
+     * Crawls the full index, which is streamed to the output so only the fingerprints of the artifacts are kept in
+     * memory. The properties of the index are read first, so that the incremental indexes which are published
+     * meanwhile are crawled afterwards (if the full index is updated meanwhile, its new artifacts are sent twice).
+     * On success the index is checkpointed at the first incremental index after the full index.
+     * @return if bootstrapping succeeded.
+     */
+    public boolean bootstrap() {
+        int lastIncremental;
+        try {
+            lastIncremental = downloadIndex.fetchLastIncremental();
+        } catch (IOException e) {
+            logger.error("Failed reading the last incremental index from the index properties. Will retry on next interval.", e);
+            return false;
+        }
+
+        logger.info("Bootstrapping from the full index, which includes incremental index " + lastIncremental + ".");
+        long start = System.nanoTime();
+
+        CrawlIndex crawlIndex;
+        try {
+            crawlIndex = new CrawlIndex(lastIncremental, streamDownload ? downloadIndex.openFull(teeDownload) : new FileInputStream(downloadIndex.fetchFull()));
+        } catch (IOException e) {
+            logger.error("Failed opening the full index. Will retry on next interval.", e);
+            recordCrawl("full", start, false);
+            return false;
+        }
+
+        crawlIndex.setRepository(repository);
+        crawlIndex.setSeenStore(seenStore);
+        CrawlResult result = crawlIndex.crawlAndStream(output, batchSize, streamQueue > 0 ? streamQueue : BOOTSTRAP_STREAM_QUEUE);
+        boolean success = result.isSuccess();
+        recordCrawl("full", start, success);
+        if (result.getStatistics().getSeenStoreFailures() > 0) {
+            disableSeenStore();
+        }
+
+        // Delete the index file, a teed copy is kept for a retry.
+        if (success || !teeDownload) {
+            downloadIndex.deleteFull();
+        }
+
+        if (!success) {
+            logger.warn("Failed crawling the full index. Will retry on next interval.");
+            return false;
+        }
+
+        logger.info("Full index successfully crawled.");
+        this.bootstrap = false;
+        updateIndex(crawlIndex.getNextIndex());
+        return true;
+    }
+
+    /**
+     * Crawls all available indexes starting from the current index.
+     * At most `catchUpWorkers` indexes are downloaded and parsed ahead, while the results are sent to the output
+     * (and checkpointed) strictly in index order. The first failure stops this run, it is retried on the next interval.
+     * @return the outcome of this run.
+     */
+    public AdaptiveScheduler.Outcome catchUp() {
+        int lastIndex = findLastAvailableIndex();
+        if (lastIndex < index) {
+            logger.info("Attempting to download index " + index + ", but it doesn't exist yet.");
+            return AdaptiveScheduler.Outcome.NOTHING_NEW;
+        }
+
+        logger.info("Catching up on indexes " + index + " to " + lastIndex + " with " + catchUpWorkers + " workers.");
+
+        // Crawl ahead, bounded by the amount of workers so that memory usage stays bounded too.
+        Deque<Future<List<MavenArtifact>>> pending = new ArrayDeque<>();
+        int nextToCrawl = index;
+        long start = System.nanoTime();
+        try {
+            while (index <= lastIndex) {
+                while (nextToCrawl <= lastIndex && pending.size() < catchUpWorkers) {
+                    final int crawlIndex = nextToCrawl++;
+                    pending.add(catchUpPool.submit(() -> downloadAndCrawl(crawlIndex)));
+                }
+
+                List<MavenArtifact> artifacts = pending.poll().get();
+
+                // Indexes are crawled ahead, so only skip sent artifacts once the previous indexes are stored.
+                if (seenStore != null) {
+                    artifacts.removeIf(seenStore::contains);
+                }
+
+                if (!CrawlIndex.send(index, repository, output, batchSize, artifacts)) {
+                    logger.warn("Failed crawling index " + index + ". Will retry on next interval.");
+                    recordCrawl("incremental", start, false);
+                    return AdaptiveScheduler.Outcome.FAILED;
+                }
+
+                if (seenStore != null) {
+                    storeSeen(artifacts);
+                }
+
+                logger.info("Index " + index + " successfully crawled.");
+                downloadIndex.delete(index);
+                updateIndex();
+
+                // Indexes are crawled concurrently, so this is the time between consecutive indexes being sent.
+                recordCrawl("incremental", start, true);
+                start = System.nanoTime();
+            }
+        } catch (ExecutionException e) {
+            logger.warn("Failed crawling index " + index + ". Will retry on next interval.", e.getCause());
+            recordCrawl("incremental", start, false);
+            return AdaptiveScheduler.Outcome.FAILED;
+        } catch (InterruptedException e) {
+            logger.warn("Interrupted while crawling index " + index + ".");
+            Thread.currentThread().interrupt();
+            return AdaptiveScheduler.Outcome.FAILED;
+        } finally {
+            pending.forEach((f) -> f.cancel(true));
+        }
+
+        return AdaptiveScheduler.Outcome.CRAWLED;
+    }
+
+    /**
+     * Adds the sent artifacts of the current index to the seen store.
+     * @param artifacts the sent artifacts.
+     */
+    private void storeSeen(List<MavenArtifact> artifacts) {
+        if (!CrawlIndex.commitSeen(seenStore, index, () -> seenStore.addAll(artifacts))) {
+            disableSeenStore();
+        }
+    }
+
+    /**
+     * Stops using the seen store after it failed (e.g. because it is full), so artifacts which were sent for earlier
+     * indexes are sent again instead of failing every crawl.
+     */
+    private void disableSeenStore() {
+        if (seenStore == null) {
+            return;
+        }
+
+        logger.error("The seen store failed and is disabled, artifacts sent for earlier indexes can be sent again.");
+        try {
+            seenStore.close();
+        } catch (RuntimeException e) {
+            logger.warn("Failed closing the seen store.", e);
+        }
+        seenStore = null;
+    }
+
+    /**
+     * Downloads and crawls (but does not output) a single index.
+     * @param crawlIndex the index to crawl.
+     * @return the unique artifacts of this index.
+     * @throws IOException when reading the index fails.
+     */
+    private List<MavenArtifact> downloadAndCrawl(int crawlIndex) throws IOException {
+        try {
+            return openIndex(crawlIndex).crawl();
+        } finally {
+            if (!teeDownload) {
+                downloadIndex.delete(crawlIndex);
+            }
+        }
+    }
+
+    /**
+     * Opens an index for crawling, either by downloading it or by streaming it directly from the repository.
+     * @param crawlIndex the index to open.
+     * @return the crawler for this index.
+     * @throws IOException when opening the index stream fails.
+     */
+    private CrawlIndex openIndex(int crawlIndex) throws IOException {
+        CrawlIndex index = streamDownload
+                ? new CrawlIndex(crawlIndex, downloadIndex.open(crawlIndex, teeDownload))
+                : new CrawlIndex(crawlIndex, downloadIndex.fetch(crawlIndex));
+        index.setRepository(repository);
+        return index;
+    }
+
+    /**
+     * Finds the last available index, as published in the index properties. This is a single request, instead of
+     * probing every index. If the properties can't be read (e.g. a mirror without them), the indexes are probed.
+     * @return the last available index or `index - 1` if no new index is available.
+     */
+    public int findLastAvailableIndex() {
+        int lastIndex;
+        try {
+            lastIndex = Math.max(index - 1, downloadIndex.fetchLastIncremental());
+        } catch (IOException e) {
+            logger.warn("Failed reading the last incremental index from the index properties, probing indexes instead.", e);
+            lastIndex = probeLastAvailableIndex();
+        }
+
+        lastAvailableIndex = lastIndex;
+        return lastIndex;
+    }
+
+    /**
+     * Finds the last index in the sequence of available indexes, starting from the current index.
+     * @return the last available index or `index - 1` if no new index is available.
+     */
+    public int probeLastAvailableIndex() {
+        int lastIndex = index - 1;
+        while (downloadIndex.exists(lastIndex + 1)) {
+            lastIndex += 1;
+        }
+
+        return lastIndex;
     }
 
     /**
@@ -241,7 +1276,15 @@ public class IncrementalMavenCrawler implements Runnable {
      * Also stores the (new) index in the checkpoint directory (if it is enabled).
      */
     public void updateIndex() {
-        this.index += 1;
+        updateIndex(this.index + 1);
+    }
+
+    /**
+     * Sets the index, i.e. the next index to crawl, and stores it in the checkpoint directory (if it is enabled).
+     * @param nextIndex the next index to crawl, the same as the checkpoint passed to the output (see `CrawlIndex.getNextIndex`).
+     */
+    private void updateIndex(int nextIndex) {
+        this.index = nextIndex;
 
         // If checkpointing is disabled, return.
         if (checkpointDir == null) {
@@ -249,13 +1292,17 @@ public class IncrementalMavenCrawler implements Runnable {
         }
 
         try {
-            // Clean directory.
-            FileUtils.cleanDirectory(checkpointDir);
-
             // Create checkpoint file.
             File checkpointFile = new File(checkpointDir + this.index + ".index");
             checkpointFile.getParentFile().mkdirs();
             checkpointFile.createNewFile();
+
+            // Remove the older checkpoints, other files (e.g. the seen store) are kept.
+            for (File f : checkpointFile.getParentFile().listFiles()) {
+                if (f.getName().endsWith(".index") && !f.equals(checkpointFile)) {
+                    f.delete();
+                }
+            }
         } catch (IOException e) {
             logger.error("Failed checkpointing index " + this.index + ".", e);
         }
@@ -0,0 +1,125 @@
+package eu.fasten.crawler.data;
+
+/**
+ * MurmurHash3 (x64, 128-bit) of the unique identifier (see MavenArtifact `equals`) of an artifact.
+ *
+ * The chars of the coordinates are hashed directly (4 per 64-bit word), every coordinate is prefixed with its
+ * length so the coordinates can't shift into each other. This avoids the per-char overhead of Guava's Hasher,
+ * which made deduplication slower than a HashSet. Instances are reused to avoid allocating per artifact, so they
+ * are not thread-safe.
+ */
+public final class Fingerprint {
+    private static final long C1 = 0x87c37b91114253d5L;
+    private static final long C2 = 0x4cf5ad432745937fL;
+
+    private long high;
+    private long low;
+
+    private long pending;
+    private boolean hasPending;
+    private int words;
+
+    /**
+     * Computes the fingerprint of an artifact, overwriting the previous one.
+     * @param artifact the artifact.
+     * @return this instance.
+     */
+    public Fingerprint compute(MavenArtifact artifact) {
+        high = 0;
+        low = 0;
+        hasPending = false;
+        words = 0;
+
+        put(artifact.getGroupId());
+        put(artifact.getArtifactId());
+        put(artifact.getVersion());
+        put(artifact.getRepositoryUrl());
+
+        if (hasPending) {
+            long k1 = pending * C1;
+            k1 = Long.rotateLeft(k1, 31);
+            k1 *= C2;
+            high ^= k1;
+        }
+
+        long length = (long) words * Long.BYTES;
+        high ^= length;
+        low ^= length;
+        high += low;
+        low += high;
+        high = fmix(high);
+        low = fmix(low);
+        high += low;
+        low += high;
+        return this;
+    }
+
+    /**
+     * @return the first 64 bits of the fingerprint.
+     */
+    public long getHigh() {
+        return high;
+    }
+
+    /**
+     * @return the last 64 bits of the fingerprint.
+     */
+    public long getLow() {
+        return low;
+    }
+
+    private void put(String value) {
+        int length = value.length();
+        putWord(length);
+
+        long word = 0;
+        int shift = 0;
+        for (int i = 0; i < length; i++) {
+            word |= (long) value.charAt(i) << shift;
+            shift += 16;
+            if (shift == 64) {
+                putWord(word);
+                word = 0;
+                shift = 0;
+            }
+        }
+        if (shift != 0) {
+            putWord(word);
+        }
+    }
+
+    private void putWord(long word) {
+        words++;
+        if (!hasPending) {
+            pending = word;
+            hasPending = true;
+            return;
+        }
+        hasPending = false;
+
+        long k1 = pending * C1;
+        k1 = Long.rotateLeft(k1, 31);
+        k1 *= C2;
+        high ^= k1;
+        high = Long.rotateLeft(high, 27);
+        high += low;
+        high = high * 5 + 0x52dce729;
+
+        long k2 = word * C2;
+        k2 = Long.rotateLeft(k2, 33);
+        k2 *= C1;
+        low ^= k2;
+        low = Long.rotateLeft(low, 31);
+        low += high;
+        low = low * 5 + 0x38495ab5;
+    }
+
+    private static long fmix(long k) {
+        k ^= k >>> 33;
+        k *= 0xff51afd7ed558ccdL;
+        k ^= k >>> 33;
+        k *= 0xc4ceb9fe1a85ec53L;
+        k ^= k >>> 33;
+        return k;
+    }
+}
@@ -0,0 +1,120 @@
+package eu.fasten.crawler.data;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+
+/**
+ * Bloom filter of fingerprints (see Fingerprint).
+ *
+ * The fingerprints are hashes already, so the bit positions are derived from their two halves directly (double
+ * hashing, like Guava's BloomFilter) instead of hashing every artifact again.
+ */
+public class FingerprintBloomFilter {
+
+    private static final long MAGIC = 0x4650_424c_4f4f_4d31L; // "FPBLOOM1"
+
+    private final long[] bits;
+    private final long bitSize;
+    private final int hashes;
+
+    /**
+     * Creates an empty filter.
+     * @param expectedInsertions the amount of fingerprints the filter is sized for.
+     * @param fpp the false positive probability at the expected amount of insertions, e.g. 0.01.
+     */
+    public FingerprintBloomFilter(long expectedInsertions, double fpp) {
+        if (fpp <= 0 || fpp >= 1) {
+            throw new IllegalArgumentException("False positive probability should be between 0 and 1, but is " + fpp + ".");
+        }
+
+        long n = Math.max(1, expectedInsertions);
+        long size = (long) (-n * Math.log(fpp) / (Math.log(2) * Math.log(2)));
+        this.bits = new long[(int) Math.max(1, Math.min(Integer.MAX_VALUE - 8, (size + 63) / 64))];
+        this.bitSize = (long) bits.length * 64;
+        this.hashes = (int) Math.max(1, Math.round((double) bitSize / n * Math.log(2)));
+    }
+
+    private FingerprintBloomFilter(long[] bits, int hashes) {
+        this.bits = bits;
+        this.bitSize = (long) bits.length * 64;
+        this.hashes = hashes;
+    }
+
+    /**
+     * Adds a fingerprint.
+     * @param high the first 64 bits of the fingerprint.
+     * @param low the last 64 bits of the fingerprint.
+     */
+    public void put(long high, long low) {
+        long combined = high;
+        for (int i = 0; i < hashes; i++) {
+            combined += low;
+            long index = (combined & Long.MAX_VALUE) % bitSize;
+            bits[(int) (index >>> 6)] |= 1L << index;
+        }
+    }
+
+    /**
+     * Checks if a fingerprint might have been added.
+     * @param high the first 64 bits of the fingerprint.
+     * @param low the last 64 bits of the fingerprint.
+     * @return false if the fingerprint was definitely not added.
+     */
+    public boolean mightContain(long high, long low) {
+        long combined = high;
+        for (int i = 0; i < hashes; i++) {
+            combined += low;
+            long index = (combined & Long.MAX_VALUE) % bitSize;
+            if ((bits[(int) (index >>> 6)] & (1L << index)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @return the size of the filter in bytes.
+     */
+    public long sizeInBytes() {
+        return (long) bits.length * Long.BYTES;
+    }
+
+    /**
+     * Writes the filter.
+     * @param out the stream to write to.
+     * @throws IOException when writing fails.
+     */
+    public void writeTo(DataOutputStream out) throws IOException {
+        out.writeLong(MAGIC);
+        out.writeInt(hashes);
+        out.writeInt(bits.length);
+        for (long word : bits) {
+            out.writeLong(word);
+        }
+    }
+
+    /**
+     * Reads a filter written by `writeTo`.
+     * @param in the stream to read from.
+     * @return the filter.
+     * @throws IOException when reading fails or the stream doesn't contain a filter.
+     */
+    public static FingerprintBloomFilter readFrom(DataInputStream in) throws IOException {
+        if (in.readLong() != MAGIC) {
+            throw new IOException("Not a fingerprint bloom filter.");
+        }
+
+        int hashes = in.readInt();
+        int length = in.readInt();
+        if (hashes <= 0 || length <= 0) {
+            throw new IOException("Corrupt fingerprint bloom filter.");
+        }
+
+        long[] bits = new long[length];
+        for (int i = 0; i < length; i++) {
+            bits[i] = in.readLong();
+        }
+        return new FingerprintBloomFilter(bits, hashes);
+    }
+}
@@ -0,0 +1,170 @@
+package eu.fasten.crawler.data;
+
+/**
+ * Set of artifacts for deduplication, which only stores a 128-bit fingerprint per artifact.
+ *
+ * Fingerprints are kept in an open-addressing (linear probing) table of primitive longs, so an artifact takes
+ * 16 bytes (~21-43 bytes including free slots) instead of a HashSet entry with the artifact and all its Strings
+ * (~250 bytes). Two different artifacts are only considered equal if their fingerprints collide, which for
+ * 128 bits is negligible even for the full Maven Central index.
+ */
+public class FingerprintSet {
+
+    // Resize once this fraction of the slots is used.
+    private static final double LOAD_FACTOR = 0.75;
+
+    // Fingerprint pairs: table[2 * slot] and table[2 * slot + 1], (0, 0) is an empty slot.
+    private long[] table;
+    private int mask;
+    private int size;
+    private int threshold;
+
+    private final Fingerprint fingerprint = new Fingerprint();
+
+    /**
+     * Creates an empty set.
+     */
+    public FingerprintSet() {
+        this(1024);
+    }
+
+    /**
+     * Creates an empty set.
+     * @param expectedSize the amount of artifacts to size the table for.
+     */
+    public FingerprintSet(int expectedSize) {
+        int slots = Integer.highestOneBit((int) Math.max(16, Math.min(1 << 29, expectedSize / LOAD_FACTOR)) - 1) << 1;
+        allocate(slots);
+    }
+
+    /**
+     * Adds an artifact.
+     * @param artifact the artifact.
+     * @return true if the artifact wasn't in the set yet.
+     */
+    public boolean add(MavenArtifact artifact) {
+        fingerprint.compute(artifact);
+        return add(fingerprint.getHigh(), fingerprint.getLow());
+    }
+
+    /**
+     * Checks if an artifact is in the set.
+     * @param artifact the artifact.
+     * @return true if the artifact (or one with the same fingerprint) was added before.
+     */
+    public boolean contains(MavenArtifact artifact) {
+        fingerprint.compute(artifact);
+        return contains(fingerprint.getHigh(), fingerprint.getLow());
+    }
+
+    /**
+     * Adds a fingerprint.
+     * @param high the first 64 bits of the fingerprint.
+     * @param low the last 64 bits of the fingerprint.
+     * @return true if the fingerprint wasn't in the set yet.
+     */
+    public boolean add(long high, long low) {
+        if (high == 0 && low == 0) {
+            low = 1; // (0, 0) marks an empty slot.
+        }
+
+        int slot = find(high, low);
+        if (table[2 * slot] != 0 || table[2 * slot + 1] != 0) {
+            return false;
+        }
+
+        table[2 * slot] = high;
+        table[2 * slot + 1] = low;
+        if (++size > threshold) {
+            resize();
+        }
+
+        return true;
+    }
+
+    /**
+     * Checks if a fingerprint is in the set.
+     * @param high the first 64 bits of the fingerprint.
+     * @param low the last 64 bits of the fingerprint.
+     * @return true if the fingerprint was added before.
+     */
+    public boolean contains(long high, long low) {
+        if (high == 0 && low == 0) {
+            low = 1;
+        }
+
+        int slot = find(high, low);
+        return table[2 * slot] != 0 || table[2 * slot + 1] != 0;
+    }
+
+    /**
+     * @return the amount of fingerprints in the set.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @return the size of the table in bytes.
+     */
+    public long sizeInBytes() {
+        return (long) table.length * Long.BYTES;
+    }
+
+    /**
+     * Hands every fingerprint in the set to a consumer.
+     * @param consumer the consumer.
+     */
+    public void forEach(FingerprintConsumer consumer) {
+        for (int i = 0; i < table.length; i += 2) {
+            if (table[i] != 0 || table[i + 1] != 0) {
+                consumer.accept(table[i], table[i + 1]);
+            }
+        }
+    }
+
+    /**
+     * Consumer of 128-bit fingerprints.
+     */
+    @FunctionalInterface
+    public interface FingerprintConsumer {
+        void accept(long high, long low);
+    }
+
+    /**
+     * Finds the slot of a fingerprint, or the empty slot where it should be added.
+     */
+    private int find(long high, long low) {
+        int slot = (int) (high ^ (high >>> 32)) & mask;
+        while (true) {
+            long h = table[2 * slot];
+            long l = table[2 * slot + 1];
+            if ((h == high && l == low) || (h == 0 && l == 0)) {
+                return slot;
+            }
+            slot = (slot + 1) & mask;
+        }
+    }
+
+    private void allocate(int slots) {
+        table = new long[2 * slots];
+        mask = slots - 1;
+        threshold = (int) (slots * LOAD_FACTOR);
+    }
+
+    private void resize() {
+        long[] old = table;
+        if (old.length / 2 >= 1 << 29) {
+            throw new IllegalStateException("FingerprintSet can't grow beyond " + size + " fingerprints.");
+        }
+
+        allocate(old.length);
+        for (int i = 0; i < old.length; i += 2) {
+            if (old[i] != 0 || old[i + 1] != 0) {
+                int slot = find(old[i], old[i + 1]);
+                table[2 * slot] = old[i];
+                table[2 * slot + 1] = old[i + 1];
+            }
+        }
+    }
+}
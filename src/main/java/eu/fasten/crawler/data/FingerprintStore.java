@@ -0,0 +1,386 @@
+package eu.fasten.crawler.data;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.Collection;
+
+/**
+ * Persistent set of fingerprints (see Fingerprint) of the artifacts which have been sent, so that an artifact which
+ * reappears in a later index isn't sent again.
+ *
+ * The fingerprints are kept in an open-addressing (linear probing) hash table in a memory-mapped file, so lookups
+ * don't go through the heap and only the pages in use are kept in memory by the OS. The table doubles (into a new
+ * file which atomically replaces the old one) once it is filled for 75%. A single mapping holds at most 2^26 slots
+ * (1 GiB), which is about 50 million artifacts. Adding to a store at that limit fails without changing it.
+ *
+ * Optionally a Bloom filter of the stored fingerprints is kept in memory (see `setBloomFilter`). It is checked
+ * first, so lookups of artifacts which haven't been sent (most of them) don't touch the table at all. The filter
+ * is snapshotted next to the store and rebuilt from the table if the snapshot is missing or outdated.
+ *
+ * Fingerprints are only added once an index has been sent successfully, so a failed index is sent completely
+ * on retry. This class is not thread-safe.
+ */
+public class FingerprintStore implements Closeable {
+
+    // Default file name in the checkpoint directory.
+    public static final String FILE_NAME = "seen.fingerprints";
+
+    private static final long MAGIC = 0x4650_5354_4f52_4531L; // "FPSTORE1"
+    private static final int HEADER_SIZE = 16;
+    private static final int SLOT_SIZE = 16;
+    private static final int MAX_SLOTS = 1 << 26;
+    private static final double LOAD_FACTOR = 0.75;
+
+    private final File file;
+    private final int maxSlots;
+    private final Fingerprint fingerprint = new Fingerprint();
+
+    private MappedByteBuffer table;
+    private int mask;
+    private int size;
+    private int threshold;
+
+    // Optional Bloom filter in front of the table.
+    private FingerprintBloomFilter bloomFilter = null;
+    private double bloomFpp;
+    private int snapshotInterval;
+    private int commitsSinceSnapshot = 0;
+
+    /**
+     * Opens (or creates) a store.
+     * @param file the file to store the fingerprints in.
+     * @throws IOException when the file can't be read, created or isn't a fingerprint store.
+     */
+    public FingerprintStore(File file) throws IOException {
+        this(file, 1 << 20);
+    }
+
+    /**
+     * Opens (or creates) a store.
+     * @param file the file to store the fingerprints in.
+     * @param initialSlots the amount of slots of a new store, rounded up to a power of two.
+     * @throws IOException when the file can't be read, created or isn't a fingerprint store.
+     */
+    public FingerprintStore(File file, int initialSlots) throws IOException {
+        this(file, initialSlots, MAX_SLOTS);
+    }
+
+    /**
+     * Opens (or creates) a store which can't grow beyond `maxSlots`.
+     * @param file the file to store the fingerprints in.
+     * @param initialSlots the amount of slots of a new store, rounded up to a power of two.
+     * @param maxSlots the maximum amount of slots, a power of two of at most 2^26.
+     * @throws IOException when the file can't be read, created or isn't a fingerprint store.
+     */
+    FingerprintStore(File file, int initialSlots, int maxSlots) throws IOException {
+        this.file = file;
+        this.maxSlots = maxSlots;
+
+        if (!file.exists()) {
+            if (file.getParentFile() != null) {
+                file.getParentFile().mkdirs();
+            }
+            int slots = Integer.highestOneBit(Math.max(16, Math.min(maxSlots, initialSlots)) - 1) << 1;
+            create(file, slots);
+        }
+
+        map(file);
+    }
+
+    /**
+     * Enables a Bloom filter which is checked before the table.
+     * The filter is loaded from its snapshot, or built from the table if the snapshot doesn't match the store.
+     * @param fpp the false positive probability of the filter (when the table is about to grow), e.g. 0.01.
+     * @param snapshotInterval the amount of commits after which the filter is snapshotted.
+     * @throws IOException when reading the table or writing the snapshot fails.
+     */
+    public void setBloomFilter(double fpp, int snapshotInterval) throws IOException {
+        this.bloomFpp = fpp;
+        this.snapshotInterval = Math.max(1, snapshotInterval);
+        this.bloomFilter = readSnapshot();
+
+        if (bloomFilter == null) {
+            buildBloomFilter();
+            writeSnapshot();
+        }
+    }
+
+    /**
+     * @return the Bloom filter in front of the table, or null if it is disabled.
+     */
+    public FingerprintBloomFilter getBloomFilter() {
+        return bloomFilter;
+    }
+
+    /**
+     * Checks if an artifact has been stored.
+     * @param artifact the artifact.
+     * @return true if the artifact (or one with the same fingerprint) was stored before.
+     */
+    public boolean contains(MavenArtifact artifact) {
+        fingerprint.compute(artifact);
+        return contains(fingerprint.getHigh(), fingerprint.getLow());
+    }
+
+    /**
+     * Checks if a fingerprint has been stored.
+     * @param high the first 64 bits of the fingerprint.
+     * @param low the last 64 bits of the fingerprint.
+     * @return true if the fingerprint was stored before.
+     */
+    public boolean contains(long high, long low) {
+        if (high == 0 && low == 0) {
+            low = 1; // (0, 0) marks an empty slot.
+        }
+
+        if (bloomFilter != null && !bloomFilter.mightContain(high, low)) {
+            return false;
+        }
+
+        int position = find(high, low);
+        return table.getLong(position) != 0 || table.getLong(position + 8) != 0;
+    }
+
+    /**
+     * Stores a fingerprint. Only written to disk on `commit` (or by the OS in the meantime).
+     * @param high the first 64 bits of the fingerprint.
+     * @param low the last 64 bits of the fingerprint.
+     * @return true if the fingerprint wasn't stored yet.
+     * @throws UncheckedIOException when growing the store fails.
+     * @throws IllegalStateException when the store is full, the fingerprint isn't stored then.
+     */
+    public boolean add(long high, long low) {
+        if (high == 0 && low == 0) {
+            low = 1;
+        }
+
+        int position = find(high, low);
+        if (table.getLong(position) != 0 || table.getLong(position + 8) != 0) {
+            return false;
+        }
+
+        // Grow before adding, so the table never fills up (`find` relies on an empty slot to terminate).
+        if (size >= threshold) {
+            try {
+                resize();
+            } catch (IOException e) {
+                throw new UncheckedIOException("Failed growing fingerprint store " + file + ".", e);
+            }
+            position = find(high, low);
+        }
+
+        table.putLong(position, high);
+        table.putLong(position + 8, low);
+        if (bloomFilter != null) {
+            bloomFilter.put(high, low);
+        }
+        size++;
+
+        return true;
+    }
+
+    /**
+     * Stores all fingerprints of a set.
+     * @param fingerprints the fingerprints.
+     */
+    public void addAll(FingerprintSet fingerprints) {
+        fingerprints.forEach(this::add);
+    }
+
+    /**
+     * Stores the fingerprints of artifacts.
+     * @param artifacts the artifacts.
+     */
+    public void addAll(Collection<MavenArtifact> artifacts) {
+        for (MavenArtifact artifact : artifacts) {
+            fingerprint.compute(artifact);
+            add(fingerprint.getHigh(), fingerprint.getLow());
+        }
+    }
+
+    /**
+     * Writes the stored fingerprints to disk, and the Bloom filter every `snapshotInterval` commits.
+     * @throws UncheckedIOException when writing the Bloom filter snapshot fails.
+     */
+    public void commit() {
+        table.force();
+
+        if (bloomFilter != null && ++commitsSinceSnapshot >= snapshotInterval) {
+            try {
+                writeSnapshot();
+            } catch (IOException e) {
+                throw new UncheckedIOException("Failed writing Bloom filter snapshot of " + file + ".", e);
+            }
+        }
+    }
+
+    /**
+     * @return the amount of stored fingerprints.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Writes the store (and Bloom filter) to disk. The mapping itself is released once garbage collected.
+     */
+    @Override
+    public void close() {
+        table.force();
+
+        if (bloomFilter != null && commitsSinceSnapshot > 0) {
+            try {
+                writeSnapshot();
+            } catch (IOException e) {
+                throw new UncheckedIOException("Failed writing Bloom filter snapshot of " + file + ".", e);
+            }
+        }
+    }
+
+    /**
+     * Finds the position of a fingerprint, or of the empty slot where it should be added.
+     */
+    private int find(long high, long low) {
+        int slot = (int) (high ^ (high >>> 32)) & mask;
+        while (true) {
+            int position = HEADER_SIZE + slot * SLOT_SIZE;
+            long h = table.getLong(position);
+            long l = table.getLong(position + 8);
+            if ((h == high && l == low) || (h == 0 && l == 0)) {
+                return position;
+            }
+            slot = (slot + 1) & mask;
+        }
+    }
+
+    private File snapshotFile() {
+        return new File(file.getPath() + ".bloom");
+    }
+
+    /**
+     * Reads the Bloom filter snapshot, it's only used if it was taken at the current size of the store.
+     * Fingerprints are never removed, so the snapshot then contains exactly the stored fingerprints.
+     * @return the filter or null if there is no (up-to-date) snapshot.
+     */
+    private FingerprintBloomFilter readSnapshot() {
+        File snapshot = snapshotFile();
+        if (!snapshot.exists()) {
+            return null;
+        }
+
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(snapshot)))) {
+            if (in.readLong() != size) {
+                return null;
+            }
+            return FingerprintBloomFilter.readFrom(in);
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    private void writeSnapshot() throws IOException {
+        File snapshot = snapshotFile();
+        File part = new File(snapshot.getPath() + ".part");
+        try (FileOutputStream fos = new FileOutputStream(part);
+             DataOutputStream out = new DataOutputStream(new BufferedOutputStream(fos, 1 << 16))) {
+            out.writeLong(size);
+            bloomFilter.writeTo(out);
+            out.flush();
+            fos.getFD().sync();
+        }
+
+        Files.move(part.toPath(), snapshot.toPath(), StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        commitsSinceSnapshot = 0;
+    }
+
+    /**
+     * Builds the Bloom filter from the table, sized for the amount of fingerprints at which the table grows.
+     */
+    private void buildBloomFilter() {
+        bloomFilter = new FingerprintBloomFilter(threshold, bloomFpp);
+        for (int position = HEADER_SIZE; position < table.capacity(); position += SLOT_SIZE) {
+            long high = table.getLong(position);
+            long low = table.getLong(position + 8);
+            if (high != 0 || low != 0) {
+                bloomFilter.put(high, low);
+            }
+        }
+    }
+
+    private static void create(File target, int slots) throws IOException {
+        try (RandomAccessFile raf = new RandomAccessFile(target, "rw")) {
+            raf.setLength(HEADER_SIZE + (long) slots * SLOT_SIZE);
+            raf.writeLong(MAGIC);
+            raf.writeLong(slots);
+        }
+    }
+
+    private void map(File source) throws IOException {
+        try (RandomAccessFile raf = new RandomAccessFile(source, "rw")) {
+            if (raf.length() < HEADER_SIZE || raf.readLong() != MAGIC) {
+                throw new IOException(source + " is not a fingerprint store.");
+            }
+
+            long slots = raf.readLong();
+            if (Long.bitCount(slots) != 1 || slots > MAX_SLOTS || raf.length() != HEADER_SIZE + slots * SLOT_SIZE) {
+                throw new IOException(source + " is corrupt: unexpected amount of slots " + slots + ".");
+            }
+
+            table = raf.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, raf.length());
+            mask = (int) slots - 1;
+            threshold = (int) (slots * LOAD_FACTOR);
+        }
+
+        // Count the fingerprints instead of storing the size, so a crash while adding can't make it inconsistent.
+        size = 0;
+        for (int position = HEADER_SIZE; position < table.capacity(); position += SLOT_SIZE) {
+            if (table.getLong(position) != 0 || table.getLong(position + 8) != 0) {
+                size++;
+            }
+        }
+    }
+
+    private void resize() throws IOException {
+        int slots = mask + 1;
+        if (slots >= maxSlots) {
+            throw new IllegalStateException("FingerprintStore can't grow beyond " + size + " fingerprints.");
+        }
+
+        // Rehash into a new file which replaces the old one, so a crash leaves either of them intact.
+        MappedByteBuffer old = table;
+        File grown = new File(file.getPath() + ".grow");
+        create(grown, slots * 2);
+        map(grown);
+        for (int position = HEADER_SIZE; position < old.capacity(); position += SLOT_SIZE) {
+            long high = old.getLong(position);
+            long low = old.getLong(position + 8);
+            if (high != 0 || low != 0) {
+                int target = find(high, low);
+                table.putLong(target, high);
+                table.putLong(target + 8, low);
+                size++;
+            }
+        }
+
+        table.force();
+        Files.move(grown.toPath(), file.toPath(), StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+
+        // The filter is sized for the amount of fingerprints at which the table grows, so resize it too.
+        if (bloomFilter != null) {
+            buildBloomFilter();
+        }
+    }
+}
@@ -1,30 +1,46 @@
 package eu.fasten.crawler.data;
 
-import com.fasterxml.jackson.databind.ObjectMapper;
-import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.StreamWriteFeature;
+import com.fasterxml.jackson.core.util.ByteArrayBuilder;
 import org.apache.lucene.document.Document;
 import org.apache.maven.index.ArtifactInfo;
 import org.apache.maven.index.context.IndexUtils;
 import org.apache.maven.index.context.IndexingContext;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
 import java.util.Objects;
 
 public class MavenArtifact {
 
-    // Mapper to create JSON objects.
-    private static ObjectMapper mapper = new ObjectMapper();
+    // Factory to create (streaming) JSON generators.
+    private static final JsonFactory factory = JsonFactory.builder()
+            .disable(StreamWriteFeature.AUTO_CLOSE_TARGET)
+            .build();
+
+    // Reusable buffer per thread to serialize single artifacts into.
+    private static final ThreadLocal<ByteArrayBuilder> buffer = ThreadLocal.withInitial(ByteArrayBuilder::new);
+
+    // Canonical groupIds and artifactIds of artifacts read from an index, shared by all their versions.
+    private static final StringInterner identifiers = new StringInterner(1 << 16);
 
     // Unique identifier of a Maven artifact.
     private final String artifactId;
     private final String groupId;
     private final String version;
-    private final String repositoryUrl;
+    private final Repository repository;
 
     private final Long timestamp;
 
+    // Cached hash code, 0 if not computed yet (like String).
+    private int hash;
+
 
     /**
-     * Creates new MavenArtifact.
+     * Creates new MavenArtifact in Maven Central.
      *
      * @param artifactId the artifact id of the release.
      * @param groupId the group id of the release.
@@ -32,11 +48,24 @@ public class MavenArtifact {
      * @param timestamp the `last-modified` field from the release.
      */
     public MavenArtifact(String artifactId, String groupId, String version, Long timestamp) {
+        this(artifactId, groupId, version, timestamp, Repository.MAVEN_CENTRAL);
+    }
+
+    /**
+     * Creates new MavenArtifact.
+     *
+     * @param artifactId the artifact id of the release.
+     * @param groupId the group id of the release.
+     * @param version the version of the release.
+     * @param timestamp the `last-modified` field from the release.
+     * @param repository the repository of the release.
+     */
+    public MavenArtifact(String artifactId, String groupId, String version, Long timestamp, Repository repository) {
         this.artifactId = artifactId;
         this.groupId = groupId;
         this.version = version;
         this.timestamp = timestamp;
-        this.repositoryUrl = "https://repo.maven.apache.org/maven2/";
+        this.repository = repository;
     }
 
     /**
@@ -52,7 +81,10 @@ public class MavenArtifact {
         return version;
     }
     public String getRepositoryUrl() {
-        return repositoryUrl;
+        return repository.getUrl();
+    }
+    public Repository getRepository() {
+        return repository;
     }
     public Long getTimestamp () {
         return timestamp;
@@ -63,17 +95,106 @@ public class MavenArtifact {
      * @return stringified version of the release.
      */
     public String toString() {
-        ObjectNode node = mapper.createObjectNode();
-        node.put("artifactId", this.getArtifactId());
-        node.put("groupId", this.getGroupId());
-        node.put("version", this.getVersion());
-        node.put("date", this.getTimestamp());
-        node.put("artifactRepository", this.getRepositoryUrl());
-        return node.toString();
+        return new String(toJsonBytes(), StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Converts MavenArtifact to JSON, without building an intermediate tree or String.
+     * @return the UTF-8 encoded JSON of the release.
+     */
+    public byte[] toJsonBytes() {
+        ByteArrayBuilder bytes = buffer.get();
+        bytes.reset();
+
+        try (JsonGenerator generator = factory.createGenerator(bytes)) {
+            writeJson(generator);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+
+        return bytes.toByteArray();
+    }
+
+    /**
+     * Writes MavenArtifact as an object, in the format of the generator (JSON, CBOR, Smile, ...).
+     * @param generator the generator to write to.
+     * @throws IOException if writing fails.
+     */
+    public void writeJson(JsonGenerator generator) throws IOException {
+        generator.writeStartObject();
+        generator.writeStringField("artifactId", this.getArtifactId());
+        generator.writeStringField("groupId", this.getGroupId());
+        generator.writeStringField("version", this.getVersion());
+        if (this.getTimestamp() == null) {
+            generator.writeNullField("date");
+        } else {
+            generator.writeNumberField("date", this.getTimestamp());
+        }
+        generator.writeStringField("artifactRepository", this.getRepositoryUrl());
+        generator.writeEndObject();
     }
 
     /**
      * Converts from a Lucene document to a MavenArtifact.
+     * Only the UINFO (`groupId|artifactId|version|classifier|extension`) and
+     * INFO (`packaging|lastModified|size|...`) fields are decoded, which is all we need to construct an artifact.
+     *
+     * @param document the document to read from.
+     * @return a MavenArtifact or null if the document doesn't describe an artifact (e.g. a deletion or group list).
+     */
+    public static MavenArtifact fromDocument(Document document) {
+        return fromDocument(document, Repository.MAVEN_CENTRAL);
+    }
+
+    /**
+     * Converts from a Lucene document of the index of a repository to a MavenArtifact, see `fromDocument(Document)`.
+     * The groupId and artifactId are interned, so the versions of an artifact share them.
+     *
+     * @param document the document to read from.
+     * @param repository the repository the index belongs to.
+     * @return a MavenArtifact or null if the document doesn't describe an artifact (e.g. a deletion or group list).
+     */
+    public static MavenArtifact fromDocument(Document document, Repository repository) {
+        String uinfo = document.get(ArtifactInfo.UINFO);
+
+        if (uinfo == null) {
+            return null;
+        }
+
+        int groupEnd = uinfo.indexOf(ArtifactInfo.FS);
+        int artifactEnd = uinfo.indexOf(ArtifactInfo.FS, groupEnd + 1);
+        int versionEnd = uinfo.indexOf(ArtifactInfo.FS, artifactEnd + 1);
+
+        if (groupEnd < 0 || artifactEnd < 0) {
+            return null;
+        }
+
+        String groupId = identifiers.intern(uinfo, 0, groupEnd);
+        String artifactId = identifiers.intern(uinfo, groupEnd + 1, artifactEnd);
+        String version = versionEnd < 0 ? uinfo.substring(artifactEnd + 1) : uinfo.substring(artifactEnd + 1, versionEnd);
+
+        return new MavenArtifact(artifactId, groupId, version, parseLastModified(document.get(ArtifactInfo.INFO)), repository);
+    }
+
+    /**
+     * Parses the last modified timestamp from the INFO field.
+     * @param info the INFO field.
+     * @return the timestamp or -1 if it's unknown (like ArtifactInfo does).
+     */
+    private static long parseLastModified(String info) {
+        if (info == null) {
+            return -1L;
+        }
+
+        int packagingEnd = info.indexOf(ArtifactInfo.FS);
+        int lastModifiedEnd = info.indexOf(ArtifactInfo.FS, packagingEnd + 1);
+
+        return Long.parseLong(lastModifiedEnd < 0 ? info.substring(packagingEnd + 1) : info.substring(packagingEnd + 1, lastModifiedEnd));
+    }
+
+    /**
+     * Converts from a Lucene document to a MavenArtifact, by constructing the full artifact info.
+     * This runs all IndexCreators on the document, use {@link #fromDocument(Document)} instead if possible.
      *
      * @param document the document to read from.
      * @param context to build the artifact info.
@@ -94,14 +215,27 @@ public class MavenArtifact {
         if (this == o) return true;
         if (o == null || getClass() != o.getClass()) return false;
         MavenArtifact artifact = (MavenArtifact) o;
-        return Objects.equals(artifactId, artifact.artifactId) &&
-                Objects.equals(groupId, artifact.groupId) &&
+        // Versions are (mostly) unique, so compare them first. Interned identifiers and repositories are the same
+        // instance, so their comparison usually doesn't look at the characters.
+        return (hash == 0 || artifact.hash == 0 || hash == artifact.hash) &&
                 Objects.equals(version, artifact.version) &&
-                Objects.equals(repositoryUrl, artifact.repositoryUrl);
+                Objects.equals(artifactId, artifact.artifactId) &&
+                Objects.equals(groupId, artifact.groupId) &&
+                Objects.equals(repository, artifact.repository);
     }
 
     @Override
     public int hashCode() {
-        return Objects.hash(artifactId, groupId, version, repositoryUrl);
+        int result = hash;
+        if (result == 0) {
+            // Same as Objects.hash(artifactId, groupId, version, repositoryUrl), without allocating a varargs array.
+            result = 1;
+            result = 31 * result + Objects.hashCode(artifactId);
+            result = 31 * result + Objects.hashCode(groupId);
+            result = 31 * result + Objects.hashCode(version);
+            result = 31 * result + repository.getUrl().hashCode();
+            hash = result;
+        }
+        return result;
     }
 }
@@ -0,0 +1,68 @@
+package eu.fasten.crawler.data;
+
+import java.util.Objects;
+
+/**
+ * A Maven repository which publishes an index, e.g. Maven Central or a Nexus/Artifactory mirror.
+ * The url is the root of the repository (where the artifacts are), it is included in every crawled artifact.
+ */
+public final class Repository {
+
+    public static final Repository MAVEN_CENTRAL = new Repository("central", "https://repo.maven.apache.org/maven2/");
+
+    private final String name;
+    private final String url;
+    private final int hash;
+
+    /**
+     * @param name the name of the repository, used in logs, metrics and configuration.
+     * @param url the root url of the repository.
+     */
+    public Repository(String name, String url) {
+        this.name = name;
+        this.url = url.endsWith("/") ? url : url + "/";
+        this.hash = Objects.hash(this.name, this.url);
+    }
+
+    /**
+     * Derives the root url of a repository from the url of its index directory (`.../.index/`).
+     * Maven Central's index is published on another host than its artifacts are referred to, so it keeps its url.
+     * @param name the name of the repository.
+     * @param indexUrl the url of the index directory.
+     * @return the repository.
+     */
+    public static Repository fromIndexUrl(String name, String indexUrl) {
+        String url = indexUrl.endsWith("/") ? indexUrl : indexUrl + "/";
+        if (url.equals("https://repo1.maven.org/maven2/.index/")) {
+            return new Repository(name, MAVEN_CENTRAL.url);
+        }
+
+        return new Repository(name, url.endsWith("/.index/") ? url.substring(0, url.length() - ".index/".length()) : url);
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public String getUrl() {
+        return url;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        Repository that = (Repository) o;
+        return hash == that.hash && name.equals(that.name) && url.equals(that.url);
+    }
+
+    @Override
+    public int hashCode() {
+        return hash;
+    }
+
+    @Override
+    public String toString() {
+        return name + " (" + url + ")";
+    }
+}
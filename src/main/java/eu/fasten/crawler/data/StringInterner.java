@@ -0,0 +1,63 @@
+package eu.fasten.crawler.data;
+
+/**
+ * Bounded table of canonical Strings, so that equal identifiers (e.g. the groupId of thousands of versions of an
+ * artifact) share a single String instead of each artifact keeping its own copy.
+ *
+ * The table is direct-mapped: every String has a single slot (by its hash), and a colliding String replaces it.
+ * This keeps the table at a fixed size without any eviction bookkeeping, at the cost of sometimes returning an
+ * equal but non-canonical String. Identifiers of the same group are close together in an index, so they hit the
+ * table even if it is much smaller than the amount of distinct identifiers.
+ *
+ * Lookups from multiple threads are safe without locking: Strings are immutable, so a racing lookup only misses
+ * the table (and stores its own copy), it never sees a partially constructed String.
+ */
+public final class StringInterner {
+
+    private final String[] table;
+    private final int mask;
+
+    /**
+     * Creates an empty table.
+     * @param size the amount of slots, rounded up to a power of two.
+     */
+    public StringInterner(int size) {
+        int slots = Integer.highestOneBit(Math.max(2, size) - 1) << 1;
+        this.table = new String[slots];
+        this.mask = slots - 1;
+    }
+
+    /**
+     * Returns the canonical String equal to a value.
+     * @param value the value.
+     * @return the canonical String, or the value itself if it isn't in the table (it is added instead).
+     */
+    public String intern(String value) {
+        return intern(value, 0, value.length());
+    }
+
+    /**
+     * Returns the canonical String equal to a part of a String, without creating a substring if it is in the table.
+     * @param source the String to take the part from.
+     * @param start the start of the part (inclusive).
+     * @param end the end of the part (exclusive).
+     * @return the canonical String, or a new substring if it isn't in the table (it is added instead).
+     */
+    public String intern(String source, int start, int end) {
+        int length = end - start;
+        int hash = 0;
+        for (int i = start; i < end; i++) {
+            hash = 31 * hash + source.charAt(i);
+        }
+
+        int slot = (hash ^ (hash >>> 16)) & mask;
+        String canonical = table[slot];
+        if (canonical != null && canonical.length() == length && source.regionMatches(start, canonical, 0, length)) {
+            return canonical;
+        }
+
+        String value = start == 0 && end == source.length() ? source : source.substring(start, end);
+        table[slot] = value;
+        return value;
+    }
+}
@@ -0,0 +1,88 @@
+package eu.fasten.crawler.metrics;
+
+import com.sun.net.httpserver.HttpServer;
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.binder.jvm.JvmGcMetrics;
+import io.micrometer.core.instrument.binder.jvm.JvmMemoryMetrics;
+import io.micrometer.core.instrument.binder.jvm.JvmThreadMetrics;
+import io.micrometer.core.instrument.binder.system.ProcessorMetrics;
+import io.micrometer.prometheus.PrometheusConfig;
+import io.micrometer.prometheus.PrometheusMeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Exposes the metrics of the crawler (and the JVM) on a local HTTP endpoint, to be scraped by Prometheus.
+ *
+ * The crawler records its metrics in the global Micrometer registry (`Metrics.globalRegistry`), which does nothing
+ * until a registry is added to it. This server adds a Prometheus registry.
+ */
+public class MetricsServer {
+
+    private static final Logger logger = LoggerFactory.getLogger(MetricsServer.class);
+
+    public static final String PATH = "/metrics";
+
+    private final PrometheusMeterRegistry registry;
+    private final HttpServer server;
+
+    /**
+     * Setup a metrics server.
+     * @param port the port to listen on, 0 picks a free port.
+     * @throws IOException when the port can't be bound.
+     */
+    public MetricsServer(int port) throws IOException {
+        this.registry = new PrometheusMeterRegistry(PrometheusConfig.DEFAULT);
+        new JvmMemoryMetrics().bindTo(registry);
+        new JvmGcMetrics().bindTo(registry);
+        new JvmThreadMetrics().bindTo(registry);
+        new ProcessorMetrics().bindTo(registry);
+
+        this.server = HttpServer.create(new InetSocketAddress(port), 0);
+        this.server.createContext(PATH, (exchange) -> {
+            byte[] response = registry.scrape().getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().set("Content-Type", "text/plain; version=0.0.4; charset=utf-8");
+            exchange.sendResponseHeaders(200, response.length);
+            try (OutputStream os = exchange.getResponseBody()) {
+                os.write(response);
+            }
+        });
+    }
+
+    /**
+     * Starts recording metrics and serving them.
+     */
+    public void start() {
+        Metrics.addRegistry(registry);
+        server.start();
+        logger.info("Serving metrics on http://localhost:" + getPort() + PATH + ".");
+    }
+
+    /**
+     * Stops serving and recording metrics.
+     */
+    public void stop() {
+        server.stop(0);
+        Metrics.removeRegistry(registry);
+        registry.close();
+    }
+
+    /**
+     * @return the port the server listens on.
+     */
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    /**
+     * @return the registry with the served metrics.
+     */
+    public PrometheusMeterRegistry getRegistry() {
+        return registry;
+    }
+}
@@ -0,0 +1,28 @@
+package eu.fasten.crawler.output;
+
+import eu.fasten.crawler.data.MavenArtifact;
+
+import java.util.List;
+
+public interface ArtifactSerializer {
+
+    /**
+     * Serializes a single artifact (e.g. a Kafka record value).
+     * @param artifact the artifact to serialize.
+     * @return the encoded artifact.
+     */
+    byte[] serialize(MavenArtifact artifact);
+
+    /**
+     * Serializes a list of artifacts as a single array (e.g. a HTTP request body).
+     * @param artifacts the artifacts to serialize.
+     * @return the encoded list of artifacts.
+     */
+    byte[] serialize(List<MavenArtifact> artifacts);
+
+    /** The media type of the encoded artifacts. **/
+    String getContentType();
+
+    /** The name of the format, as configured on the command line. **/
+    String getFormat();
+}
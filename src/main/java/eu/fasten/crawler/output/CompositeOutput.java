@@ -0,0 +1,219 @@
+package eu.fasten.crawler.output;
+
+import eu.fasten.crawler.data.MavenArtifact;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Sends every batch to several outputs (e.g. Kafka and a REST service).
+ *
+ * Each output gets its own thread and queue of at most `queueSize` batches, so a slow output only holds back
+ * the crawl once its queue is full, not on every batch. The composite is all-or-nothing: `send` fails as soon as
+ * one of the outputs failed and `flush` only succeeds if every output delivered every batch. The crawler only
+ * checkpoints an index if this succeeds, otherwise the index is crawled again for _all_ outputs, so outputs which
+ * did succeed can receive an index more than once (at-least-once delivery).
+ */
+public class CompositeOutput implements Output {
+
+    private static final Logger logger = LoggerFactory.getLogger(CompositeOutput.class);
+
+    private final List<Sink> sinks = new ArrayList<>();
+    private final int queueSize;
+
+    /**
+     * Setup a composite output.
+     * @param outputs the outputs to send to.
+     * @param queueSize the maximum amount of batches queued per output.
+     */
+    public CompositeOutput(List<Output> outputs, int queueSize) {
+        this.queueSize = Math.max(1, queueSize);
+        for (Output output : outputs) {
+            sinks.add(new Sink(output));
+        }
+    }
+
+    /**
+     * Get the outputs of this composite.
+     * @return the outputs.
+     */
+    public List<Output> getOutputs() {
+        List<Output> outputs = new ArrayList<>();
+        sinks.forEach((s) -> outputs.add(s.output));
+        return outputs;
+    }
+
+    @Override
+    public void open() {
+        for (Sink sink : sinks) {
+            sink.open();
+        }
+    }
+
+    @Override
+    public void close() {
+        for (Sink sink : sinks) {
+            sink.close();
+        }
+    }
+
+    /**
+     * Waits until every output sent all queued batches and flushed them.
+     * @return if all outputs succeeded.
+     */
+    @Override
+    public boolean flush() {
+        List<Future<Boolean>> flushes = new ArrayList<>();
+        for (Sink sink : sinks) {
+            flushes.add(sink.executor.submit(sink.output::flush));
+        }
+
+        boolean result = true;
+        for (int i = 0; i < sinks.size(); i++) {
+            Sink sink = sinks.get(i);
+            try {
+                if (!flushes.get(i).get()) {
+                    sink.failed.set(true);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return false;
+            } catch (ExecutionException e) {
+                logger.error("Failed flushing " + sink.name + ".", e.getCause());
+                sink.failed.set(true);
+            }
+
+            if (sink.failed.get()) {
+                logger.error("Output " + sink.name + " failed, the crawl is not successful for any output.");
+                result = false;
+            }
+        }
+
+        return result;
+    }
+
+    /**
+     * @return the batches queued for any output plus the batches the outputs are awaiting acknowledgement for.
+     */
+    @Override
+    public int getInFlightBatches() {
+        int batches = 0;
+        for (Sink sink : sinks) {
+            batches += sink.getInFlightBatches();
+        }
+        return batches;
+    }
+
+    /**
+     * Queues the batch for every output.
+     * @param artifact the batch.
+     * @return false if an output failed already.
+     */
+    @Override
+    public boolean send(List<MavenArtifact> artifact) {
+        // The crawl fails for all outputs, so stop sending to the others too.
+        if (sinks.stream().anyMatch((s) -> s.failed.get())) {
+            return false;
+        }
+
+        for (Sink sink : sinks) {
+            if (!sink.send(artifact)) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    /**
+     * An output with its own sending thread and queue.
+     */
+    private class Sink {
+        private final Output output;
+        private final String name;
+        private final AtomicBoolean failed = new AtomicBoolean(false);
+        private ExecutorService executor;
+        private Semaphore queued;
+
+        Sink(Output output) {
+            this.output = output;
+            this.name = output instanceof MeteredOutput ? ((MeteredOutput) output).getName() : output.getClass().getSimpleName();
+        }
+
+        void open() {
+            if (executor != null) {
+                // Not closed after a failed crawl.
+                executor.shutdownNow();
+            }
+
+            failed.set(false);
+            queued = new Semaphore(queueSize);
+            executor = Executors.newSingleThreadExecutor((r) -> {
+                Thread thread = new Thread(r, "composite-output-" + name);
+                thread.setDaemon(true);
+                return thread;
+            });
+            output.open();
+        }
+
+        boolean send(List<MavenArtifact> batch) {
+            if (failed.get()) {
+                return false;
+            }
+
+            try {
+                queued.acquire();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return false;
+            }
+
+            executor.execute(() -> {
+                try {
+                    // Once failed, skip the remaining batches.
+                    if (!failed.get() && !output.send(batch)) {
+                        failed.set(true);
+                    }
+                } catch (RuntimeException e) {
+                    logger.error("Failed sending to " + name + ".", e);
+                    failed.set(true);
+                } finally {
+                    queued.release();
+                }
+            });
+
+            return true;
+        }
+
+        int getInFlightBatches() {
+            Semaphore queued = this.queued;
+            return (queued == null ? 0 : queueSize - queued.availablePermits()) + output.getInFlightBatches();
+        }
+
+        void close() {
+            if (executor == null) {
+                return;
+            }
+
+            // Close after the queued batches.
+            Future<?> closed = executor.submit(output::close);
+            executor.shutdown();
+            try {
+                closed.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (ExecutionException e) {
+                logger.error("Failed closing " + name + ".", e.getCause());
+            }
+            executor = null;
+        }
+    }
+}
@@ -0,0 +1,200 @@
+package eu.fasten.crawler.output;
+
+import com.github.luben.zstd.ZstdOutputStream;
+import eu.fasten.crawler.data.MavenArtifact;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.GZIPOutputStream;
+
+public class FileOutput implements Output {
+
+    private Logger logger = LoggerFactory.getLogger(this.getClass());
+
+    // Buffer between the (compressing) writer and the file.
+    private static final int BUFFER_SIZE = 1 << 20;
+
+    // Suffix of files which are still being written to.
+    static final String PART_SUFFIX = ".part";
+
+    private final File directory;
+    private final String compression;
+    private final long maxFileSize;
+    private final long maxFileRecords;
+
+    // Files which are complete, but only renamed once the artifacts are flushed.
+    private final List<File> written = new ArrayList<>();
+    private long writtenRecords = 0;
+
+    // Current file.
+    private File file;
+    private OutputStream out;
+    private long fileSize;
+    private long fileRecords;
+    private int fileCount = 0;
+    private final long created = System.currentTimeMillis();
+
+    /**
+     * Writes artifacts as newline delimited JSON to (rotated) files.
+     * Files are named `artifacts-[creation time]-[sequence].ndjson[.gz|.zst]`. While a file is being written to
+     * it has a `.part` suffix, so only complete files are picked up by batch jobs.
+     *
+     * Files are completed (synced and renamed) on a successful flush, i.e. once an index is sent. So files don't
+     * span indexes, and the size and record limits only split the artifacts of a single (e.g. the full) index.
+     * If the output is closed without flushing (a failed crawl), the files written since are deleted, so a retry
+     * of the index doesn't duplicate them.
+     *
+     * @param directory the directory to write the files to.
+     * @param compression the compression of the files: none, gzip or zstd.
+     * @param maxFileSize start a new file once this amount of (uncompressed) bytes is written, 0 for no limit.
+     * @param maxFileRecords start a new file once this amount of artifacts is written, 0 for no limit.
+     */
+    public FileOutput(File directory, String compression, long maxFileSize, long maxFileRecords) {
+        if (!(compression.equals("none") || compression.equals("gzip") || compression.equals("zstd"))) {
+            throw new IllegalArgumentException("Unknown compression: " + compression);
+        }
+
+        this.directory = directory;
+        this.compression = compression;
+        this.maxFileSize = maxFileSize;
+        this.maxFileRecords = maxFileRecords;
+    }
+
+    @Override
+    public void open() {
+        directory.mkdirs();
+    }
+
+    @Override
+    public boolean send(List<MavenArtifact> artifact) {
+        try {
+            for (MavenArtifact a : artifact) {
+                if (out == null) {
+                    openFile();
+                }
+
+                byte[] json = a.toJsonBytes();
+                out.write(json);
+                out.write('\n');
+                fileSize += json.length + 1;
+                fileRecords++;
+
+                if ((maxFileSize > 0 && fileSize >= maxFileSize) || (maxFileRecords > 0 && fileRecords >= maxFileRecords)) {
+                    closeFile();
+                }
+            }
+        } catch (IOException e) {
+            logger.error("Failed writing to " + file + ".", e);
+            return false;
+        }
+
+        return true;
+    }
+
+    /**
+     * Completes the files written since the last flush: they are synced to disk and their `.part` suffix is removed.
+     * @return if flushing succeeded.
+     */
+    @Override
+    public boolean flush() {
+        try {
+            closeFile();
+
+            for (File part : written) {
+                try (FileChannel channel = FileChannel.open(part.toPath(), StandardOpenOption.WRITE)) {
+                    channel.force(true);
+                }
+            }
+            for (File part : written) {
+                String name = part.getName();
+                File complete = new File(directory, name.substring(0, name.length() - PART_SUFFIX.length()));
+                Files.move(part.toPath(), complete.toPath(), StandardCopyOption.ATOMIC_MOVE);
+            }
+        } catch (IOException e) {
+            logger.error("Failed flushing " + file + ".", e);
+            return false;
+        }
+
+        if (!written.isEmpty()) {
+            logger.info("Wrote " + writtenRecords + " artifacts to " + written.size() + " file(s) in " + directory + ".");
+        }
+        written.clear();
+        writtenRecords = 0;
+        return true;
+    }
+
+    /**
+     * Deletes the files written since the last (successful) flush.
+     */
+    @Override
+    public void close() {
+        try {
+            closeFile();
+        } catch (IOException e) {
+            logger.error("Failed closing " + file + ".", e);
+        }
+
+        if (!written.isEmpty()) {
+            logger.warn("Deleting " + written.size() + " file(s) with " + writtenRecords + " unflushed artifacts in " + directory + ".");
+        }
+        written.forEach(File::delete);
+        written.clear();
+        writtenRecords = 0;
+    }
+
+    private void openFile() throws IOException {
+        String name = String.format("artifacts-%d-%05d.ndjson%s", created, fileCount++, extension());
+        file = new File(directory, name + PART_SUFFIX);
+
+        OutputStream stream = new BufferedOutputStream(Files.newOutputStream(file.toPath()), BUFFER_SIZE);
+        switch (compression) {
+            case "gzip":
+                out = new GZIPOutputStream(stream, BUFFER_SIZE, true);
+                break;
+            case "zstd":
+                out = new BufferedOutputStream(new ZstdOutputStream(stream), BUFFER_SIZE);
+                break;
+            default:
+                out = stream;
+        }
+
+        fileSize = 0;
+        fileRecords = 0;
+    }
+
+    private void closeFile() throws IOException {
+        if (out == null) {
+            return;
+        }
+
+        // The file is only renamed once flushed.
+        written.add(file);
+        writtenRecords += fileRecords;
+        try {
+            out.close();
+        } finally {
+            out = null;
+        }
+    }
+
+    private String extension() {
+        switch (compression) {
+            case "gzip":
+                return ".gz";
+            case "zstd":
+                return ".zst";
+            default:
+                return "";
+        }
+    }
+}
@@ -0,0 +1,110 @@
+package eu.fasten.crawler.output;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.StreamWriteFeature;
+import com.fasterxml.jackson.core.util.ByteArrayBuilder;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import eu.fasten.crawler.data.MavenArtifact;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.List;
+
+/**
+ * Serializes artifacts with one of the (streaming) Jackson formats.
+ * All formats carry the same fields as the JSON representation, so consumers can decode them with a regular ObjectMapper
+ * for that format.
+ */
+public class JacksonSerializer implements ArtifactSerializer {
+
+    public static final JacksonSerializer JSON = new JacksonSerializer("json", "application/json",
+            JsonFactory.builder().disable(StreamWriteFeature.AUTO_CLOSE_TARGET).build());
+
+    public static final JacksonSerializer CBOR = new JacksonSerializer("cbor", "application/cbor",
+            CBORFactory.builder().disable(StreamWriteFeature.AUTO_CLOSE_TARGET).build());
+
+    public static final JacksonSerializer SMILE = new JacksonSerializer("smile", "application/x-jackson-smile",
+            SmileFactory.builder().disable(StreamWriteFeature.AUTO_CLOSE_TARGET).build());
+
+    // Reusable buffer per thread to serialize into, shared between the formats.
+    private static final ThreadLocal<ByteArrayBuilder> buffer = ThreadLocal.withInitial(ByteArrayBuilder::new);
+
+    private final String format;
+    private final String contentType;
+    private final JsonFactory factory;
+
+    /**
+     * Setup a serializer.
+     * @param format the name of the format.
+     * @param contentType the media type of the format.
+     * @param factory the factory creating generators for the format.
+     */
+    public JacksonSerializer(String format, String contentType, JsonFactory factory) {
+        this.format = format;
+        this.contentType = contentType;
+        this.factory = factory;
+    }
+
+    /**
+     * Get the serializer for a format.
+     * @param format the name of the format (json, cbor or smile).
+     * @return the serializer.
+     * @throws IllegalArgumentException if the format is unknown.
+     */
+    public static JacksonSerializer forFormat(String format) {
+        switch (format) {
+            case "json":
+                return JSON;
+            case "cbor":
+                return CBOR;
+            case "smile":
+                return SMILE;
+            default:
+                throw new IllegalArgumentException("Unknown output format: " + format);
+        }
+    }
+
+    @Override
+    public byte[] serialize(MavenArtifact artifact) {
+        ByteArrayBuilder bytes = buffer.get();
+        bytes.reset();
+
+        try (JsonGenerator generator = factory.createGenerator(bytes)) {
+            artifact.writeJson(generator);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+
+        return bytes.toByteArray();
+    }
+
+    @Override
+    public byte[] serialize(List<MavenArtifact> artifacts) {
+        ByteArrayBuilder bytes = buffer.get();
+        bytes.reset();
+
+        try (JsonGenerator generator = factory.createGenerator(bytes)) {
+            generator.writeStartArray();
+            for (MavenArtifact artifact : artifacts) {
+                artifact.writeJson(generator);
+            }
+            generator.writeEndArray();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+
+        return bytes.toByteArray();
+    }
+
+    @Override
+    public String getContentType() {
+        return contentType;
+    }
+
+    @Override
+    public String getFormat() {
+        return format;
+    }
+}
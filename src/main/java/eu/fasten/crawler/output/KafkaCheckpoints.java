@@ -0,0 +1,84 @@
+package eu.fasten.crawler.output;
+
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.KafkaConsumer;
+import org.apache.kafka.common.PartitionInfo;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.serialization.StringDeserializer;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.stream.Collectors;
+
+/**
+ * Reads the checkpoints which a transactional KafkaOutput committed (see `KafkaOutput.setCheckpointTopic`).
+ * Checkpoint records are keyed by repository with the next index to crawl as value, so the last record per key
+ * is the checkpoint and the topic can be compacted. Only committed records are read, so a checkpoint always
+ * belongs to records which were committed as well.
+ */
+public class KafkaCheckpoints {
+
+    /**
+     * Reads the checkpoints from a topic.
+     *
+     * @param brokers the brokers to connect with.
+     * @param topic the checkpoint topic.
+     * @param overrides consumer settings to override, e.g. the security settings of the producer.
+     * @return the next index to crawl per repository, empty if the topic doesn't exist (yet).
+     */
+    public static Map<String, Integer> read(String brokers, String topic, Properties overrides) {
+        Properties properties = new Properties();
+        properties.putAll(overrides);
+        properties.put("bootstrap.servers", brokers);
+        properties.put("client.id", "IncrementalMavenCrawler-checkpoints");
+        properties.put("isolation.level", "read_committed");
+        properties.put("enable.auto.commit", "false");
+        properties.put("key.deserializer", StringDeserializer.class.getName());
+        properties.put("value.deserializer", StringDeserializer.class.getName());
+
+        try (Consumer<String, String> consumer = new KafkaConsumer<>(properties)) {
+            return read(consumer, topic);
+        }
+    }
+
+    /**
+     * Reads the checkpoints from a topic, from the beginning up to the current end of every partition.
+     *
+     * @param consumer the consumer to read with, it is assigned to all partitions of the topic.
+     * @param topic the checkpoint topic.
+     * @return the next index to crawl per repository, empty if the topic doesn't exist (yet).
+     */
+    public static Map<String, Integer> read(Consumer<String, String> consumer, String topic) {
+        Map<String, Integer> checkpoints = new HashMap<>();
+
+        List<PartitionInfo> partitionInfos = consumer.partitionsFor(topic);
+        if (partitionInfos == null || partitionInfos.isEmpty()) {
+            return checkpoints;
+        }
+
+        List<TopicPartition> partitions = partitionInfos
+                .stream()
+                .map((p) -> new TopicPartition(p.topic(), p.partition()))
+                .collect(Collectors.toList());
+        consumer.assign(partitions);
+        consumer.seekToBeginning(partitions);
+
+        // With `read_committed` these are the offsets up to which all transactions are decided.
+        Map<TopicPartition, Long> endOffsets = consumer.endOffsets(partitions);
+        while (partitions.stream().anyMatch((p) -> consumer.position(p) < endOffsets.get(p))) {
+            for (ConsumerRecord<String, String> record : consumer.poll(Duration.ofMillis(500))) {
+                if (record.value() == null) {
+                    checkpoints.remove(record.key());
+                } else {
+                    checkpoints.put(record.key(), Integer.parseInt(record.value()));
+                }
+            }
+        }
+
+        return checkpoints;
+    }
+}
@@ -1,65 +1,298 @@
 package eu.fasten.crawler.output;
 
 import eu.fasten.crawler.data.MavenArtifact;
+import org.apache.kafka.clients.producer.Callback;
 import org.apache.kafka.clients.producer.KafkaProducer;
+import org.apache.kafka.clients.producer.Producer;
 import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.clients.producer.RecordMetadata;
+import org.apache.kafka.common.KafkaException;
+import org.apache.kafka.common.serialization.ByteArraySerializer;
+import org.apache.kafka.common.serialization.StringSerializer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
+import java.nio.charset.StandardCharsets;
 import java.util.List;
 import java.util.Properties;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
 import java.util.stream.Collectors;
 
 public class KafkaOutput implements Output {
 
     // Kafka connection data.
     private final String topic;
-    private KafkaProducer<String, String> producer;
+    private Producer<String, byte[]> producer;
     private Properties properties = new Properties();
 
+    // Format of the record values.
+    private final ArtifactSerializer serializer;
+
+    // Asynchronous sending: the amount of batches which may be in-flight (0 means sending synchronously).
+    private int inFlightBatches = 0;
+    private Semaphore inFlight;
+    private final AtomicReference<Exception> failure = new AtomicReference<>();
+
+    // Transactional mode: the topic to commit checkpoints to along with the records (null disables it).
+    private String checkpointTopic = null;
+    private boolean inTransaction = false;
+
+    private Logger logger = LoggerFactory.getLogger(this.getClass());
+
     /**
-     * Outputs to a Kafka topic.
+     * Outputs JSON to a Kafka topic.
      *
      * @param topic the topic to send to.
      * @param brokers the brokers to connect with.
-     * @param batchSize the size of the batches to send.
+     * @param batchSize the amount of artifacts per `send` call, this is not Kafka's `batch.size` (which is in bytes).
      */
     public KafkaOutput(String topic, String brokers, int batchSize) {
+        this(topic, brokers, batchSize, JacksonSerializer.JSON);
+    }
+
+    /**
+     * Outputs to a Kafka topic.
+     * Records are keyed by `groupId:artifactId`, so all versions of an artifact end up in the same partition (in order).
+     * The producer is idempotent and lz4 compressed by default, use `setProducerProperties` to override any setting.
+     *
+     * @param topic the topic to send to.
+     * @param brokers the brokers to connect with.
+     * @param batchSize the amount of artifacts per `send` call, this is not Kafka's `batch.size` (which is in bytes).
+     * @param serializer the format to encode the record values with.
+     */
+    public KafkaOutput(String topic, String brokers, int batchSize, ArtifactSerializer serializer) {
         this.topic = topic;
+        this.serializer = serializer;
 
         properties.put("client.id", "IncrementalMavenCrawler");
         properties.put("bootstrap.servers", brokers);
-        properties.put("batch.size", String.valueOf(batchSize));
-        properties.put("linger.ms", "1000");
+        properties.put("linger.ms", "10"); // wait a little to fill Kafka batches, without stalling synchronous sends
         properties.put("acks", "all"); // await all acknowledgements
+        properties.put("enable.idempotence", "true"); // retries don't introduce duplicates or reorder records
+        properties.put("compression.type", "lz4");
+        properties.put("key.serializer", StringSerializer.class.getName());
+        properties.put("value.serializer", ByteArraySerializer.class.getName()); // artifacts are encoded by the serializer
+    }
+
+    /**
+     * Overrides producer settings, e.g. `compression.type`, `batch.size` or `max.in.flight.requests.per.connection`.
+     * See the Kafka producer configuration for all settings. This only has an effect before opening the output.
+     *
+     * @param overrides the producer settings to override.
+     */
+    public void setProducerProperties(Properties overrides) {
+        properties.putAll(overrides);
+    }
+
+    /**
+     * Enables transactional mode: the records sent between opening and flushing are committed in a single transaction,
+     * together with the checkpoint of the crawled index (see `checkpoint`). A failed or interrupted crawl is aborted,
+     * so `read_committed` consumers see every index exactly once and the checkpoint never runs ahead of the records.
+     * The checkpoint topic should be compacted, its records are keyed by repository, see `KafkaCheckpoints`.
+     * A transaction covers a whole index, so the transaction timeout is raised to the broker maximum (15 minutes).
+     * This only has an effect before opening the output.
+     *
+     * @param checkpointTopic the topic to commit checkpoints to.
+     * @param transactionalId the transactional id, which should be stable across restarts and unique per producer.
+     */
+    public void setCheckpointTopic(String checkpointTopic, String transactionalId) {
+        this.checkpointTopic = checkpointTopic;
+        properties.put("transactional.id", transactionalId);
+        properties.put("transaction.timeout.ms", "900000");
+    }
+
+    /**
+     * Get the topic checkpoints are committed to.
+     * @return the checkpoint topic, null if transactional mode is disabled.
+     */
+    public String getCheckpointTopic() {
+        return checkpointTopic;
+    }
+
+    /**
+     * Get the settings the producer is created with.
+     * @return the producer settings.
+     */
+    public Properties getProducerProperties() {
+        return properties;
+    }
+
+    /**
+     * The key of the record of an artifact.
+     * The default partitioner hashes it, so partitioning is stable per `groupId:artifactId`.
+     *
+     * @param artifact the artifact.
+     * @return the key.
+     */
+    public static String recordKey(MavenArtifact artifact) {
+        return artifact.getGroupId() + ":" + artifact.getArtifactId();
+    }
+
+    /**
+     * Get the serializer used to encode record values.
+     * @return the serializer.
+     */
+    public ArtifactSerializer getSerializer() {
+        return serializer;
+    }
+
+    /**
+     * Send batches asynchronously instead of waiting for every batch to be acknowledged.
+     * Delivery failures are tracked through producer callbacks and surface at the next `send` or at `flush`.
+     *
+     * @param inFlightBatches the maximum amount of batches awaiting acknowledgement, `send` blocks once it's reached.
+     *                        0 sends synchronously.
+     */
+    public void setInFlightBatches(int inFlightBatches) {
+        this.inFlightBatches = inFlightBatches;
+        this.inFlight = inFlightBatches > 0 ? new Semaphore(inFlightBatches) : null;
+    }
+
+    @Override
+    public int getInFlightBatches() {
+        Semaphore inFlight = this.inFlight;
+        return inFlight == null ? 0 : inFlightBatches - inFlight.availablePermits();
     }
 
     @Override
     public void open() {
-        producer = new KafkaProducer<String, String>(properties);
+        open(new KafkaProducer<String, byte[]>(properties));
+    }
+
+    /**
+     * Opens the output with a producer. In transactional mode this fences off earlier producers with the same
+     * transactional id and aborts their pending transaction (e.g. of a crawl which crashed).
+     * @param producer the producer to send with.
+     */
+    void open(Producer<String, byte[]> producer) {
+        this.producer = producer;
+        setInFlightBatches(inFlightBatches);
+        failure.set(null);
+        inTransaction = false;
+
+        if (checkpointTopic != null) {
+            producer.initTransactions();
+        }
     }
 
+    /**
+     * Closes the producer, a transaction which hasn't been committed by `flush` is aborted.
+     */
     @Override
     public void close() {
+        if (inTransaction) {
+            try {
+                producer.abortTransaction();
+            } catch (KafkaException e) {
+                logger.error("Failed aborting transaction on Kafka topic " + topic + ".", e);
+            }
+            inTransaction = false;
+        }
+
         producer.close();
     }
 
+    /**
+     * Sends the checkpoint of a repository in the current transaction, so it is committed atomically with the records
+     * by `flush`. Without transactional mode checkpoints aren't stored in Kafka.
+     * @param repository the name of the repository, the key of the checkpoint record.
+     * @param index the next index to crawl.
+     */
+    @Override
+    public void checkpoint(String repository, int index) {
+        if (checkpointTopic == null || !beginTransaction()) {
+            return;
+        }
+
+        try {
+            producer.send(new ProducerRecord<String, byte[]>(checkpointTopic, repository, String.valueOf(index).getBytes(StandardCharsets.UTF_8)),
+                    (metadata, exception) -> {
+                        if (exception != null) {
+                            failure.compareAndSet(null, exception);
+                        }
+                    });
+        } catch (KafkaException e) {
+            failure.compareAndSet(null, e);
+        }
+    }
+
+    /**
+     * Begins a transaction, if transactional mode is enabled and no transaction is running yet.
+     * @return false if beginning the transaction failed.
+     */
+    private boolean beginTransaction() {
+        if (checkpointTopic == null || inTransaction) {
+            return true;
+        }
+
+        try {
+            producer.beginTransaction();
+            inTransaction = true;
+            return true;
+        } catch (KafkaException e) {
+            failure.compareAndSet(null, e);
+            logger.error("Failed beginning transaction on Kafka topic " + topic + ".", e);
+            return false;
+        }
+    }
+
+    /**
+     * Flushes the producer, i.e. waits until all in-flight batches are acknowledged (or failed).
+     * In transactional mode the records (and checkpoint) are committed too, a failed transaction is aborted on `close`.
+     * @return if all records sent since opening were delivered (and committed).
+     */
     @Override
-    public void flush() {
+    public boolean flush() {
         producer.flush();
+
+        Exception e = failure.get();
+        if (e != null) {
+            logger.error("Failed delivering records to Kafka topic " + topic + ".", e);
+            return false;
+        }
+
+        if (inTransaction) {
+            try {
+                producer.commitTransaction();
+                inTransaction = false;
+            } catch (KafkaException ex) {
+                logger.error("Failed committing transaction on Kafka topic " + topic + ".", ex);
+                return false;
+            }
+        }
+
+        return true;
     }
 
     /**
      * Sends a batch of artifacts to Kafka.
+     * If in-flight batches are enabled this returns once the batch is handed to the producer,
+     * otherwise it waits until every record is acknowledged.
      * @param artifact the artifacts (we expect it to be of size batch size).
      */
     @Override
     public boolean send(List<MavenArtifact> artifact) {
-        List<ProducerRecord<String, String>> records = artifact
+        if (!beginTransaction()) {
+            return false;
+        }
+
+        List<ProducerRecord<String, byte[]>> records = artifact
                 .stream()
-                .map((x) -> new ProducerRecord<String, String>(topic, null, x.getTimestamp(), null, x.toString()))
+                .map((x) -> new ProducerRecord<String, byte[]>(topic, null, x.getTimestamp(), recordKey(x), serializer.serialize(x)))
                 .collect(Collectors.toList());
 
-        boolean result = records.stream().map((r) -> producer.send(r)).parallel().map((f) -> {
+        if (inFlight != null) {
+            return sendAsync(records);
+        }
+
+        // Hand all records to the producer in order (so records with the same key stay ordered), then await them.
+        List<Future<RecordMetadata>> futures = records.stream().map((r) -> producer.send(r)).collect(Collectors.toList());
+
+        boolean result = futures.stream().map((f) -> {
             try {
                 f.get();
                 return true;
@@ -74,4 +307,53 @@ public class KafkaOutput implements Output {
 
         return result;
     }
+
+    /**
+     * Hands a batch to the producer without waiting for it to be acknowledged.
+     * A permit of the in-flight window is held until the last record of the batch completes.
+     * @param records the records of the batch.
+     * @return false if a previous batch already failed (or we got interrupted), true otherwise.
+     */
+    private boolean sendAsync(List<ProducerRecord<String, byte[]>> records) {
+        if (failure.get() != null) {
+            return false;
+        }
+        if (records.isEmpty()) {
+            return true;
+        }
+
+        try {
+            inFlight.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+
+        Semaphore window = inFlight;
+        AtomicInteger remaining = new AtomicInteger(records.size());
+        Callback callback = (metadata, exception) -> {
+            if (exception != null) {
+                failure.compareAndSet(null, exception);
+            }
+            if (remaining.decrementAndGet() == 0) {
+                window.release();
+            }
+        };
+
+        int sent = 0;
+        try {
+            for (ProducerRecord<String, byte[]> record : records) {
+                producer.send(record, callback);
+                sent++;
+            }
+        } catch (Exception e) {
+            // The remaining records won't get a callback.
+            failure.compareAndSet(null, e);
+            if (remaining.addAndGet(-(records.size() - sent)) == 0) {
+                window.release();
+            }
+        }
+
+        return failure.get() == null;
+    }
 }
@@ -0,0 +1,161 @@
+package eu.fasten.crawler.output;
+
+import eu.fasten.crawler.data.MavenArtifact;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Records metrics of another output:
+ * - `crawler.output.send`: latency of sending a batch (histogram), tagged by result;
+ * - `crawler.output.flush`: latency of flushing, tagged by result;
+ * - `crawler.output.records`: amount of records sent;
+ * - `crawler.output.errors`: amount of failed sends and flushes;
+ * - `crawler.output.in_flight`: batches awaiting acknowledgement.
+ * All meters are tagged with the name of the output. Outputs with the same name (e.g. the Kafka output of every
+ * repository) share their meters, the in-flight gauge is the sum over these outputs.
+ *
+ * For asynchronous outputs the send latency is the time until the batch was handed off, delivery is only awaited
+ * (and failures only show up) when flushing.
+ */
+public class MeteredOutput implements Output {
+
+    // All metered outputs, a gauge is registered once per name and registry so it sums over these.
+    private static final List<MeteredOutput> instances = new CopyOnWriteArrayList<>();
+
+    private final Output output;
+    private final String name;
+    private final MeterRegistry registry;
+
+    private final Timer sendSuccess;
+    private final Timer sendFailure;
+    private final Timer flushSuccess;
+    private final Timer flushFailure;
+    private final Counter records;
+    private final Counter errors;
+
+    /**
+     * Setup a metered output.
+     * @param output the output to record metrics of.
+     * @param name the name of the output, e.g. `kafka`.
+     * @param registry the registry to record in.
+     */
+    public MeteredOutput(Output output, String name, MeterRegistry registry) {
+        this.output = output;
+        this.name = name;
+        this.registry = registry;
+
+        this.sendSuccess = sendTimer(registry, "success");
+        this.sendFailure = sendTimer(registry, "failure");
+        this.flushSuccess = flushTimer(registry, "success");
+        this.flushFailure = flushTimer(registry, "failure");
+        this.records = Counter.builder("crawler.output.records")
+                .description("Records sent to the output")
+                .tag("output", name)
+                .register(registry);
+        this.errors = Counter.builder("crawler.output.errors")
+                .description("Failed sends and flushes")
+                .tag("output", name)
+                .register(registry);
+        instances.add(this);
+        Gauge.builder("crawler.output.in_flight", instances, (all) -> inFlightBatches(all, name, registry))
+                .description("Batches awaiting acknowledgement")
+                .tag("output", name)
+                .register(registry);
+    }
+
+    /**
+     * Get the output which is metered.
+     * @return the output.
+     */
+    public Output getOutput() {
+        return output;
+    }
+
+    /**
+     * Get the name of the output.
+     * @return the name.
+     */
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public void open() {
+        output.open();
+    }
+
+    @Override
+    public void close() {
+        output.close();
+    }
+
+    @Override
+    public boolean flush() {
+        long start = System.nanoTime();
+        boolean result = false;
+        try {
+            result = output.flush();
+            return result;
+        } finally {
+            (result ? flushSuccess : flushFailure).record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            if (!result) {
+                errors.increment();
+            }
+        }
+    }
+
+    @Override
+    public void checkpoint(String repository, int index) {
+        output.checkpoint(repository, index);
+    }
+
+    @Override
+    public int getInFlightBatches() {
+        return output.getInFlightBatches();
+    }
+
+    @Override
+    public boolean send(List<MavenArtifact> artifact) {
+        long start = System.nanoTime();
+        boolean result = false;
+        try {
+            result = output.send(artifact);
+            return result;
+        } finally {
+            (result ? sendSuccess : sendFailure).record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            if (result) {
+                records.increment(artifact.size());
+            } else {
+                errors.increment();
+            }
+        }
+    }
+
+    private static double inFlightBatches(List<MeteredOutput> all, String name, MeterRegistry registry) {
+        return all.stream()
+                .filter((o) -> o.name.equals(name) && o.registry == registry)
+                .mapToInt(MeteredOutput::getInFlightBatches)
+                .sum();
+    }
+
+    private Timer sendTimer(MeterRegistry registry, String result) {
+        return Timer.builder("crawler.output.send")
+                .description("Latency of sending a batch")
+                .tags("output", name, "result", result)
+                .publishPercentileHistogram()
+                .register(registry);
+    }
+
+    private Timer flushTimer(MeterRegistry registry, String result) {
+        return Timer.builder("crawler.output.flush")
+                .description("Latency of flushing the output")
+                .tags("output", name, "result", result)
+                .register(registry);
+    }
+}
@@ -10,7 +10,30 @@ public interface Output {
     /** Helper methods for constructing and cleaning up the output instance. **/
     default void open() {}
     default void close() {}
-    default void flush() {}
+
+    /**
+     * Waits until all sent records are delivered.
+     * Outputs which send asynchronously only surface delivery failures here, so nothing may be checkpointed unless this succeeds.
+     * @return if all records were delivered successfully.
+     */
+    default boolean flush() {
+        return true;
+    }
+
+    /**
+     * Adds the checkpoint of a repository (the next index to crawl) to the records sent since opening, before flushing.
+     * Outputs which store checkpoints commit it atomically with these records in `flush`, others ignore it.
+     * @param repository the name of the repository.
+     * @param index the next index to crawl.
+     */
+    default void checkpoint(String repository, int index) {}
+
+    /**
+     * @return the amount of batches which were sent but aren't acknowledged yet, 0 for synchronous outputs.
+     */
+    default int getInFlightBatches() {
+        return 0;
+    }
 
     /** Send records to output. **/
     default boolean send(MavenArtifact artifact) {
@@ -1,17 +1,77 @@
 package eu.fasten.crawler.output;
 
+import io.micrometer.core.instrument.Metrics;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Properties;
 
 public class OutputFactory {
 
+    // Properties with this prefix are passed (without it) to the Kafka producer.
+    public static final String KAFKA_PRODUCER_PREFIX = "kafka_producer.";
+
     public static Output getOutput(String outputName, Properties properties) {
+        // Multiple outputs, e.g. `kafka,rest`.
+        if (outputName.contains(",")) {
+            List<Output> outputs = new ArrayList<>();
+            for (String name : outputName.split(",")) {
+                outputs.add(getOutput(name.trim(), properties));
+            }
+
+            return new CompositeOutput(outputs, Integer.parseInt(properties.getProperty("output_queue", "8")));
+        }
+
+        Output output = createOutput(outputName, properties);
+        if (Boolean.parseBoolean(properties.getProperty("metrics", "false"))) {
+            return new MeteredOutput(output, outputName, Metrics.globalRegistry);
+        }
+
+        return output;
+    }
+
+    private static Output createOutput(String outputName, Properties properties) {
         switch (outputName) {
             case "kafka":
-                return new KafkaOutput(properties.getProperty("kafka_topic"), properties.getProperty("kafka_brokers"), Integer.parseInt(properties.getProperty("batch_size")));
+                KafkaOutput kafkaOutput = new KafkaOutput(properties.getProperty("kafka_topic"), properties.getProperty("kafka_brokers"), Integer.parseInt(properties.getProperty("batch_size")),
+                        JacksonSerializer.forFormat(properties.getProperty("kafka_format", "json")));
+                kafkaOutput.setInFlightBatches(Integer.parseInt(properties.getProperty("kafka_in_flight", "0")));
+                if (!properties.getProperty("kafka_checkpoint_topic", "").isEmpty()) {
+                    kafkaOutput.setCheckpointTopic(properties.getProperty("kafka_checkpoint_topic"),
+                            properties.getProperty("kafka_transactional_id", "incremental-maven-crawler"));
+                }
+                kafkaOutput.setProducerProperties(getProducerProperties(properties));
+                return kafkaOutput;
             case "rest":
-                return new RestOutput(properties.getProperty("rest_endpoint"));
+                RestOutput restOutput = new RestOutput(properties.getProperty("rest_endpoint"),
+                        JacksonSerializer.forFormat(properties.getProperty("rest_format", "json")));
+                restOutput.setConcurrency(Integer.parseInt(properties.getProperty("rest_concurrency", "1")));
+                restOutput.setRetries(Integer.parseInt(properties.getProperty("rest_retries", String.valueOf(RestOutput.DEFAULT_RETRIES))),
+                        Long.parseLong(properties.getProperty("rest_backoff", String.valueOf(RestOutput.DEFAULT_BACKOFF))));
+                restOutput.setGzip(Boolean.parseBoolean(properties.getProperty("rest_gzip", "false")));
+                return restOutput;
+            case "file":
+                return new FileOutput(new File(properties.getProperty("file_dir")), properties.getProperty("file_compression", "none"),
+                        Long.parseLong(properties.getProperty("file_max_size", "0")), Long.parseLong(properties.getProperty("file_max_records", "0")));
             default:
                 return new StdOutput();
         }
     }
+
+    /**
+     * Extracts the Kafka producer settings.
+     * @param properties all properties.
+     * @return the properties starting with `kafka_producer.`, without this prefix.
+     */
+    public static Properties getProducerProperties(Properties properties) {
+        Properties producerProperties = new Properties();
+        for (String key : properties.stringPropertyNames()) {
+            if (key.startsWith(KAFKA_PRODUCER_PREFIX)) {
+                producerProperties.setProperty(key.substring(KAFKA_PRODUCER_PREFIX.length()), properties.getProperty(key));
+            }
+        }
+
+        return producerProperties;
+    }
 }
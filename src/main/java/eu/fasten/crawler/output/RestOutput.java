@@ -4,51 +4,276 @@ import eu.fasten.crawler.data.MavenArtifact;
 import org.apache.http.HttpResponse;
 import org.apache.http.client.HttpClient;
 import org.apache.http.client.methods.HttpPost;
-import org.apache.http.entity.StringEntity;
+import org.apache.http.entity.ByteArrayEntity;
+import org.apache.http.entity.ContentType;
 import org.apache.http.impl.client.HttpClients;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.apache.http.util.EntityUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
 import java.io.IOException;
-import java.io.UnsupportedEncodingException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
 import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.zip.GZIPOutputStream;
 
 public class RestOutput implements Output {
 
     private Logger logger = LoggerFactory.getLogger(this.getClass());
 
+    // Retry settings of the crawler (see `setRetries`), a RestOutput itself doesn't retry unless configured.
+    public static final int DEFAULT_RETRIES = 3;
+    public static final long DEFAULT_BACKOFF = 500;
+
     private String endpoint;
+    private ArtifactSerializer serializer;
+
+    // Client (and its connection pool) shared by all requests between `open` and `close`.
+    private HttpClient client;
+
+    // Request settings.
+    private boolean gzip = false;
+    private int concurrency = 1;
+    private int retries = 0;
+    private long backoff = DEFAULT_BACKOFF;
+
+    // Concurrent requests (if concurrency > 1).
+    private ExecutorService executor;
+    private Semaphore inFlight;
+    private final AtomicBoolean failed = new AtomicBoolean(false);
 
     /**
-     * Setup RestOutput.
+     * Setup RestOutput, posting JSON.
      * @param endpoint the http url to POST to.
      */
     public RestOutput(String endpoint) {
+        this(endpoint, JacksonSerializer.JSON);
+    }
+
+    /**
+     * Setup RestOutput.
+     * @param endpoint the http url to POST to.
+     * @param serializer the format to encode the batches with (also sets the Content-Type).
+     */
+    public RestOutput(String endpoint, ArtifactSerializer serializer) {
         this.endpoint = endpoint;
+        this.serializer = serializer;
+    }
+
+    /**
+     * Compress request bodies with gzip (`Content-Encoding: gzip`), the endpoint has to support this.
+     * @param gzip if bodies should be compressed.
+     */
+    public void setGzip(boolean gzip) {
+        this.gzip = gzip;
+    }
+
+    /**
+     * Amount of requests which may be in-flight at the same time.
+     * With more than 1, `send` returns once the request is started and failures surface at the next `send` or at `flush`.
+     * This only has an effect before opening the output.
+     *
+     * @param concurrency the maximum amount of concurrent requests, 1 sends synchronously.
+     */
+    public void setConcurrency(int concurrency) {
+        this.concurrency = Math.max(1, concurrency);
+    }
+
+    /**
+     * Retry requests which fail with an IOException or a 5xx response, waiting `backoff * 2^attempt` ms in between.
+     * @param retries the maximum amount of retries per request.
+     * @param backoff the time to wait before the first retry in milliseconds.
+     */
+    public void setRetries(int retries, long backoff) {
+        this.retries = retries;
+        this.backoff = backoff;
+    }
+
+    @Override
+    public void open() {
+        client = constructHttpClient();
+        failed.set(false);
+
+        if (concurrency > 1) {
+            executor = Executors.newFixedThreadPool(concurrency, (r) -> {
+                Thread thread = new Thread(r, "rest-output");
+                thread.setDaemon(true);
+                return thread;
+            });
+            inFlight = new Semaphore(concurrency);
+        }
+    }
+
+    @Override
+    public void close() {
+        if (executor != null) {
+            flush();
+            executor.shutdown();
+            executor = null;
+            inFlight = null;
+        }
+
+        closeQuietly(client);
+        client = null;
+    }
+
+    /**
+     * Waits until all in-flight requests are done.
+     * @return if all requests since opening succeeded.
+     */
+    @Override
+    public boolean flush() {
+        if (inFlight != null) {
+            inFlight.acquireUninterruptibly(concurrency);
+            inFlight.release(concurrency);
+        }
+
+        return !failed.get();
+    }
+
+    @Override
+    public int getInFlightBatches() {
+        Semaphore inFlight = this.inFlight;
+        return inFlight == null ? 0 : concurrency - inFlight.availablePermits();
     }
 
     @Override
     public boolean send(List<MavenArtifact> artifacts) {
-        // Setup connections.
-        HttpClient httpClient = constructHttpClient();
+        byte[] body = buildBody(artifacts);
+
+        if (executor == null) {
+            return post(body);
+        }
+
+        // Send concurrently, blocks if `concurrency` requests are in-flight already.
+        if (failed.get()) {
+            return false;
+        }
+        try {
+            inFlight.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+
+        executor.execute(() -> {
+            try {
+                if (!post(body)) {
+                    failed.set(true);
+                }
+            } catch (RuntimeException e) {
+                logger.error("Failed posting batch to rest endpoint.", e);
+                failed.set(true);
+            } finally {
+                inFlight.release();
+            }
+        });
+
+        return true;
+    }
+
+    /**
+     * Posts a (serialized) batch, retrying on IOExceptions and 5xx responses.
+     * @param body the request body.
+     * @return if the endpoint responded with 200.
+     */
+    private boolean post(byte[] body) {
+        // Without opening, use a client for this request only.
+        HttpClient httpClient = client != null ? client : constructHttpClient();
+
+        try {
+            for (int attempt = 0; ; attempt++) {
+                int responseCode = execute(httpClient, body);
+
+                if (responseCode == 200) {
+                    return true;
+                }
+
+                // If we don't get a 200 (after retrying failed requests and server errors), return false.
+                boolean retryable = responseCode < 0 || responseCode >= 500;
+                if (!retryable || attempt >= retries) {
+                    if (responseCode >= 0) {
+                        logger.error("Expected response 200, but got " + responseCode);
+                    }
+                    return false;
+                }
+
+                logger.warn("Request to rest endpoint failed, retrying (" + (attempt + 1) + "/" + retries + ").");
+                Thread.sleep(backoff << attempt);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        } finally {
+            if (httpClient != client) {
+                closeQuietly(httpClient);
+            }
+        }
+    }
+
+    /**
+     * Executes a single POST request and consumes the response, so the connection can be reused.
+     * @param httpClient the client to execute the request with.
+     * @param body the request body.
+     * @return the status code, or -1 if the request failed with an IOException.
+     */
+    private int execute(HttpClient httpClient, byte[] body) {
         HttpPost httpPost = constructPostRequest();
 
+        ByteArrayEntity entity = new ByteArrayEntity(body, ContentType.create(serializer.getContentType()));
+        if (gzip) {
+            entity.setContentEncoding("gzip");
+        }
+        httpPost.setEntity(entity);
+
         try {
-            // Send batch.
-            StringEntity jsonList = new StringEntity(buildJsonList(artifacts));
-            httpPost.setEntity(jsonList);
-            int responseCode = httpClient.execute(httpPost).getStatusLine().getStatusCode();
-
-            // If we don't get a 200, return false.
-            if (responseCode == 200) {
-                return true;
-            } else {
-                logger.error("Expected response 200, but got " + responseCode);
-                return false;
+            HttpResponse response = httpClient.execute(httpPost);
+            try {
+                return response.getStatusLine().getStatusCode();
+            } finally {
+                EntityUtils.consumeQuietly(response.getEntity());
             }
         } catch (IOException e) {
             logger.error("Failed sending to rest endpoint. ", e);
-            return false;
+            return -1;
+        }
+    }
+
+    /**
+     * Serializes (and compresses) a batch.
+     * @param artifacts the batch.
+     * @return the request body.
+     */
+    private byte[] buildBody(List<MavenArtifact> artifacts) {
+        byte[] body = serializer.serialize(artifacts);
+        if (!gzip) {
+            return body;
+        }
+
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream(body.length / 4);
+        try (GZIPOutputStream out = new GZIPOutputStream(compressed)) {
+            out.write(body);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+
+        return compressed.toByteArray();
+    }
+
+    private void closeQuietly(HttpClient httpClient) {
+        if (httpClient instanceof Closeable) {
+            try {
+                ((Closeable) httpClient).close();
+            } catch (IOException e) {
+                logger.warn("Failed closing http client.", e);
+            }
         }
     }
 
@@ -58,18 +283,24 @@ public class RestOutput implements Output {
      * @return a stringified list of all artifacts.
      */
     public String buildJsonList(List<MavenArtifact> artifacts) {
-        // Build array of JSON objects.
-        StringBuffer json = new StringBuffer();
-        json.append("[");
-
-        for (MavenArtifact af : artifacts) {
-            json.append(af.toString() + ",");
-        }
+        return new String(buildJsonBytes(artifacts), StandardCharsets.UTF_8);
+    }
 
-        json.deleteCharAt(json.length() - 1);
-        json.append("]");
+    /**
+     * Builds a json list of all artifacts, streaming them into a single (reused) buffer.
+     * @param artifacts all artifacts.
+     * @return the UTF-8 encoded list of all artifacts.
+     */
+    public byte[] buildJsonBytes(List<MavenArtifact> artifacts) {
+        return JacksonSerializer.JSON.serialize(artifacts);
+    }
 
-        return json.toString();
+    /**
+     * Get the serializer used to encode request bodies.
+     * @return the serializer.
+     */
+    public ArtifactSerializer getSerializer() {
+        return serializer;
     }
 
     /**
@@ -81,10 +312,16 @@ public class RestOutput implements Output {
     }
 
     /**
-     * Constructs a HTTPClient.
+     * Constructs a HTTPClient, with a pool of (keep-alive) connections for all concurrent requests.
      * @return a HttpClient.
      */
     public HttpClient constructHttpClient() {
-        return HttpClients.createDefault();
+        PoolingHttpClientConnectionManager connectionManager = new PoolingHttpClientConnectionManager();
+        connectionManager.setMaxTotal(concurrency);
+        connectionManager.setDefaultMaxPerRoute(concurrency);
+
+        return HttpClients.custom()
+                .setConnectionManager(connectionManager)
+                .build();
     }
 }
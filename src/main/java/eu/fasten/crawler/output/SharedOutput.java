@@ -0,0 +1,69 @@
+package eu.fasten.crawler.output;
+
+import eu.fasten.crawler.data.MavenArtifact;
+
+import java.util.List;
+
+/**
+ * Shares a single output (e.g. one Kafka producer) between crawlers of several repositories.
+ *
+ * The output is reference counted: it is opened by the first crawl which opens it and closed once the last crawl
+ * closed it. Sends and flushes are serialized, so outputs which aren't thread-safe can be shared too. A flush waits
+ * for the batches of all crawls, and a failed delivery fails the flushes of all crawls until the output is
+ * reopened, so these crawls are retried (at-least-once, like CompositeOutput).
+ */
+public class SharedOutput implements Output {
+
+    private final Output output;
+    private int openCount = 0;
+
+    /**
+     * Setup a shared output.
+     * @param output the output to share.
+     */
+    public SharedOutput(Output output) {
+        this.output = output;
+    }
+
+    /**
+     * Get the output which is shared.
+     * @return the output.
+     */
+    public Output getOutput() {
+        return output;
+    }
+
+    @Override
+    public synchronized void open() {
+        if (openCount++ == 0) {
+            output.open();
+        }
+    }
+
+    @Override
+    public synchronized void close() {
+        if (openCount > 0 && --openCount == 0) {
+            output.close();
+        }
+    }
+
+    @Override
+    public synchronized boolean flush() {
+        return output.flush();
+    }
+
+    @Override
+    public synchronized void checkpoint(String repository, int index) {
+        output.checkpoint(repository, index);
+    }
+
+    @Override
+    public int getInFlightBatches() {
+        return output.getInFlightBatches();
+    }
+
+    @Override
+    public synchronized boolean send(List<MavenArtifact> artifact) {
+        return output.send(artifact);
+    }
+}
@@ -2,17 +2,66 @@ package eu.fasten.crawler.output;
 
 import eu.fasten.crawler.data.MavenArtifact;
 
+import java.io.ByteArrayOutputStream;
 import java.util.List;
 
 public class StdOutput implements Output {
 
+    // Buffer size, System.out is only written to (and flushed) once this is full.
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    private final ByteArrayOutputStream buffer = new ByteArrayOutputStream(BUFFER_SIZE);
+
     /**
      * Prints the artifacts to the screen.
      * @param artifact list of artifacts.
      */
     @Override
-    public boolean send(List<MavenArtifact> artifact) {
-        artifact.stream().map((a) -> a.toString()).forEach((a) -> {System.out.println(a);});
+    public synchronized boolean send(List<MavenArtifact> artifact) {
+        for (MavenArtifact a : artifact) {
+            buffer.writeBytes(a.toJsonBytes());
+            buffer.write('\n');
+        }
+
+        // Only whole batches are written, so the buffer always ends with a complete line.
+        if (buffer.size() >= BUFFER_SIZE) {
+            return write();
+        }
+
         return true;
     }
+
+    /**
+     * Writes the buffered artifacts to System.out.
+     * @return if writing succeeded.
+     */
+    @Override
+    public synchronized boolean flush() {
+        return write();
+    }
+
+    @Override
+    public void close() {
+        flush();
+    }
+
+    /**
+     * Artifacts are buffered as newline delimited JSON and written to System.out in a single write of whole lines,
+     * instead of a synchronized and flushed `System.out.println` per artifact. Log lines (which go to System.out too)
+     * are written under the same lock, so they end up between records, never inside one.
+     * @return if writing succeeded.
+     */
+    private boolean write() {
+        if (buffer.size() == 0) {
+            return !System.out.checkError();
+        }
+
+        synchronized (System.out) {
+            System.out.write(buffer.toByteArray(), 0, buffer.size());
+            System.out.flush();
+        }
+        buffer.reset();
+
+        return !System.out.checkError();
+    }
 }
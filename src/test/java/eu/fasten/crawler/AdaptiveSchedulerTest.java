@@ -0,0 +1,93 @@
+package eu.fasten.crawler;
+
+import org.junit.Test;
+
+import java.time.Duration;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+public class AdaptiveSchedulerTest {
+
+    @Test
+    public void testParseDuration() {
+        assertEquals(Duration.ofMillis(500), AdaptiveScheduler.parseDuration("500ms"));
+        assertEquals(Duration.ofSeconds(30), AdaptiveScheduler.parseDuration("30s"));
+        assertEquals(Duration.ofMinutes(5), AdaptiveScheduler.parseDuration("5m"));
+        assertEquals(Duration.ofHours(2), AdaptiveScheduler.parseDuration("2h"));
+        assertEquals(Duration.ofDays(1), AdaptiveScheduler.parseDuration("1d"));
+        assertEquals(Duration.ofHours(1), AdaptiveScheduler.parseDuration("1"));
+        assertThrows(IllegalArgumentException.class, () -> AdaptiveScheduler.parseDuration("5 minutes"));
+    }
+
+    @Test
+    public void testBackoff() {
+        AdaptiveScheduler scheduler = new AdaptiveScheduler(() -> AdaptiveScheduler.Outcome.NOTHING_NEW, Duration.ofMinutes(1), Duration.ofMinutes(5));
+
+        assertEquals(Duration.ofMinutes(1), scheduler.nextDelay(AdaptiveScheduler.Outcome.NOTHING_NEW));
+        assertEquals(Duration.ofMinutes(2), scheduler.nextDelay(AdaptiveScheduler.Outcome.FAILED));
+        assertEquals(Duration.ofMinutes(4), scheduler.nextDelay(AdaptiveScheduler.Outcome.NOTHING_NEW));
+        assertEquals(Duration.ofMinutes(5), scheduler.nextDelay(AdaptiveScheduler.Outcome.NOTHING_NEW));
+
+        // A crawled index resets the backoff and the next run starts immediately.
+        assertEquals(Duration.ZERO, scheduler.nextDelay(AdaptiveScheduler.Outcome.CRAWLED));
+        assertEquals(Duration.ofMinutes(1), scheduler.nextDelay(AdaptiveScheduler.Outcome.NOTHING_NEW));
+        assertEquals(Duration.ofMinutes(2), scheduler.nextDelay(AdaptiveScheduler.Outcome.NOTHING_NEW));
+        assertEquals(Duration.ofMinutes(4), scheduler.nextDelay(AdaptiveScheduler.Outcome.NOTHING_NEW));
+
+        for (int i = 0; i < 100; i++) {
+            assertEquals(Duration.ofMinutes(5), scheduler.nextDelay(AdaptiveScheduler.Outcome.NOTHING_NEW));
+        }
+    }
+
+    @Test
+    public void testNoBackoff() {
+        AdaptiveScheduler scheduler = new AdaptiveScheduler(() -> AdaptiveScheduler.Outcome.NOTHING_NEW, Duration.ofHours(1), Duration.ofHours(1));
+
+        assertEquals(Duration.ofHours(1), scheduler.nextDelay(AdaptiveScheduler.Outcome.NOTHING_NEW));
+        assertEquals(Duration.ofHours(1), scheduler.nextDelay(AdaptiveScheduler.Outcome.NOTHING_NEW));
+    }
+
+    @Test
+    public void testRunsWithoutOverlap() throws InterruptedException {
+        Queue<AdaptiveScheduler.Outcome> outcomes = new ConcurrentLinkedQueue<>();
+        outcomes.add(AdaptiveScheduler.Outcome.CRAWLED);
+        outcomes.add(AdaptiveScheduler.Outcome.CRAWLED);
+        outcomes.add(AdaptiveScheduler.Outcome.NOTHING_NEW);
+
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger overlaps = new AtomicInteger();
+        CountDownLatch runs = new CountDownLatch(4);
+
+        AdaptiveScheduler scheduler = new AdaptiveScheduler(() -> {
+            if (running.incrementAndGet() > 1) {
+                overlaps.incrementAndGet();
+            }
+            try {
+                TimeUnit.MILLISECONDS.sleep(20);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            running.decrementAndGet();
+            runs.countDown();
+
+            AdaptiveScheduler.Outcome outcome = outcomes.poll();
+            if (outcome == null) {
+                throw new IllegalStateException("Failures are retried too.");
+            }
+            return outcome;
+        }, Duration.ofMillis(10), Duration.ofMillis(10));
+
+        long start = System.nanoTime();
+        scheduler.start();
+        assertTrue(runs.await(5, TimeUnit.SECONDS));
+        scheduler.stop();
+
+        assertEquals(0, overlaps.get());
+        assertTrue(System.nanoTime() - start >= TimeUnit.MILLISECONDS.toNanos(4 * 20 + 10));
+    }
+}
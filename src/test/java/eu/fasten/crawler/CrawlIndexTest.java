@@ -1,24 +1,38 @@
 package eu.fasten.crawler;
 
+import eu.fasten.crawler.data.FingerprintStore;
+import eu.fasten.crawler.data.MavenArtifact;
+import eu.fasten.crawler.data.Repository;
 import eu.fasten.crawler.output.KafkaOutput;
 import eu.fasten.crawler.output.StdOutput;
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.apache.commons.lang3.reflect.FieldUtils;
 import org.apache.kafka.clients.producer.KafkaProducer;
 import org.apache.kafka.clients.producer.RecordMetadata;
+import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.mockito.InOrder;
 
 import java.io.File;
 import java.io.IOException;
 import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
 
 import static org.junit.Assert.*;
 import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyCollection;
 import static org.mockito.Matchers.anyList;
 import static org.mockito.Mockito.*;
 
 public class CrawlIndexTest {
 
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
     @Test
     public void testIndexSetup() {
         File f = DownloadIndex.download(600);
@@ -39,14 +53,65 @@ public class CrawlIndexTest {
         StdOutput mockStd = mock(StdOutput.class);
 
         when(mockStd.send(anyList())).thenReturn(true);
+        when(mockStd.flush()).thenReturn(true);
 
-        boolean res = index.crawlAndSend(mockStd, 50);
+        boolean res = index.crawlAndSend(mockStd, 50).isSuccess();
 
         verify(mockStd, atLeastOnce()).send(anyList());
         assertTrue(res);
         f.delete();
     }
 
+    @Test
+    public void testIndexSetupFullRunStatistics() throws Exception {
+        File f = DownloadIndex.download(600);
+        StdOutput mockStd = mock(StdOutput.class);
+        when(mockStd.send(anyList())).thenReturn(true);
+        when(mockStd.flush()).thenReturn(true);
+
+        // Two crawls in parallel keep their own statistics.
+        ExecutorService pool = Executors.newFixedThreadPool(2);
+        Future<CrawlResult> sent = pool.submit(() -> new CrawlIndex(600, f).crawlAndSend(mockStd, 50));
+        Future<CrawlResult> streamed = pool.submit(() -> new CrawlIndex(600, f).crawlAndStream(mockStd, 50, 2));
+        CrawlResult first = sent.get();
+        CrawlResult second = streamed.get();
+        pool.shutdown();
+
+        assertTrue(first.isSuccess());
+        assertTrue(second.isSuccess());
+        assertEquals(600, first.getIndex());
+        assertNotNull(first.getTimestamp());
+        for (CrawlResult result : List.of(first, second)) {
+            CrawlStatistics statistics = result.getStatistics();
+            assertTrue(statistics.getEmitted() > 0);
+            assertEquals(statistics.getDocuments(), statistics.getEmitted() + statistics.getDuplicates() + statistics.getSkipped());
+            // Including the header, which is read when the index is opened.
+            assertEquals(f.length(), statistics.getBytes());
+        }
+        assertEquals(first.getStatistics().toString(), second.getStatistics().toString());
+        f.delete();
+    }
+
+    @Test
+    public void testIndexSetupFullRunCountsDocuments() {
+        File f = DownloadIndex.download(600);
+        CrawlIndex index = new CrawlIndex(600, f);
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        Metrics.addRegistry(registry);
+
+        try {
+            List<MavenArtifact> artifacts = index.crawl();
+
+            assertEquals(artifacts.size(), registry.get("crawler.documents").tag("result", "unique").counter().count(), 0);
+            assertEquals(0, registry.get("crawler.documents").tag("result", "already_sent").counter().count(), 0);
+        } catch (IOException e) {
+            fail(e.getMessage());
+        } finally {
+            Metrics.removeRegistry(registry);
+            f.delete();
+        }
+    }
+
     @Test
     public void testIndexSetupFullRunFailure() {
         File f = DownloadIndex.download(600);
@@ -54,13 +119,75 @@ public class CrawlIndexTest {
         StdOutput mockStd = mock(StdOutput.class);
 
         when(mockStd.send(anyList())).thenReturn(false);
-        boolean res = index.crawlAndSend(mockStd, 50);
+        boolean res = index.crawlAndSend(mockStd, 50).isSuccess();
 
         verify(mockStd, atLeastOnce()).send(anyList());
         assertFalse(res);
         f.delete();
     }
 
+    @Test
+    public void testIndexSetupFullRunFromStream() throws IOException {
+        CrawlIndex index = new CrawlIndex(600, new DownloadIndex(DownloadIndex.MAVEN_CENTRAL).open(600, false));
+        StdOutput mockStd = mock(StdOutput.class);
+
+        when(mockStd.send(anyList())).thenReturn(true);
+        when(mockStd.flush()).thenReturn(true);
+
+        boolean res = index.crawlAndSend(mockStd, 50).isSuccess();
+
+        verify(mockStd, atLeastOnce()).send(anyList());
+        assertTrue(res);
+    }
+
+    @Test
+    public void testIndexSetupFullRunStreaming() {
+        File f = DownloadIndex.download(600);
+        CrawlIndex index = new CrawlIndex(600, f);
+        StdOutput mockStd = mock(StdOutput.class);
+
+        when(mockStd.send(anyList())).thenReturn(true);
+        when(mockStd.flush()).thenReturn(true);
+
+        boolean res = index.crawlAndStream(mockStd, 50, 2).isSuccess();
+
+        verify(mockStd, atLeastOnce()).send(anyList());
+        verify(mockStd).flush();
+        assertTrue(res);
+        f.delete();
+    }
+
+    @Test
+    public void testIndexSetupFullRunStreamingFailure() {
+        File f = DownloadIndex.download(600);
+        CrawlIndex index = new CrawlIndex(600, f);
+        StdOutput mockStd = mock(StdOutput.class);
+
+        when(mockStd.send(anyList())).thenReturn(false);
+        boolean res = index.crawlAndStream(mockStd, 50, 2).isSuccess();
+
+        verify(mockStd, atLeastOnce()).send(anyList());
+        verify(mockStd, never()).flush();
+        assertFalse(res);
+        f.delete();
+    }
+
+    @Test(timeout = 60000)
+    public void testIndexSetupFullRunStreamingSendThrows() {
+        File f = DownloadIndex.download(600);
+        CrawlIndex index = new CrawlIndex(600, f);
+        StdOutput mockStd = mock(StdOutput.class);
+
+        // E.g. a KafkaException from a synchronous send, the crawl fails instead of blocking on the full queue.
+        when(mockStd.send(anyList())).thenThrow(new RuntimeException("Broker unavailable"));
+        boolean res = index.crawlAndStream(mockStd, 50, 2).isSuccess();
+
+        verify(mockStd, times(1)).send(anyList());
+        verify(mockStd, never()).flush();
+        verify(mockStd).close();
+        assertFalse(res);
+        f.delete();
+    }
 
     @Test
     public void testIndexSetupFullRunKafka() throws IllegalAccessException {
@@ -68,7 +195,7 @@ public class CrawlIndexTest {
         CrawlIndex index = new CrawlIndex(600, f);
         KafkaOutput kafkaOutput = spy(new KafkaOutput("", "", 50));
 
-        KafkaProducer<String, String> prod = mock(KafkaProducer.class);
+        KafkaProducer<String, byte[]> prod = mock(KafkaProducer.class);
         Future<RecordMetadata> fut = mock(Future.class);
 
         doNothing().when(kafkaOutput).open();
@@ -76,10 +203,102 @@ public class CrawlIndexTest {
 
         FieldUtils.writeField(kafkaOutput, "producer", prod, true);
 
-        boolean res = index.crawlAndSend(kafkaOutput, 50);
+        boolean res = index.crawlAndSend(kafkaOutput, 50).isSuccess();
 
         verify(kafkaOutput, atLeastOnce()).send(anyList());
         assertTrue(res);
         f.delete();
     }
+
+    @Test
+    public void testIndexSetupFullRunCheckpoint() {
+        File f = DownloadIndex.download(600);
+        CrawlIndex index = new CrawlIndex(600, f);
+        index.setRepository(new Repository("mirror", "https://nexus.example.com/"));
+        StdOutput mockStd = mock(StdOutput.class);
+
+        when(mockStd.send(anyList())).thenReturn(true);
+        when(mockStd.flush()).thenReturn(true);
+        boolean res = index.crawlAndStream(mockStd, 50, 2).isSuccess();
+
+        // The checkpoint (the next index) is handed to the output before flushing, so it can be committed with the records.
+        InOrder inOrder = inOrder(mockStd);
+        inOrder.verify(mockStd, atLeastOnce()).send(anyList());
+        inOrder.verify(mockStd).checkpoint("mirror", 601);
+        inOrder.verify(mockStd).flush();
+        inOrder.verify(mockStd).close();
+        assertTrue(res);
+        f.delete();
+    }
+
+    @Test
+    public void testIndexSetupFullRunFlushFailure() {
+        File f = DownloadIndex.download(600);
+        CrawlIndex index = new CrawlIndex(600, f);
+        StdOutput mockStd = mock(StdOutput.class);
+
+        when(mockStd.send(anyList())).thenReturn(true);
+        when(mockStd.flush()).thenReturn(false);
+        boolean res = index.crawlAndSend(mockStd, 50).isSuccess();
+
+        verify(mockStd, atLeastOnce()).send(anyList());
+        verify(mockStd).close();
+        assertFalse(res);
+        f.delete();
+    }
+
+    @Test
+    public void testIndexSetupFullRunSeenStore() throws IOException {
+        File f = DownloadIndex.download(600);
+        FingerprintStore store = new FingerprintStore(new File(folder.getRoot(), FingerprintStore.FILE_NAME));
+
+        // A failed crawl doesn't store anything.
+        StdOutput failingStd = mock(StdOutput.class);
+        when(failingStd.send(anyList())).thenReturn(true);
+        when(failingStd.flush()).thenReturn(false);
+        CrawlIndex failed = new CrawlIndex(600, f);
+        failed.setSeenStore(store);
+        assertFalse(failed.crawlAndSend(failingStd, 50).isSuccess());
+        assertEquals(0, store.size());
+
+        StdOutput mockStd = mock(StdOutput.class);
+        when(mockStd.send(anyList())).thenReturn(true);
+        when(mockStd.flush()).thenReturn(true);
+        CrawlIndex first = new CrawlIndex(600, f);
+        first.setSeenStore(store);
+        assertTrue(first.crawlAndStream(mockStd, 50, 2).isSuccess());
+        verify(mockStd, atLeastOnce()).send(anyList());
+        assertTrue(store.size() > 0);
+
+        // Crawling the same index again sends nothing.
+        StdOutput secondStd = mock(StdOutput.class);
+        when(secondStd.flush()).thenReturn(true);
+        CrawlIndex second = new CrawlIndex(600, f);
+        second.setSeenStore(store);
+        assertTrue(second.crawlAndSend(secondStd, 50).isSuccess());
+        verify(secondStd, never()).send(anyList());
+
+        store.close();
+        f.delete();
+    }
+
+    @Test
+    public void testIndexSetupFullRunSeenStoreFails() {
+        File f = DownloadIndex.download(600);
+        FingerprintStore store = mock(FingerprintStore.class);
+        doThrow(new IllegalStateException("full")).when(store).addAll(anyCollection());
+
+        // The artifacts were sent, so the crawl succeeds, but the failure is recorded.
+        StdOutput mockStd = mock(StdOutput.class);
+        when(mockStd.send(anyList())).thenReturn(true);
+        when(mockStd.flush()).thenReturn(true);
+        CrawlIndex index = new CrawlIndex(600, f);
+        index.setSeenStore(store);
+        CrawlResult result = index.crawlAndSend(mockStd, 50);
+
+        assertTrue(result.isSuccess());
+        assertEquals(1, result.getStatistics().getSeenStoreFailures());
+        verify(store, never()).commit();
+        f.delete();
+    }
 }
@@ -1,13 +1,27 @@
 package eu.fasten.crawler;
 
+import com.sun.net.httpserver.HttpServer;
+import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
 
 import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.InetSocketAddress;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Properties;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicReference;
 
 import static org.junit.Assert.*;
 
 public class DownloadIndexTest {
 
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
     @Test
     public void indexExistsTest() {
         assertTrue(DownloadIndex.indexExists(600)); // We know this index exists.
@@ -28,4 +42,212 @@ public class DownloadIndexTest {
          assertThrows(RuntimeException.class, () -> DownloadIndex.download(-1));
     }
 
+    @Test
+    public void indexDownloadRangesTest() {
+        DownloadIndex downloadIndex = new DownloadIndex(DownloadIndex.MAVEN_CENTRAL, folder.getRoot(), 4, 512 * 1024);
+        File file = downloadIndex.fetch(600);
+        File single = DownloadIndex.download(600);
+
+        assertEquals(single.length(), file.length());
+        assertEquals(1, folder.getRoot().list().length); // All parts are removed.
+
+        single.delete();
+    }
+
+    @Test
+    public void mirrorFullIndexTest() throws IOException {
+        File mirror = folder.newFolder("mirror");
+        byte[] content = new byte[5000];
+        new Random(7).nextBytes(content);
+        Files.write(new File(mirror, DownloadIndex.FULL_INDEX).toPath(), content);
+        Files.write(new File(mirror, DownloadIndex.INDEX_PROPERTIES).toPath(), (DownloadIndex.LAST_INCREMENTAL + "=42\n").getBytes());
+        DownloadIndex downloadIndex = new DownloadIndex(mirror.toURI().toString(), folder.newFolder("download"), 2, 1024);
+
+        Properties properties = downloadIndex.fetchProperties();
+        assertEquals("42", properties.getProperty(DownloadIndex.LAST_INCREMENTAL));
+        assertArrayEquals(content, Files.readAllBytes(downloadIndex.fetchFull().toPath()));
+        try (InputStream in = downloadIndex.openFull(false)) {
+            assertArrayEquals(content, in.readAllBytes());
+        }
+    }
+
+    @Test
+    public void mirrorExistsTest() throws IOException {
+        byte[] content = writeMirrorIndex(1, 1024);
+        DownloadIndex downloadIndex = new DownloadIndex(folder.getRoot().toURI().toString() + "mirror", folder.newFolder("download"), 1, 1024);
+
+        assertTrue(downloadIndex.exists(1));
+        assertFalse(downloadIndex.exists(2));
+        assertArrayEquals(content, Files.readAllBytes(downloadIndex.fetch(1).toPath()));
+    }
+
+    @Test
+    public void mirrorDownloadPartsTest() throws IOException {
+        byte[] content = writeMirrorIndex(1, 100_000);
+        File downloadDir = folder.newFolder("download");
+        DownloadIndex downloadIndex = new DownloadIndex(folder.getRoot().toURI().toString() + "mirror", downloadDir, 4, 1024);
+
+        File file = downloadIndex.fetch(1);
+        assertArrayEquals(content, Files.readAllBytes(file.toPath()));
+        assertArrayEquals(new String[] { file.getName() }, downloadDir.list());
+    }
+
+    @Test
+    public void mirrorDownloadResumeTest() throws IOException {
+        byte[] content = writeMirrorIndex(1, 100_000);
+        File downloadDir = folder.newFolder("download");
+        DownloadIndex downloadIndex = new DownloadIndex(folder.getRoot().toURI().toString() + "mirror", downloadDir, 4, 1024);
+
+        // Simulate a crash halfway the first part (of 25000 bytes), and a stale part of another layout.
+        byte[] partial = Arrays.copyOf(content, 10_000);
+        Arrays.fill(partial, (byte) 0);
+        Files.write(new File(downloadDir, "nexus-maven-repository-index.1.gz.0-24999.part").toPath(), partial);
+        Files.write(new File(downloadDir, "nexus-maven-repository-index.1.gz.0-49999.part").toPath(), partial);
+        writeValidator(downloadDir, 1);
+
+        File file = downloadIndex.fetch(1);
+        byte[] downloaded = Files.readAllBytes(file.toPath());
+
+        // The resumed part keeps the bytes already on disk and only downloads the remainder.
+        assertArrayEquals(partial, Arrays.copyOf(downloaded, 10_000));
+        assertArrayEquals(Arrays.copyOfRange(content, 10_000, content.length), Arrays.copyOfRange(downloaded, 10_000, downloaded.length));
+        assertArrayEquals(new String[] { file.getName() }, downloadDir.list());
+    }
+
+    @Test
+    public void mirrorDownloadResumeChangedTest() throws IOException {
+        byte[] content = writeMirrorIndex(1, 100_000);
+        File downloadDir = folder.newFolder("download");
+        DownloadIndex downloadIndex = new DownloadIndex(folder.getRoot().toURI().toString() + "mirror", downloadDir, 4, 1024);
+
+        // Parts of an earlier version of the index are discarded.
+        byte[] partial = new byte[10_000];
+        Files.write(new File(downloadDir, "nexus-maven-repository-index.1.gz.0-24999.part").toPath(), partial);
+        Files.writeString(new File(downloadDir, "nexus-maven-repository-index.1.gz.validator").toPath(), "0");
+
+        File file = downloadIndex.fetch(1);
+        assertArrayEquals(content, Files.readAllBytes(file.toPath()));
+        assertArrayEquals(new String[] { file.getName() }, downloadDir.list());
+    }
+
+    @Test
+    public void resumeChangedDuringDownloadTest() throws IOException {
+        byte[] content = new byte[100_000];
+        new Random(1).nextBytes(content);
+        AtomicReference<String> etag = new AtomicReference<>("\"v1\"");
+
+        // Serves ranges, unless If-Range doesn't match the current version (which changes after the first request).
+        HttpServer server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/", (exchange) -> {
+            exchange.getResponseHeaders().add("Accept-Ranges", "bytes");
+            exchange.getResponseHeaders().add("ETag", etag.getAndSet("\"v2\""));
+            String range = exchange.getRequestHeaders().getFirst("Range");
+            String ifRange = exchange.getRequestHeaders().getFirst("If-Range");
+            boolean ranged = range != null && (ifRange == null || ifRange.equals(etag.get()));
+            int from = 0;
+            int to = content.length - 1;
+            if (ranged) {
+                String[] bounds = range.substring("bytes=".length()).split("-");
+                from = Integer.parseInt(bounds[0]);
+                to = Integer.parseInt(bounds[1]);
+            }
+
+            int length = to - from + 1;
+            if ("HEAD".equals(exchange.getRequestMethod())) {
+                exchange.getResponseHeaders().add("Content-Length", String.valueOf(length));
+                exchange.sendResponseHeaders(200, -1);
+            } else {
+                exchange.sendResponseHeaders(ranged ? 206 : 200, length);
+                exchange.getResponseBody().write(content, from, length);
+            }
+            exchange.close();
+        });
+        server.start();
+
+        try {
+            File downloadDir = folder.newFolder("download");
+            DownloadIndex downloadIndex = new DownloadIndex("http://localhost:" + server.getAddress().getPort() + "/", downloadDir, 1, 1024 * 1024);
+
+            // A part of version 1, which the server replaces by version 2 after the HEAD request.
+            Files.write(new File(downloadDir, "nexus-maven-repository-index.1.gz.0-99999.part").toPath(), new byte[10_000]);
+            Files.writeString(new File(downloadDir, "nexus-maven-repository-index.1.gz.validator").toPath(), "\"v1\"");
+
+            File file = downloadIndex.fetch(1);
+            assertArrayEquals(content, Files.readAllBytes(file.toPath()));
+            assertArrayEquals(new String[] { file.getName() }, downloadDir.list());
+        } finally {
+            server.stop(0);
+        }
+    }
+
+    @Test
+    public void mirrorDownloadFailTest() throws IOException {
+        DownloadIndex downloadIndex = new DownloadIndex(folder.getRoot().toURI().toString(), folder.newFolder("download"), 1, 1024);
+        assertThrows(RuntimeException.class, () -> downloadIndex.fetch(1));
+    }
+
+    @Test
+    public void mirrorOpenTest() throws IOException {
+        byte[] content = writeMirrorIndex(1, 100_000);
+        File downloadDir = folder.newFolder("download");
+        DownloadIndex downloadIndex = new DownloadIndex(folder.getRoot().toURI().toString() + "mirror", downloadDir, 1, 1024);
+
+        try (InputStream in = downloadIndex.open(1, false)) {
+            assertArrayEquals(content, in.readAllBytes());
+        }
+        assertEquals(0, downloadDir.list().length);
+        assertThrows(IOException.class, () -> downloadIndex.open(2, false));
+    }
+
+    @Test
+    public void mirrorOpenTeeTest() throws IOException {
+        byte[] content = writeMirrorIndex(1, 100_000);
+        File downloadDir = folder.newFolder("download");
+        DownloadIndex downloadIndex = new DownloadIndex(folder.getRoot().toURI().toString() + "mirror", downloadDir, 1, 1024);
+
+        // Read all but a short tail (e.g. the gzip trailer), the tail is copied on close.
+        try (InputStream in = downloadIndex.open(1, true)) {
+            assertEquals(99_992, in.readNBytes(99_992).length);
+        }
+        File teed = new File(downloadDir, "nexus-maven-repository-index.1.gz");
+        assertArrayEquals(content, Files.readAllBytes(teed.toPath()));
+
+        // A retry opens the copy, even when the mirror is gone.
+        new File(folder.getRoot(), "mirror/nexus-maven-repository-index.1.gz").delete();
+        try (InputStream in = downloadIndex.open(1, true)) {
+            assertArrayEquals(content, in.readAllBytes());
+        }
+
+        downloadIndex.delete(1);
+        assertFalse(teed.exists());
+    }
+
+    @Test
+    public void mirrorOpenTeeAbortedTest() throws IOException {
+        writeMirrorIndex(1, 100_000);
+        File downloadDir = folder.newFolder("download");
+        DownloadIndex downloadIndex = new DownloadIndex(folder.getRoot().toURI().toString() + "mirror", downloadDir, 1, 1024);
+
+        // A reader which stops early (e.g. a failed crawl) doesn't download the remainder, nor keep the copy.
+        try (InputStream in = downloadIndex.open(1, true)) {
+            assertEquals(1000, in.readNBytes(1000).length);
+        }
+        assertEquals(0, downloadDir.list().length);
+    }
+
+    private void writeValidator(File downloadDir, int index) throws IOException {
+        long lastModified = new File(folder.getRoot(), "mirror/nexus-maven-repository-index." + index + ".gz").lastModified();
+        Files.writeString(new File(downloadDir, "nexus-maven-repository-index." + index + ".gz.validator").toPath(), String.valueOf(lastModified));
+    }
+
+    private byte[] writeMirrorIndex(int index, int size) throws IOException {
+        byte[] content = new byte[size];
+        new Random(index).nextBytes(content);
+
+        File mirror = new File(folder.getRoot(), "mirror");
+        mirror.mkdirs();
+        Files.write(new File(mirror, "nexus-maven-repository-index." + index + ".gz").toPath(), content);
+        return content;
+    }
+
 }
@@ -1,20 +1,49 @@
 package eu.fasten.crawler;
 
+import eu.fasten.crawler.data.FingerprintSet;
+import eu.fasten.crawler.data.FingerprintStore;
+import eu.fasten.crawler.data.MavenArtifact;
+import eu.fasten.crawler.data.Repository;
+import eu.fasten.crawler.output.KafkaOutput;
+import eu.fasten.crawler.output.OutputFactory;
+import eu.fasten.crawler.output.SharedOutput;
 import eu.fasten.crawler.output.StdOutput;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.commons.cli.CommandLine;
+import org.apache.commons.cli.DefaultParser;
 import org.apache.commons.cli.Option;
+import org.apache.commons.cli.ParseException;
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.lang3.reflect.FieldUtils;
 import org.junit.BeforeClass;
+import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
 
 import java.io.File;
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import static org.junit.Assert.*;
+import static org.mockito.Matchers.any;
 import static org.mockito.Matchers.anyList;
 import static org.mockito.Mockito.*;
 
 public class IncrementalMavenCrawlerTest {
 
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
     @BeforeClass
     public static void beforeAll() {
         new File("src/test/resources").mkdirs();
@@ -124,6 +153,25 @@ public class IncrementalMavenCrawlerTest {
         new File("src/test/resources/6.index").delete();
     }
 
+    @Test
+    public void testUpdateIndexKeepsOtherFiles() throws IOException {
+        File dir = new File("src/test/resources/");
+        File other = new File(dir, "seen.fingerprints");
+        dir.mkdirs();
+        other.createNewFile();
+
+        IncrementalMavenCrawler crawler = new IncrementalMavenCrawler(0, 0, new StdOutput(), "src/test/resources/");
+        crawler.updateIndex();
+        crawler.updateIndex();
+
+        assertTrue(other.exists());
+        assertFalse(new File(dir, "1.index").exists());
+        assertTrue(new File(dir, "2.index").exists());
+
+        other.delete();
+        new File(dir, "2.index").delete();
+    }
+
     @Test
     public void testNonExistentIndex() {
         int index = 9999999;
@@ -163,6 +211,59 @@ public class IncrementalMavenCrawlerTest {
         assertEquals(index, crawler.getIndex());
     }
 
+    @Test
+    public void testCatchUpNonExistentIndex() {
+        int index = 9999999;
+        IncrementalMavenCrawler crawler = new IncrementalMavenCrawler(index, 0, new StdOutput(), "");
+        crawler.setCatchUpWorkers(2);
+        crawler.run();
+        assertEquals(index, crawler.getIndex());
+    }
+
+    @Test
+    public void testCatchUpPoolDaemonThreads() throws Exception {
+        IncrementalMavenCrawler crawler = new IncrementalMavenCrawler(0, 50, new StdOutput(), "");
+        crawler.setCatchUpWorkers(2);
+
+        // The pool is never shut down, so its threads must not keep the JVM alive.
+        ExecutorService pool = (ExecutorService) FieldUtils.readField(crawler, "catchUpPool", true);
+        assertTrue(pool.submit(() -> Thread.currentThread().isDaemon()).get());
+        assertTrue(IncrementalMavenCrawler.daemonThreads("index-download").newThread(() -> {}).isDaemon());
+    }
+
+    @Test
+    public void testCatchUpCrawl() {
+        int index = 600; // We know this index exists, but the next one doesn't.
+        StdOutput stdOutput = spy(new StdOutput());
+
+        IncrementalMavenCrawler crawler = new IncrementalMavenCrawler(index, 50, stdOutput, "src/test/resources/");
+        crawler.setCatchUpWorkers(2);
+
+        when(stdOutput.send(anyList())).thenReturn(true);
+        crawler.run();
+
+        assertTrue(new File("src/test/resources/" + (index + 1) + ".index").exists());
+        verify(stdOutput, atLeastOnce()).send(anyList());
+        assertEquals(index + 1, crawler.getIndex());
+
+        new File("src/test/resources/" + (index + 1) + ".index").delete();
+    }
+
+    @Test
+    public void testCatchUpFailedCrawl() {
+        int index = 600;
+        StdOutput stdOutput = spy(new StdOutput());
+
+        IncrementalMavenCrawler crawler = new IncrementalMavenCrawler(index, 50, stdOutput, "");
+        crawler.setCatchUpWorkers(2);
+
+        when(stdOutput.send(anyList())).thenReturn(false);
+        crawler.run();
+
+        verify(stdOutput, atLeastOnce()).send(anyList());
+        assertEquals(index, crawler.getIndex());
+    }
+
     /**
      * This test aims to detect multiple options with same name.
      * It compares number of Option static attribute declared in IncrementalMavenCrawler with
@@ -180,4 +281,381 @@ public class IncrementalMavenCrawlerTest {
 
         assertEquals(numberOfOptionsDelcared, actualNumberOfOptions);
     }
+
+    @Test
+    public void testKafkaProducerProperties() throws Exception {
+        File file = new File("src/test/resources/producer.properties");
+        FileUtils.writeStringToFile(file, "batch.size=1024\nlinger.ms=50\n", StandardCharsets.UTF_8);
+
+        IncrementalMavenCrawler.addOptions();
+        CommandLine cmd = new DefaultParser().parse(IncrementalMavenCrawler.options, new String[] {
+                "-si", "0", "-i", "1", "-o", "kafka", "-kt", "topic", "-kz", "zstd", "-kpf", file.getPath(), "-kp", "linger.ms=5", "-kp", "acks=1"});
+        KafkaOutput output = (KafkaOutput) OutputFactory.getOutput("kafka", IncrementalMavenCrawler.verifyAndParseArguments(cmd));
+        Properties producer = output.getProducerProperties();
+
+        assertEquals("zstd", producer.getProperty("compression.type"));
+        assertEquals("1024", producer.getProperty("batch.size"));
+        assertEquals("5", producer.getProperty("linger.ms"));
+        assertEquals("1", producer.getProperty("acks"));
+        assertEquals("true", producer.getProperty("enable.idempotence"));
+        file.delete();
+    }
+
+    @Test
+    public void testKafkaCheckpointTopicArgument() throws Exception {
+        IncrementalMavenCrawler.addOptions();
+        CommandLine cmd = new DefaultParser().parse(IncrementalMavenCrawler.options, new String[] {
+                "-si", "0", "-i", "1", "-o", "kafka", "-kt", "topic", "-kct", "checkpoints", "-kti", "crawler-central", "-kp", "transaction.timeout.ms=60000"});
+        KafkaOutput output = (KafkaOutput) OutputFactory.getOutput("kafka", IncrementalMavenCrawler.verifyAndParseArguments(cmd));
+        Properties producer = output.getProducerProperties();
+
+        assertEquals("checkpoints", output.getCheckpointTopic());
+        assertEquals("crawler-central", producer.getProperty("transactional.id"));
+        assertEquals("60000", producer.getProperty("transaction.timeout.ms"));
+
+        // Without transactions the checkpoint topic isn't used.
+        cmd = new DefaultParser().parse(IncrementalMavenCrawler.options, new String[] {"-si", "0", "-i", "1", "-o", "kafka", "-kt", "topic"});
+        output = (KafkaOutput) OutputFactory.getOutput("kafka", IncrementalMavenCrawler.verifyAndParseArguments(cmd));
+        assertNull(output.getCheckpointTopic());
+        assertNull(output.getProducerProperties().getProperty("transactional.id"));
+    }
+
+    @Test
+    public void testKafkaCheckpointTopicRequiresOnlyKafka() throws Exception {
+        IncrementalMavenCrawler.addOptions();
+
+        for (String outputs : new String[] {"std", "kafka,rest"}) {
+            CommandLine cmd = new DefaultParser().parse(IncrementalMavenCrawler.options, new String[] {
+                    "-si", "0", "-i", "1", "-o", outputs, "-kt", "topic", "-re", "http://localhost", "-kct", "checkpoints"});
+            assertThrows(ParseException.class, () -> IncrementalMavenCrawler.verifyAndParseArguments(cmd));
+        }
+    }
+
+    @Test
+    public void testKafkaCheckpointTopicWithoutBootstrap() throws Exception {
+        IncrementalMavenCrawler.addOptions();
+        CommandLine cmd = new DefaultParser().parse(IncrementalMavenCrawler.options, new String[] {
+                "-i", "1", "-o", "kafka", "-kt", "topic", "-kct", "checkpoints", "-b"});
+        assertThrows(ParseException.class, () -> IncrementalMavenCrawler.verifyAndParseArguments(cmd));
+
+        File repositories = folder.newFile("repositories.properties");
+        FileUtils.writeStringToFile(repositories, String.join("\n",
+                "central.base_url=" + DownloadIndex.MAVEN_CENTRAL,
+                "central.start_index=800",
+                "mirror.base_url=https://nexus.example.com/repository/maven-public/.index/",
+                "mirror.bootstrap=true"), StandardCharsets.UTF_8);
+        CommandLine repositoriesCmd = new DefaultParser().parse(IncrementalMavenCrawler.options, new String[] {
+                "-i", "1", "-o", "kafka", "-kt", "topic", "-kct", "checkpoints", "-rs", repositories.getPath()});
+        assertThrows(ParseException.class, () -> IncrementalMavenCrawler.verifyAndParseArguments(repositoriesCmd));
+    }
+
+    /**
+     * Sets up a mirror with index 600 as full index, which includes incremental index 599.
+     */
+    private DownloadIndex bootstrapMirror() throws IOException {
+        File mirror = folder.newFolder("mirror");
+        File full = DownloadIndex.download(600);
+        Files.move(full.toPath(), new File(mirror, DownloadIndex.FULL_INDEX).toPath(), StandardCopyOption.REPLACE_EXISTING);
+        FileUtils.writeStringToFile(new File(mirror, DownloadIndex.INDEX_PROPERTIES), DownloadIndex.LAST_INCREMENTAL + "=599\n", StandardCharsets.UTF_8);
+
+        return new DownloadIndex(mirror.toURI().toString(), folder.newFolder("download"), 1, 1024);
+    }
+
+    @Test
+    public void testBootstrap() throws IOException {
+        File checkpointDir = folder.newFolder("checkpoint");
+        StdOutput stdOutput = mock(StdOutput.class);
+        when(stdOutput.send(anyList())).thenReturn(true);
+        when(stdOutput.flush()).thenReturn(true);
+
+        IncrementalMavenCrawler crawler = new IncrementalMavenCrawler(0, 50, stdOutput, checkpointDir.getPath() + "/");
+        crawler.setDownloadIndex(bootstrapMirror());
+        crawler.setBootstrap(true);
+        crawler.run();
+
+        verify(stdOutput, atLeastOnce()).send(anyList());
+        assertEquals(600, crawler.getIndex());
+        assertTrue(new File(checkpointDir, "600.index").exists());
+
+        // The checkpoint passed to the output is the same as the one in the checkpoint directory.
+        verify(stdOutput).checkpoint("central", 600);
+    }
+
+    @Test
+    public void testBootstrapSeenStoreFailed() throws Exception {
+        StdOutput stdOutput = mock(StdOutput.class);
+        when(stdOutput.send(anyList())).thenReturn(true);
+        when(stdOutput.flush()).thenReturn(true);
+        FingerprintStore store = mock(FingerprintStore.class);
+        doThrow(new IllegalStateException("full")).when(store).addAll(any(FingerprintSet.class));
+
+        IncrementalMavenCrawler crawler = new IncrementalMavenCrawler(0, 50, stdOutput, folder.newFolder("checkpoint").getPath() + "/");
+        crawler.setDownloadIndex(bootstrapMirror());
+        crawler.setBootstrap(true);
+        crawler.setSeenStore(store);
+        crawler.run();
+
+        // The artifacts were sent, so the crawl succeeds, but the failed store isn't used anymore.
+        assertEquals(600, crawler.getIndex());
+        verify(store).close();
+        assertNull(FieldUtils.readField(crawler, "seenStore", true));
+    }
+
+    @Test
+    public void testBootstrapFailed() throws IOException {
+        StdOutput stdOutput = mock(StdOutput.class);
+        when(stdOutput.send(anyList())).thenReturn(false);
+
+        IncrementalMavenCrawler crawler = new IncrementalMavenCrawler(0, 50, stdOutput, "");
+        crawler.setDownloadIndex(bootstrapMirror());
+        crawler.setBootstrap(true);
+        crawler.run();
+
+        verify(stdOutput, atLeastOnce()).send(anyList());
+        assertEquals(0, crawler.getIndex());
+    }
+
+    @Test
+    public void testBootstrapSkippedWithCheckpoint() throws IOException {
+        File checkpointDir = folder.newFolder("checkpoint");
+        new File(checkpointDir, "5.index").createNewFile();
+        StdOutput stdOutput = mock(StdOutput.class);
+
+        IncrementalMavenCrawler crawler = new IncrementalMavenCrawler(0, 50, stdOutput, checkpointDir.getPath() + "/");
+        crawler.setDownloadIndex(bootstrapMirror());
+        crawler.setBootstrap(true);
+        crawler.run();
+
+        verify(stdOutput, never()).send(anyList());
+        assertEquals(5, crawler.getIndex());
+    }
+
+    @Test
+    public void testRestoreCheckpoint() throws IOException {
+        File checkpointDir = folder.newFolder("checkpoint");
+        new File(checkpointDir, "5.index").createNewFile();
+
+        IncrementalMavenCrawler crawler = new IncrementalMavenCrawler(0, 50, mock(StdOutput.class), checkpointDir.getPath() + "/");
+        crawler.setBootstrap(true);
+
+        // The committed checkpoint is ahead of the checkpoint directory, e.g. after a crash before updating it.
+        crawler.restoreCheckpoint(6);
+        assertEquals(6, crawler.getIndex());
+
+        // An older checkpoint doesn't move the crawler back.
+        crawler.restoreCheckpoint(3);
+        assertEquals(6, crawler.getIndex());
+    }
+
+    @Test
+    public void testBootstrapSkippedWithRestoredCheckpoint() throws IOException {
+        StdOutput stdOutput = mock(StdOutput.class);
+
+        IncrementalMavenCrawler crawler = new IncrementalMavenCrawler(0, 50, stdOutput, "");
+        crawler.setDownloadIndex(bootstrapMirror());
+        crawler.setBootstrap(true);
+        crawler.restoreCheckpoint(700);
+        crawler.run();
+
+        verify(stdOutput, never()).send(anyList());
+        assertEquals(700, crawler.getIndex());
+    }
+
+    @Test
+    public void testStartIndexRequiredWithoutBootstrap() throws Exception {
+        IncrementalMavenCrawler.addOptions();
+        CommandLine cmd = new DefaultParser().parse(IncrementalMavenCrawler.options, new String[] {"-i", "1"});
+        assertThrows(ParseException.class, () -> IncrementalMavenCrawler.verifyAndParseArguments(cmd));
+
+        CommandLine bootstrap = new DefaultParser().parse(IncrementalMavenCrawler.options, new String[] {"-i", "1", "-b"});
+        assertEquals("true", IncrementalMavenCrawler.verifyAndParseArguments(bootstrap).getProperty("bootstrap"));
+    }
+
+    /**
+     * Sets up a mirror with index 600 as incremental indexes 1 to 3, optionally with properties.
+     */
+    private DownloadIndex incrementalMirror(String lastIncremental) throws IOException {
+        return incrementalMirror("mirror", lastIncremental);
+    }
+
+    private DownloadIndex incrementalMirror(String name, String lastIncremental) throws IOException {
+        File mirror = folder.newFolder(name);
+        File index = DownloadIndex.download(600);
+        for (int i = 1; i <= 3; i++) {
+            Files.copy(index.toPath(), new File(mirror, "nexus-maven-repository-index." + i + ".gz").toPath());
+        }
+        index.delete();
+
+        if (lastIncremental != null) {
+            FileUtils.writeStringToFile(new File(mirror, DownloadIndex.INDEX_PROPERTIES), DownloadIndex.LAST_INCREMENTAL + "=" + lastIncremental + "\n", StandardCharsets.UTF_8);
+        }
+
+        return new DownloadIndex(mirror.toURI().toString(), folder.newFolder(name + "-download"), 1, 1024);
+    }
+
+    @Test
+    public void testDiscoverFromProperties() throws IOException {
+        StdOutput stdOutput = mock(StdOutput.class);
+        when(stdOutput.send(anyList())).thenReturn(true);
+        when(stdOutput.flush()).thenReturn(true);
+
+        // Index 3 exists, but isn't published in the properties yet.
+        IncrementalMavenCrawler crawler = new IncrementalMavenCrawler(1, 50, stdOutput, "");
+        crawler.setDownloadIndex(incrementalMirror("2"));
+        assertEquals(2, crawler.findLastAvailableIndex());
+
+        // All pending indexes are crawled in a single run.
+        crawler.run();
+        assertEquals(3, crawler.getIndex());
+        verify(stdOutput, times(2)).flush();
+    }
+
+    @Test
+    public void testIndexGauges() throws IOException {
+        StdOutput stdOutput = mock(StdOutput.class);
+        when(stdOutput.send(anyList())).thenReturn(true);
+        when(stdOutput.flush()).thenReturn(true);
+
+        IncrementalMavenCrawler crawler = new IncrementalMavenCrawler(1, 50, stdOutput, "");
+        crawler.setDownloadIndex(incrementalMirror("2"));
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        crawler.bindTo(registry);
+
+        crawler.findLastAvailableIndex();
+        assertEquals(1, registry.get("crawler.index.next").gauge().value(), 0);
+        assertEquals(2, registry.get("crawler.index.latest").gauge().value(), 0);
+        assertEquals(2, registry.get("crawler.index.lag").gauge().value(), 0);
+
+        crawler.run();
+        assertEquals(3, registry.get("crawler.index.next").gauge().value(), 0);
+        assertEquals(0, registry.get("crawler.index.lag").gauge().value(), 0);
+    }
+
+    @Test
+    public void testMetricsPortArgument() throws ParseException {
+        IncrementalMavenCrawler.addOptions();
+        Properties properties = IncrementalMavenCrawler.verifyAndParseArguments(
+                new DefaultParser().parse(IncrementalMavenCrawler.options, new String[]{"-si", "1", "-i", "1", "-mp", "9100"}));
+        assertEquals("9100", properties.getProperty("metrics_port"));
+        assertEquals("true", properties.getProperty("metrics"));
+
+        assertThrows(ParseException.class, () -> IncrementalMavenCrawler.verifyAndParseArguments(
+                new DefaultParser().parse(IncrementalMavenCrawler.options, new String[]{"-si", "1", "-i", "1", "-mp", "port"})));
+    }
+
+    @Test
+    public void testRepositoriesArgument() throws IOException, ParseException {
+        File repositories = folder.newFile("repositories.properties");
+        FileUtils.writeStringToFile(repositories, String.join("\n",
+                "central.base_url=" + DownloadIndex.MAVEN_CENTRAL,
+                "central.checkpoint_dir=/tmp/central/",
+                "central.start_index=800",
+                "mirror.base_url=https://nexus.example.com/repository/maven-public/.index/",
+                "mirror.checkpoint_dir=/tmp/mirror/",
+                "mirror.bootstrap=true",
+                "mirror.interval=5m"), StandardCharsets.UTF_8);
+
+        IncrementalMavenCrawler.addOptions();
+        Properties properties = IncrementalMavenCrawler.verifyAndParseArguments(new DefaultParser().parse(IncrementalMavenCrawler.options,
+                new String[]{"-i", "1", "-rs", repositories.getPath(), "-dd", "/tmp/downloads"}));
+        assertEquals("central,mirror", properties.getProperty("repositories"));
+
+        Properties central = IncrementalMavenCrawler.getRepositoryProperties(properties, "central");
+        assertEquals("800", central.getProperty("index"));
+        assertEquals("/tmp/central/", central.getProperty("checkpoint_dir"));
+        assertEquals("https://repo.maven.apache.org/maven2/", central.getProperty("repository_url"));
+        assertEquals(new File("/tmp/downloads", "central").getPath(), central.getProperty("download_dir"));
+        assertEquals("1", central.getProperty("interval"));
+
+        Properties mirror = IncrementalMavenCrawler.getRepositoryProperties(properties, "mirror");
+        assertEquals("https://nexus.example.com/repository/maven-public/.index/", mirror.getProperty("base_url"));
+        assertEquals("https://nexus.example.com/repository/maven-public/", mirror.getProperty("repository_url"));
+        assertEquals("true", mirror.getProperty("bootstrap"));
+        assertEquals("5m", mirror.getProperty("interval"));
+    }
+
+    @Test
+    public void testRepositoriesArgumentInvalid() throws IOException {
+        IncrementalMavenCrawler.addOptions();
+        File repositories = folder.newFile("repositories.properties");
+
+        // Repositories can't share a checkpoint.
+        FileUtils.writeStringToFile(repositories, "one.base_url=file:///one/\none.checkpoint_dir=/tmp/same/\n" +
+                "two.base_url=file:///two/\ntwo.checkpoint_dir=/tmp/same/\n", StandardCharsets.UTF_8);
+        assertThrows(ParseException.class, () -> IncrementalMavenCrawler.verifyAndParseArguments(new DefaultParser().parse(
+                IncrementalMavenCrawler.options, new String[]{"-i", "1", "-si", "1", "-rs", repositories.getPath()})));
+
+        // Every repository needs a base url.
+        FileUtils.writeStringToFile(repositories, "one.checkpoint_dir=/tmp/one/\n", StandardCharsets.UTF_8);
+        assertThrows(ParseException.class, () -> IncrementalMavenCrawler.verifyAndParseArguments(new DefaultParser().parse(
+                IncrementalMavenCrawler.options, new String[]{"-i", "1", "-si", "1", "-rs", repositories.getPath()})));
+
+        // Unknown settings.
+        FileUtils.writeStringToFile(repositories, "one.base_url=file:///one/\none.batch_size=10\n", StandardCharsets.UTF_8);
+        assertThrows(ParseException.class, () -> IncrementalMavenCrawler.verifyAndParseArguments(new DefaultParser().parse(
+                IncrementalMavenCrawler.options, new String[]{"-i", "1", "-si", "1", "-rs", repositories.getPath()})));
+    }
+
+    @Test
+    public void testRepositoriesCrawlConcurrently() throws Exception {
+        List<MavenArtifact> sent = Collections.synchronizedList(new ArrayList<>());
+        StdOutput stdOutput = mock(StdOutput.class);
+        when(stdOutput.send(anyList())).then((invocation) -> sent.addAll((List<MavenArtifact>) invocation.getArguments()[0]));
+        when(stdOutput.flush()).thenReturn(true);
+        SharedOutput output = new SharedOutput(stdOutput);
+
+        IncrementalMavenCrawler one = new IncrementalMavenCrawler(1, 50, output, folder.newFolder("one-checkpoint").getPath() + "/");
+        one.setRepository(new Repository("one", "https://one.example.com/"));
+        one.setDownloadIndex(incrementalMirror("one", "3"));
+        IncrementalMavenCrawler two = new IncrementalMavenCrawler(1, 50, output, folder.newFolder("two-checkpoint").getPath() + "/");
+        two.setRepository(new Repository("two", "https://two.example.com/"));
+        two.setDownloadIndex(incrementalMirror("two", "3"));
+        two.setStreamQueue(2);
+
+        ExecutorService pool = Executors.newFixedThreadPool(2);
+        Future<AdaptiveScheduler.Outcome> first = pool.submit(one::poll);
+        Future<AdaptiveScheduler.Outcome> second = pool.submit(two::poll);
+        assertEquals(AdaptiveScheduler.Outcome.CRAWLED, first.get());
+        assertEquals(AdaptiveScheduler.Outcome.CRAWLED, second.get());
+        pool.shutdown();
+
+        // Both repositories are checkpointed separately, and the shared output is closed after the last crawl.
+        assertEquals(4, one.getIndex());
+        assertEquals(4, two.getIndex());
+        verify(stdOutput, atLeastOnce()).close();
+
+        long fromOne = sent.stream().filter((a) -> a.getRepositoryUrl().equals("https://one.example.com/")).count();
+        long fromTwo = sent.stream().filter((a) -> a.getRepositoryUrl().equals("https://two.example.com/")).count();
+        assertTrue(fromOne > 0);
+        assertEquals(fromOne, fromTwo);
+        assertEquals(sent.size(), fromOne + fromTwo);
+    }
+
+    @Test
+    public void testDiscoverByProbing() throws IOException {
+        StdOutput stdOutput = mock(StdOutput.class);
+        when(stdOutput.send(anyList())).thenReturn(true);
+        when(stdOutput.flush()).thenReturn(true);
+
+        IncrementalMavenCrawler crawler = new IncrementalMavenCrawler(1, 50, stdOutput, "");
+        crawler.setDownloadIndex(incrementalMirror(null));
+        assertEquals(3, crawler.findLastAvailableIndex());
+
+        crawler.run();
+        assertEquals(4, crawler.getIndex());
+    }
+
+    @Test
+    public void testDiscoverStopsAtFailure() throws IOException {
+        StdOutput stdOutput = mock(StdOutput.class);
+        when(stdOutput.send(anyList())).thenReturn(true);
+        when(stdOutput.flush()).thenReturn(true);
+
+        // Index 4 is published, but can't be downloaded.
+        IncrementalMavenCrawler crawler = new IncrementalMavenCrawler(2, 50, stdOutput, "");
+        crawler.setDownloadIndex(incrementalMirror("5"));
+        crawler.run();
+
+        assertEquals(4, crawler.getIndex());
+    }
 }
@@ -0,0 +1,66 @@
+package eu.fasten.crawler.data;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+
+import static org.junit.Assert.*;
+
+public class FingerprintBloomFilterTest {
+
+    private final Fingerprint fingerprint = new Fingerprint();
+
+    private Fingerprint fingerprint(int i) {
+        return fingerprint.compute(new MavenArtifact("a", "g", "1." + i, 0L));
+    }
+
+    @Test
+    public void testNoFalseNegatives() {
+        FingerprintBloomFilter filter = new FingerprintBloomFilter(10_000, 0.01);
+        for (int i = 0; i < 10_000; i++) {
+            filter.put(fingerprint(i).getHigh(), fingerprint.getLow());
+        }
+        for (int i = 0; i < 10_000; i++) {
+            assertTrue(filter.mightContain(fingerprint(i).getHigh(), fingerprint.getLow()));
+        }
+    }
+
+    @Test
+    public void testFalsePositiveRate() {
+        FingerprintBloomFilter filter = new FingerprintBloomFilter(10_000, 0.01);
+        for (int i = 0; i < 10_000; i++) {
+            filter.put(fingerprint(i).getHigh(), fingerprint.getLow());
+        }
+
+        int falsePositives = 0;
+        for (int i = 10_000; i < 110_000; i++) {
+            if (filter.mightContain(fingerprint(i).getHigh(), fingerprint.getLow())) {
+                falsePositives++;
+            }
+        }
+        assertTrue("False positives: " + falsePositives, falsePositives < 2_000);
+    }
+
+    @Test
+    public void testWriteAndRead() throws IOException {
+        FingerprintBloomFilter filter = new FingerprintBloomFilter(100, 0.01);
+        filter.put(fingerprint(1).getHigh(), fingerprint.getLow());
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        filter.writeTo(new DataOutputStream(bytes));
+        FingerprintBloomFilter read = FingerprintBloomFilter.readFrom(new DataInputStream(new ByteArrayInputStream(bytes.toByteArray())));
+
+        assertTrue(read.mightContain(fingerprint(1).getHigh(), fingerprint.getLow()));
+        assertFalse(read.mightContain(fingerprint(2).getHigh(), fingerprint.getLow()));
+        assertEquals(filter.sizeInBytes(), read.sizeInBytes());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidFpp() {
+        new FingerprintBloomFilter(100, 0);
+    }
+}
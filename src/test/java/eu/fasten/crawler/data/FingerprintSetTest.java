@@ -0,0 +1,74 @@
+package eu.fasten.crawler.data;
+
+import org.junit.Test;
+
+import java.util.Objects;
+
+import static org.junit.Assert.*;
+
+public class FingerprintSetTest {
+
+    @Test
+    public void testAddAndContains() {
+        FingerprintSet set = new FingerprintSet();
+        MavenArtifact artifact = new MavenArtifact("a", "g", "1", 0L);
+
+        assertFalse(set.contains(artifact));
+        assertTrue(set.add(artifact));
+        assertTrue(set.contains(artifact));
+        assertEquals(1, set.size());
+    }
+
+    @Test
+    public void testDuplicates() {
+        FingerprintSet set = new FingerprintSet();
+
+        // Equal artifacts (see MavenArtifact `equals`) are duplicates, the timestamp isn't part of the identifier.
+        assertTrue(set.add(new MavenArtifact("a", "g", "1", 0L)));
+        assertFalse(set.add(new MavenArtifact(new String("a"), new String("g"), new String("1"), 1L)));
+        assertTrue(set.add(new MavenArtifact("a", "g", "2", 0L)));
+        assertTrue(set.add(new MavenArtifact("g", "a", "1", 0L)));
+        assertEquals(3, set.size());
+    }
+
+    @Test
+    public void testSeparatedCoordinates() {
+        FingerprintSet set = new FingerprintSet();
+
+        assertTrue(set.add(new MavenArtifact("bc", "a", "1", 0L)));
+        assertTrue(set.add(new MavenArtifact("c", "ab", "1", 0L)));
+    }
+
+    @Test
+    public void testResize() {
+        FingerprintSet set = new FingerprintSet(16);
+        for (int i = 0; i < 100_000; i++) {
+            assertTrue(set.add(new MavenArtifact("a" + (i % 100), "g" + (i / 100), "1", 0L)));
+        }
+        for (int i = 0; i < 100_000; i++) {
+            assertTrue(set.contains(new MavenArtifact("a" + (i % 100), "g" + (i / 100), "1", 0L)));
+            assertFalse(set.add(new MavenArtifact("a" + (i % 100), "g" + (i / 100), "1", 0L)));
+        }
+
+        assertFalse(set.contains(new MavenArtifact("a", "g", "1", 0L)));
+        assertEquals(100_000, set.size());
+        assertTrue(set.sizeInBytes() <= 100_000 * 16 * 4);
+    }
+
+    @Test
+    public void testZeroFingerprint() {
+        FingerprintSet set = new FingerprintSet();
+
+        assertFalse(set.contains(0, 0));
+        assertTrue(set.add(0, 0));
+        assertTrue(set.contains(0, 0));
+        assertFalse(set.add(0, 0));
+        assertEquals(1, set.size());
+    }
+
+    @Test
+    public void testHashCodeUnchanged() {
+        MavenArtifact artifact = new MavenArtifact("a", "g", "1", 0L);
+        assertEquals(Objects.hash("a", "g", "1", artifact.getRepositoryUrl()), artifact.hashCode());
+    }
+}
@@ -0,0 +1,165 @@
+package eu.fasten.crawler.data;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class FingerprintStoreTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void testAddAndContains() throws IOException {
+        FingerprintStore store = new FingerprintStore(new File(folder.getRoot(), FingerprintStore.FILE_NAME));
+        MavenArtifact artifact = new MavenArtifact("a", "g", "1", 0L);
+
+        assertFalse(store.contains(artifact));
+        store.addAll(List.of(artifact));
+        assertTrue(store.contains(artifact));
+        assertFalse(store.contains(new MavenArtifact("a", "g", "2", 0L)));
+        assertEquals(1, store.size());
+    }
+
+    @Test
+    public void testPersistent() throws IOException {
+        File file = new File(folder.getRoot(), FingerprintStore.FILE_NAME);
+        FingerprintStore store = new FingerprintStore(file);
+
+        FingerprintSet set = new FingerprintSet();
+        set.add(new MavenArtifact("a", "g", "1", 0L));
+        set.add(new MavenArtifact("b", "g", "1", 0L));
+        store.addAll(set);
+        store.close();
+
+        FingerprintStore reopened = new FingerprintStore(file);
+        assertEquals(2, reopened.size());
+        assertTrue(reopened.contains(new MavenArtifact("a", "g", "1", 0L)));
+        assertTrue(reopened.contains(new MavenArtifact("b", "g", "1", 0L)));
+    }
+
+    @Test
+    public void testGrow() throws IOException {
+        File file = new File(folder.getRoot(), FingerprintStore.FILE_NAME);
+        FingerprintStore store = new FingerprintStore(file, 16);
+
+        List<MavenArtifact> artifacts = new ArrayList<>();
+        for (int i = 0; i < 10_000; i++) {
+            artifacts.add(new MavenArtifact("a", "g", "1." + i, 0L));
+        }
+        store.addAll(artifacts);
+        store.close();
+
+        assertEquals(10_000, store.size());
+        assertTrue(file.length() > 10_000 * 16);
+        assertFalse(new File(file.getPath() + ".grow").exists());
+
+        FingerprintStore reopened = new FingerprintStore(file);
+        assertEquals(10_000, reopened.size());
+        for (MavenArtifact artifact : artifacts) {
+            assertTrue(reopened.contains(artifact));
+        }
+    }
+
+    @Test
+    public void testFull() throws IOException {
+        File file = new File(folder.getRoot(), FingerprintStore.FILE_NAME);
+        FingerprintStore store = new FingerprintStore(file, 16, 32);
+
+        // 32 slots with a load factor of 0.75 hold 24 fingerprints.
+        for (long i = 1; i <= 24; i++) {
+            assertTrue(store.add(i, i));
+        }
+        assertEquals(24, store.size());
+
+        try {
+            store.add(25, 25);
+            fail("Expected the store to be full.");
+        } catch (IllegalStateException e) {
+            // The store can't grow.
+        }
+
+        // The store is unchanged and lookups of missing fingerprints still terminate.
+        assertEquals(24, store.size());
+        assertFalse(store.contains(25, 25));
+        assertFalse(store.contains(26, 26));
+        assertFalse(store.add(1, 1));
+        for (long i = 1; i <= 24; i++) {
+            assertTrue(store.contains(i, i));
+        }
+        store.close();
+
+        assertEquals(24, new FingerprintStore(file).size());
+    }
+
+    @Test(expected = IOException.class)
+    public void testNotAStore() throws IOException {
+        File file = folder.newFile();
+        Files.writeString(file.toPath(), "not a store");
+
+        new FingerprintStore(file);
+    }
+
+    @Test
+    public void testBloomFilterSnapshot() throws IOException {
+        File file = new File(folder.getRoot(), FingerprintStore.FILE_NAME);
+        File snapshot = new File(file.getPath() + ".bloom");
+        FingerprintStore store = new FingerprintStore(file);
+        store.setBloomFilter(0.01, 2);
+        assertTrue(snapshot.exists());
+
+        store.addAll(List.of(new MavenArtifact("a", "g", "1", 0L)));
+        store.commit();
+        assertTrue(store.contains(new MavenArtifact("a", "g", "1", 0L)));
+        assertFalse(store.contains(new MavenArtifact("a", "g", "2", 0L)));
+
+        store.addAll(List.of(new MavenArtifact("a", "g", "2", 0L)));
+        store.close();
+
+        FingerprintStore reopened = new FingerprintStore(file);
+        reopened.setBloomFilter(0.01, 2);
+        assertTrue(reopened.contains(new MavenArtifact("a", "g", "1", 0L)));
+        assertTrue(reopened.contains(new MavenArtifact("a", "g", "2", 0L)));
+    }
+
+    @Test
+    public void testBloomFilterOutdatedSnapshot() throws IOException {
+        File file = new File(folder.getRoot(), FingerprintStore.FILE_NAME);
+        FingerprintStore store = new FingerprintStore(file);
+        store.setBloomFilter(0.01, 10);
+
+        // Added after the snapshot, without writing a new one.
+        store.addAll(List.of(new MavenArtifact("a", "g", "1", 0L)));
+        store.commit();
+
+        FingerprintStore reopened = new FingerprintStore(file);
+        reopened.setBloomFilter(0.01, 10);
+        assertTrue(reopened.contains(new MavenArtifact("a", "g", "1", 0L)));
+    }
+
+    @Test
+    public void testBloomFilterGrow() throws IOException {
+        FingerprintStore store = new FingerprintStore(new File(folder.getRoot(), FingerprintStore.FILE_NAME), 16);
+        store.setBloomFilter(0.01, 1);
+        long initialSize = store.getBloomFilter().sizeInBytes();
+
+        List<MavenArtifact> artifacts = new ArrayList<>();
+        for (int i = 0; i < 10_000; i++) {
+            artifacts.add(new MavenArtifact("a", "g", "1." + i, 0L));
+        }
+        store.addAll(artifacts);
+
+        assertTrue(store.getBloomFilter().sizeInBytes() > initialSize);
+        for (MavenArtifact artifact : artifacts) {
+            assertTrue(store.contains(artifact));
+        }
+    }
+}
@@ -0,0 +1,89 @@
+package eu.fasten.crawler.data;
+
+import eu.fasten.crawler.CrawlIndex;
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.Field;
+import org.apache.lucene.document.StringField;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class MavenArtifactTest {
+
+    private Document document(String uinfo, String info) {
+        Document doc = new Document();
+        if (uinfo != null) {
+            doc.add(new StringField("u", uinfo, Field.Store.YES));
+        }
+        if (info != null) {
+            doc.add(new StringField("i", info, Field.Store.YES));
+        }
+        return doc;
+    }
+
+    @Test
+    public void testFromDocumentOfRepository() {
+        Repository nexus = new Repository("nexus", "https://nexus.example.com/");
+        MavenArtifact artifact = MavenArtifact.fromDocument(document("g|a|1.0|NA|jar", "jar|1609791717000|100|0|0|1|jar"), nexus);
+
+        assertEquals("https://nexus.example.com/", artifact.getRepositoryUrl());
+        assertSame(nexus, artifact.getRepository());
+        assertNotEquals(new MavenArtifact("a", "g", "1.0", 1609791717000L), artifact);
+        assertEquals(new MavenArtifact("a", "g", "1.0", 1609791717000L, new Repository("nexus", "https://nexus.example.com/")), artifact);
+    }
+
+    @Test
+    public void testRepositoryFromIndexUrl() {
+        assertEquals(Repository.MAVEN_CENTRAL.getUrl(), Repository.fromIndexUrl("central", "https://repo1.maven.org/maven2/.index/").getUrl());
+        assertEquals("https://nexus.example.com/repository/public/", Repository.fromIndexUrl("nexus", "https://nexus.example.com/repository/public/.index").getUrl());
+        assertEquals("file:/mirror/", Repository.fromIndexUrl("mirror", "file:/mirror").getUrl());
+    }
+
+    @Test
+    public void testFromDocument() {
+        MavenArtifact artifact = MavenArtifact.fromDocument(document("g|a|1.0|NA|jar", "jar|1609791717000|100|0|0|1|jar"));
+
+        assertEquals(new MavenArtifact("a", "g", "1.0", 1609791717000L), artifact);
+        assertEquals(Long.valueOf(1609791717000L), artifact.getTimestamp());
+    }
+
+    @Test
+    public void testFromDocumentClassifier() {
+        MavenArtifact artifact = MavenArtifact.fromDocument(document("g|a|1.0|sources|jar", "jar|5|100|0|0|1|jar"));
+
+        assertEquals(new MavenArtifact("a", "g", "1.0", 5L), artifact);
+    }
+
+    @Test
+    public void testFromDocumentLegacyUinfo() {
+        MavenArtifact artifact = MavenArtifact.fromDocument(document("g|a|1.0|NA", "pom|5|100|0|0|1"));
+
+        assertEquals(new MavenArtifact("a", "g", "1.0", 5L), artifact);
+    }
+
+    @Test
+    public void testFromDocumentNoInfo() {
+        MavenArtifact artifact = MavenArtifact.fromDocument(document("g|a|1.0|NA|jar", null));
+
+        assertEquals(Long.valueOf(-1L), artifact.getTimestamp());
+    }
+
+    @Test
+    public void testFromDocumentMatchesArtifactInfo() {
+        Document doc = document("g|a|1.0|NA|jar", "jar|1609791717000|100|0|0|1|jar");
+        MavenArtifact artifact = MavenArtifact.fromDocument(doc, CrawlIndex.getIndexingContext());
+
+        assertEquals(MavenArtifact.fromDocument(doc), artifact);
+        assertEquals(MavenArtifact.fromDocument(doc).getTimestamp(), artifact.getTimestamp());
+        assertSame(CrawlIndex.getIndexingContext(), CrawlIndex.getIndexingContext());
+    }
+
+    @Test
+    public void testFromDocumentNoUinfo() {
+        Document deleted = new Document();
+        deleted.add(new StringField("del", "g|a|1.0|NA|jar", Field.Store.YES));
+
+        assertNull(MavenArtifact.fromDocument(deleted));
+        assertNull(MavenArtifact.fromDocument(document(null, "jar|5|100|0|0|1|jar")));
+    }
+}
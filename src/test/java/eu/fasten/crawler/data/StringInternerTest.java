@@ -0,0 +1,50 @@
+package eu.fasten.crawler.data;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class StringInternerTest {
+
+    @Test
+    public void testIntern() {
+        StringInterner interner = new StringInterner(16);
+        String canonical = interner.intern(new String("org.example"));
+
+        assertSame(canonical, interner.intern(new String("org.example")));
+        assertEquals("org.other", interner.intern("org.other"));
+    }
+
+    @Test
+    public void testInternRange() {
+        StringInterner interner = new StringInterner(16);
+        String canonical = interner.intern("org.example|artifact|1.0", 0, 11);
+
+        assertEquals("org.example", canonical);
+        assertSame(canonical, interner.intern("org.example|other|2.0", 0, 11));
+        assertSame(canonical, interner.intern("x|org.example", 2, 13));
+        assertEquals("artifact", interner.intern("org.example|artifact|1.0", 12, 20));
+        assertEquals("", interner.intern("|a", 0, 0));
+    }
+
+    @Test
+    public void testCollisionReplacesSlot() {
+        // Both have the same hash, so they take the same slot in any table.
+        StringInterner interner = new StringInterner(2);
+        String first = interner.intern(new String("Aa"));
+        String second = interner.intern(new String("BB"));
+
+        assertEquals("Aa", first);
+        assertEquals("BB", second);
+        assertSame(second, interner.intern(new String("BB")));
+        assertNotSame(first, interner.intern(new String("Aa")));
+    }
+
+    @Test
+    public void testSizeRoundedUp() {
+        StringInterner interner = new StringInterner(0);
+
+        assertEquals("a", interner.intern("a"));
+        assertEquals("b", interner.intern("b"));
+    }
+}
@@ -0,0 +1,40 @@
+package eu.fasten.crawler.metrics;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Metrics;
+import org.apache.commons.io.IOUtils;
+import org.junit.Test;
+
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.Assert.*;
+
+public class MetricsServerTest {
+
+    @Test
+    public void testScrapeGlobalAndJvmMetrics() throws Exception {
+        MetricsServer server = new MetricsServer(0);
+        server.start();
+        try {
+            Counter.builder("crawler.test").register(Metrics.globalRegistry).increment(2);
+
+            HttpURLConnection connection = (HttpURLConnection) new URL("http://localhost:" + server.getPort() + MetricsServer.PATH).openConnection();
+            assertEquals(200, connection.getResponseCode());
+
+            String scrape;
+            try (InputStream in = connection.getInputStream()) {
+                scrape = IOUtils.toString(in, StandardCharsets.UTF_8);
+            }
+
+            assertTrue(scrape.contains("crawler_test_total 2.0"));
+            assertTrue(scrape.contains("jvm_memory_used_bytes"));
+        } finally {
+            server.stop();
+        }
+
+        assertFalse(Metrics.globalRegistry.getRegistries().contains(server.getRegistry()));
+    }
+}
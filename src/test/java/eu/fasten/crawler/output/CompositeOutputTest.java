@@ -0,0 +1,138 @@
+package eu.fasten.crawler.output;
+
+import eu.fasten.crawler.data.MavenArtifact;
+import org.apache.commons.lang3.reflect.FieldUtils;
+import org.junit.Test;
+
+import java.util.List;
+import java.util.Properties;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+import static org.mockito.Matchers.anyList;
+import static org.mockito.Mockito.*;
+
+public class CompositeOutputTest {
+
+    /**
+     * Output which records its batches, optionally blocking until released.
+     */
+    private static class RecordingOutput implements Output {
+        private final Queue<List<MavenArtifact>> batches = new ConcurrentLinkedQueue<>();
+        private final CountDownLatch release;
+        private final boolean result;
+
+        RecordingOutput(CountDownLatch release, boolean result) {
+            this.release = release;
+            this.result = result;
+        }
+
+        @Override
+        public boolean send(List<MavenArtifact> artifact) {
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                return false;
+            }
+            batches.add(artifact);
+            return result;
+        }
+    }
+
+    private final List<MavenArtifact> batchOne = List.of(new MavenArtifact("a", "g", "1", 0L));
+    private final List<MavenArtifact> batchTwo = List.of(new MavenArtifact("a", "g", "2", 0L));
+
+    @Test
+    public void testSendsToAllOutputs() {
+        RecordingOutput one = new RecordingOutput(new CountDownLatch(0), true);
+        RecordingOutput two = new RecordingOutput(new CountDownLatch(0), true);
+        CompositeOutput output = new CompositeOutput(List.of(one, two), 4);
+
+        output.open();
+        assertTrue(output.send(batchOne));
+        assertTrue(output.send(batchTwo));
+        assertTrue(output.flush());
+        output.close();
+
+        assertEquals(List.of(batchOne, batchTwo), List.copyOf(one.batches));
+        assertEquals(List.of(batchOne, batchTwo), List.copyOf(two.batches));
+    }
+
+    @Test
+    public void testSlowOutputDoesNotBlockOthers() throws InterruptedException {
+        CountDownLatch release = new CountDownLatch(1);
+        RecordingOutput slow = new RecordingOutput(release, true);
+        RecordingOutput fast = new RecordingOutput(new CountDownLatch(0), true);
+        CompositeOutput output = new CompositeOutput(List.of(slow, fast), 4);
+
+        output.open();
+        assertTrue(output.send(batchOne));
+        assertTrue(output.send(batchTwo));
+
+        // The fast output receives both batches while the slow one is still stuck on the first.
+        for (int i = 0; i < 100 && fast.batches.size() < 2; i++) {
+            TimeUnit.MILLISECONDS.sleep(10);
+        }
+        assertEquals(2, fast.batches.size());
+        assertEquals(0, slow.batches.size());
+
+        release.countDown();
+        assertTrue(output.flush());
+        assertEquals(2, slow.batches.size());
+        output.close();
+    }
+
+    @Test
+    public void testFailureFailsComposite() {
+        RecordingOutput failing = new RecordingOutput(new CountDownLatch(0), false);
+        RecordingOutput fine = new RecordingOutput(new CountDownLatch(0), true);
+        CompositeOutput output = new CompositeOutput(List.of(fine, failing), 4);
+
+        output.open();
+        assertTrue(output.send(batchOne));
+        assertFalse(output.flush());
+        assertFalse(output.send(batchTwo));
+        output.close();
+
+        assertEquals(1, fine.batches.size());
+    }
+
+    @Test
+    public void testFlushFailureFailsComposite() {
+        StdOutput failing = mock(StdOutput.class);
+        when(failing.send(anyList())).thenReturn(true);
+        when(failing.flush()).thenReturn(false);
+
+        CompositeOutput output = new CompositeOutput(List.of(new RecordingOutput(new CountDownLatch(0), true), failing), 4);
+
+        output.open();
+        assertTrue(output.send(batchOne));
+        assertFalse(output.flush());
+        output.close();
+
+        verify(failing).open();
+        verify(failing).close();
+    }
+
+    @Test
+    public void testOutputFactory() throws IllegalAccessException {
+        Properties properties = new Properties();
+        properties.setProperty("kafka_topic", "topic");
+        properties.setProperty("kafka_brokers", "localhost:9092");
+        properties.setProperty("rest_endpoint", "http://localhost/");
+        properties.setProperty("batch_size", "50");
+
+        Output output = OutputFactory.getOutput("kafka,rest", properties);
+
+        assertTrue(output instanceof CompositeOutput);
+        List<Output> outputs = ((CompositeOutput) output).getOutputs();
+        assertTrue(outputs.get(0) instanceof KafkaOutput);
+        assertTrue(outputs.get(1) instanceof RestOutput);
+
+        // Without the setting the output retries like the crawler does by default.
+        assertEquals(RestOutput.DEFAULT_RETRIES, FieldUtils.readField(outputs.get(1), "retries", true));
+    }
+}
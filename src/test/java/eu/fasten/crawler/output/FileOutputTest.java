@@ -0,0 +1,157 @@
+package eu.fasten.crawler.output;
+
+import com.github.luben.zstd.ZstdInputStream;
+import eu.fasten.crawler.data.MavenArtifact;
+import org.apache.commons.io.IOUtils;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.Assert.*;
+
+public class FileOutputTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private List<MavenArtifact> artifacts(int amount) {
+        List<MavenArtifact> artifacts = new ArrayList<>();
+        for (int i = 0; i < amount; i++) {
+            artifacts.add(new MavenArtifact("a", "g", "1." + i, (long) i));
+        }
+        return artifacts;
+    }
+
+    private File[] files(File dir) {
+        File[] files = dir.listFiles();
+        Arrays.sort(files);
+        return files;
+    }
+
+    private List<String> lines(File file) throws IOException {
+        try (InputStream in = new FileInputStream(file)) {
+            InputStream decompressed = file.getName().endsWith(".gz") ? new GZIPInputStream(in)
+                    : file.getName().endsWith(".zst") ? new ZstdInputStream(in) : in;
+            return IOUtils.readLines(decompressed, StandardCharsets.UTF_8);
+        }
+    }
+
+    @Test
+    public void testNdjson() throws IOException {
+        File dir = folder.newFolder();
+        FileOutput output = new FileOutput(dir, "none", 0, 0);
+        List<MavenArtifact> artifacts = artifacts(3);
+
+        output.open();
+        assertTrue(output.send(artifacts));
+        assertTrue(output.flush());
+        output.close();
+
+        File[] files = files(dir);
+        assertEquals(1, files.length);
+        assertTrue(files[0].getName().matches("artifacts-\\d+-00000\\.ndjson"));
+        assertEquals(List.of(artifacts.get(0).toString(), artifacts.get(1).toString(), artifacts.get(2).toString()), lines(files[0]));
+    }
+
+    @Test
+    public void testPartUntilFlushed() throws IOException {
+        File dir = folder.newFolder();
+        FileOutput output = new FileOutput(dir, "none", 0, 0);
+
+        output.open();
+        assertTrue(output.send(artifacts(1)));
+        output.close();
+        assertEquals(0, files(dir).length);
+
+        output.open();
+        assertTrue(output.send(artifacts(1)));
+        assertTrue(files(dir)[0].getName().endsWith(FileOutput.PART_SUFFIX));
+
+        assertTrue(output.flush());
+        assertFalse(files(dir)[0].getName().endsWith(FileOutput.PART_SUFFIX));
+        assertEquals(1, lines(files(dir)[0]).size());
+        output.close();
+        assertEquals(1, files(dir).length);
+    }
+
+    @Test
+    public void testFailedCrawlDeletesFiles() throws IOException {
+        File dir = folder.newFolder();
+        FileOutput output = new FileOutput(dir, "gzip", 0, 4);
+
+        // A successful index, and a failed index which is retried.
+        output.open();
+        assertTrue(output.send(artifacts(3)));
+        assertTrue(output.flush());
+        output.close();
+
+        output.open();
+        assertTrue(output.send(artifacts(10)));
+        output.close();
+
+        output.open();
+        assertTrue(output.send(artifacts(10)));
+        assertTrue(output.flush());
+        output.close();
+
+        File[] files = files(dir);
+        assertEquals(4, files.length);
+        assertEquals(3, lines(files[0]).size());
+        assertEquals(4, lines(files[1]).size());
+        assertEquals(4, lines(files[2]).size());
+        assertEquals(2, lines(files[3]).size());
+        assertTrue(Arrays.stream(files).noneMatch((f) -> f.getName().endsWith(FileOutput.PART_SUFFIX)));
+    }
+
+    @Test
+    public void testRotateByRecords() throws IOException {
+        File dir = folder.newFolder();
+        FileOutput output = new FileOutput(dir, "gzip", 0, 4);
+
+        output.open();
+        assertTrue(output.send(artifacts(10)));
+        assertTrue(output.flush());
+        output.close();
+
+        File[] files = files(dir);
+        assertEquals(3, files.length);
+        assertEquals(4, lines(files[0]).size());
+        assertEquals(4, lines(files[1]).size());
+        assertEquals(2, lines(files[2]).size());
+        assertTrue(files[0].getName().endsWith(".ndjson.gz"));
+    }
+
+    @Test
+    public void testRotateBySize() throws IOException {
+        File dir = folder.newFolder();
+        List<MavenArtifact> artifacts = artifacts(10);
+        long lineSize = artifacts.get(0).toJsonBytes().length + 1;
+        FileOutput output = new FileOutput(dir, "zstd", lineSize * 5, 0);
+
+        output.open();
+        assertTrue(output.send(artifacts.subList(0, 5)));
+        assertTrue(output.send(artifacts.subList(5, 10)));
+        assertTrue(output.flush());
+        output.close();
+
+        File[] files = files(dir);
+        assertEquals(2, files.length);
+        assertEquals(artifacts.get(5).toString(), lines(files[1]).get(0));
+        assertTrue(files[0].getName().endsWith(".ndjson.zst"));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testUnknownCompression() {
+        new FileOutput(new File("."), "lzma", 0, 0);
+    }
+}
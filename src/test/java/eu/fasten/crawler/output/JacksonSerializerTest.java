@@ -0,0 +1,68 @@
+package eu.fasten.crawler.output;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import eu.fasten.crawler.data.MavenArtifact;
+import org.junit.Test;
+
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class JacksonSerializerTest {
+
+    private final MavenArtifact artifact = new MavenArtifact("config", "software.amazon.awssdk", "2.15.58", 1609791717000L);
+    private final MavenArtifact artifactTwo = new MavenArtifact("config", "software.amazon.awssdk", "2.15.59", null);
+
+    @Test
+    public void testJsonMatchesToString() {
+        assertArrayEquals(artifact.toJsonBytes(), JacksonSerializer.JSON.serialize(artifact));
+        assertArrayEquals(new RestOutput("").buildJsonBytes(List.of(artifact, artifactTwo)),
+                JacksonSerializer.JSON.serialize(List.of(artifact, artifactTwo)));
+    }
+
+    @Test
+    public void testCborDecodesToJson() throws Exception {
+        ObjectMapper json = new ObjectMapper();
+        ObjectMapper cbor = new ObjectMapper(new CBORFactory());
+
+        assertEquals(json.readTree(artifact.toString()), cbor.readTree(JacksonSerializer.CBOR.serialize(artifact)));
+        assertEquals(json.readTree(JacksonSerializer.JSON.serialize(List.of(artifact, artifactTwo))),
+                cbor.readTree(JacksonSerializer.CBOR.serialize(List.of(artifact, artifactTwo))));
+    }
+
+    @Test
+    public void testSmileDecodesToJson() throws Exception {
+        ObjectMapper json = new ObjectMapper();
+        ObjectMapper smile = new ObjectMapper(new SmileFactory());
+
+        JsonNode decoded = smile.readTree(JacksonSerializer.SMILE.serialize(artifact));
+        assertEquals(json.readTree(artifact.toString()), decoded);
+        assertEquals(1609791717000L, decoded.get("date").asLong());
+        assertEquals(json.readTree(JacksonSerializer.JSON.serialize(List.of(artifact, artifactTwo))),
+                smile.readTree(JacksonSerializer.SMILE.serialize(List.of(artifact, artifactTwo))));
+    }
+
+    @Test
+    public void testBinaryFormatsAreSmaller() {
+        int json = JacksonSerializer.JSON.serialize(artifact).length;
+
+        assertTrue(JacksonSerializer.CBOR.serialize(artifact).length < json);
+        assertTrue(JacksonSerializer.SMILE.serialize(artifact).length < json);
+    }
+
+    @Test
+    public void testForFormat() {
+        assertSame(JacksonSerializer.JSON, JacksonSerializer.forFormat("json"));
+        assertSame(JacksonSerializer.CBOR, JacksonSerializer.forFormat("cbor"));
+        assertSame(JacksonSerializer.SMILE, JacksonSerializer.forFormat("smile"));
+        assertEquals("application/cbor", JacksonSerializer.forFormat("cbor").getContentType());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testUnknownFormat() {
+        JacksonSerializer.forFormat("xml");
+    }
+}
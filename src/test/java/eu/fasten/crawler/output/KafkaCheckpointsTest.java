@@ -0,0 +1,65 @@
+package eu.fasten.crawler.output;
+
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.MockConsumer;
+import org.apache.kafka.clients.consumer.OffsetResetStrategy;
+import org.apache.kafka.common.PartitionInfo;
+import org.apache.kafka.common.TopicPartition;
+import org.junit.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class KafkaCheckpointsTest {
+
+    private final TopicPartition partition0 = new TopicPartition("checkpoints", 0);
+    private final TopicPartition partition1 = new TopicPartition("checkpoints", 1);
+
+    private MockConsumer<String, String> consumer(long endOffset0, long endOffset1) {
+        MockConsumer<String, String> consumer = new MockConsumer<>(OffsetResetStrategy.EARLIEST);
+        consumer.updatePartitions("checkpoints", List.of(
+                new PartitionInfo("checkpoints", 0, null, null, null),
+                new PartitionInfo("checkpoints", 1, null, null, null)));
+        consumer.updateBeginningOffsets(Map.of(partition0, 0L, partition1, 0L));
+        consumer.updateEndOffsets(Map.of(partition0, endOffset0, partition1, endOffset1));
+        return consumer;
+    }
+
+    @Test
+    public void testReadLastCheckpointPerRepository() {
+        MockConsumer<String, String> consumer = consumer(3, 1);
+        consumer.schedulePollTask(() -> {
+            consumer.addRecord(new ConsumerRecord<>("checkpoints", 0, 0, "central", "700"));
+            consumer.addRecord(new ConsumerRecord<>("checkpoints", 1, 0, "mirror", "12"));
+        });
+        consumer.schedulePollTask(() -> {
+            consumer.addRecord(new ConsumerRecord<>("checkpoints", 0, 1, "central", "701"));
+            consumer.addRecord(new ConsumerRecord<>("checkpoints", 0, 2, "central", "702"));
+        });
+
+        Map<String, Integer> checkpoints = KafkaCheckpoints.read(consumer, "checkpoints");
+
+        assertEquals(Map.of("central", 702, "mirror", 12), checkpoints);
+    }
+
+    @Test
+    public void testReadDeletedCheckpoint() {
+        MockConsumer<String, String> consumer = consumer(2, 0);
+        consumer.schedulePollTask(() -> {
+            consumer.addRecord(new ConsumerRecord<>("checkpoints", 0, 0, "central", "700"));
+            consumer.addRecord(new ConsumerRecord<>("checkpoints", 0, 1, "central", null));
+        });
+
+        assertTrue(KafkaCheckpoints.read(consumer, "checkpoints").isEmpty());
+    }
+
+    @Test
+    public void testReadMissingTopic() {
+        MockConsumer<String, String> consumer = new MockConsumer<>(OffsetResetStrategy.EARLIEST);
+
+        assertTrue(KafkaCheckpoints.read(consumer, "checkpoints").isEmpty());
+    }
+}
@@ -3,22 +3,81 @@ package eu.fasten.crawler.output;
 import eu.fasten.crawler.data.MavenArtifact;
 import org.apache.commons.lang3.reflect.FieldUtils;
 import org.apache.kafka.clients.producer.KafkaProducer;
+import org.apache.kafka.clients.producer.MockProducer;
 import org.apache.kafka.clients.producer.ProducerRecord;
 import org.apache.kafka.clients.producer.RecordMetadata;
+import org.apache.kafka.common.errors.ProducerFencedException;
+import org.apache.kafka.common.serialization.ByteArraySerializer;
+import org.apache.kafka.common.serialization.StringSerializer;
 import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.ArgumentMatcher;
 import org.mockito.Spy;
 
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
 import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.argThat;
 import static org.mockito.Mockito.*;
 import static org.mockito.Mockito.doReturn;
 
 public class KafkaOutputTest {
 
+    private ArgumentMatcher<ProducerRecord<String, byte[]>> hasValue(MavenArtifact artifact) {
+        return new ArgumentMatcher<ProducerRecord<String, byte[]>>() {
+            @Override
+            public boolean matches(Object record) {
+                return Arrays.equals(artifact.toJsonBytes(), ((ProducerRecord<String, byte[]>) record).value());
+            }
+        };
+    }
+
+    @Test
+    public void testKafkaOutputRecordValue() throws IllegalAccessException {
+        MavenArtifact artifact = new MavenArtifact("a", "g", "1", 0L);
+
+        KafkaOutput kafkaOutput = spy(new KafkaOutput("topic", "", 50));
+        KafkaProducer<String, byte[]> prod = mock(KafkaProducer.class);
+        Future<RecordMetadata> fut = mock(Future.class);
+
+        doReturn(fut).when(prod).send(any());
+        FieldUtils.writeField(kafkaOutput, "producer", prod, true);
+
+        assertTrue(kafkaOutput.send(artifact));
+
+        ArgumentCaptor<ProducerRecord> captor = ArgumentCaptor.forClass(ProducerRecord.class);
+        verify(prod).send(captor.capture());
+        assertEquals("topic", captor.getValue().topic());
+        assertEquals("g:a", captor.getValue().key());
+        assertEquals(artifact.toString(), new String((byte[]) captor.getValue().value(), StandardCharsets.UTF_8));
+    }
+
+    @Test
+    public void testKafkaOutputProducerProperties() {
+        KafkaOutput kafkaOutput = new KafkaOutput("topic", "broker:9092", 50);
+        assertNull(kafkaOutput.getProducerProperties().get("batch.size"));
+        assertEquals("lz4", kafkaOutput.getProducerProperties().get("compression.type"));
+
+        Properties overrides = new Properties();
+        overrides.setProperty("compression.type", "zstd");
+        overrides.setProperty("batch.size", "65536");
+        kafkaOutput.setProducerProperties(overrides);
+
+        assertEquals("zstd", kafkaOutput.getProducerProperties().get("compression.type"));
+        assertEquals("65536", kafkaOutput.getProducerProperties().get("batch.size"));
+        assertEquals("broker:9092", kafkaOutput.getProducerProperties().get("bootstrap.servers"));
+    }
+
     @Test
     public void testKafkaOutputSuccessfulSend() throws IllegalAccessException {
         MavenArtifact artifactOne = new MavenArtifact("a", "g", "1", 0L);
@@ -26,7 +85,7 @@ public class KafkaOutputTest {
 
         KafkaOutput kafkaOutput = spy(new KafkaOutput("", "", 50));
 
-        KafkaProducer<String, String> prod = mock(KafkaProducer.class);
+        KafkaProducer<String, byte[]> prod = mock(KafkaProducer.class);
         Future<RecordMetadata> fut = mock(Future.class);
 
         doNothing().when(kafkaOutput).open();
@@ -45,13 +104,13 @@ public class KafkaOutputTest {
 
         KafkaOutput kafkaOutput = spy(new KafkaOutput("", "", 50));
 
-        KafkaProducer<String, String> prod = mock(KafkaProducer.class);
+        KafkaProducer<String, byte[]> prod = mock(KafkaProducer.class);
         Future<RecordMetadata> fut = mock(Future.class);
         Future<RecordMetadata> futTwo = mock(Future.class);
 
         doNothing().when(kafkaOutput).open();
-        doReturn(fut).when(prod).send(new ProducerRecord<String, String>("", null, artifactOne.getTimestamp(), null, artifactOne.toString()));
-        doReturn(futTwo).when(prod).send(new ProducerRecord<String, String>("", null, artifactTwo.getTimestamp(), null, artifactTwo.toString()));
+        doReturn(fut).when(prod).send(argThat(hasValue(artifactOne)));
+        doReturn(futTwo).when(prod).send(argThat(hasValue(artifactTwo)));
 
         when(futTwo.get()).thenThrow(InterruptedException.class);
 
@@ -60,4 +119,143 @@ public class KafkaOutputTest {
         boolean res = kafkaOutput.send(List.of(artifactOne, artifactTwo));
         assertFalse(res);
     }
+
+    @Test
+    public void testKafkaOutputAsyncSend() throws IllegalAccessException {
+        MockProducer<String, byte[]> prod = new MockProducer<>(false, new StringSerializer(), new ByteArraySerializer());
+
+        KafkaOutput kafkaOutput = new KafkaOutput("topic", "", 50);
+        kafkaOutput.setInFlightBatches(2);
+        FieldUtils.writeField(kafkaOutput, "producer", prod, true);
+
+        // Both batches fit in the window, so neither waits for an acknowledgement.
+        assertTrue(kafkaOutput.send(List.of(new MavenArtifact("a", "g", "1", 0L), new MavenArtifact("a", "g", "2", 0L))));
+        assertTrue(kafkaOutput.send(List.of(new MavenArtifact("a", "g", "3", 0L))));
+        assertEquals(3, prod.history().size());
+
+        // Flushing completes all in-flight records.
+        assertTrue(kafkaOutput.flush());
+    }
+
+    @Test
+    public void testKafkaOutputAsyncWindow() throws Exception {
+        MockProducer<String, byte[]> prod = new MockProducer<>(false, new StringSerializer(), new ByteArraySerializer());
+
+        KafkaOutput kafkaOutput = new KafkaOutput("topic", "", 50);
+        kafkaOutput.setInFlightBatches(1);
+        FieldUtils.writeField(kafkaOutput, "producer", prod, true);
+
+        assertTrue(kafkaOutput.send(new MavenArtifact("a", "g", "1", 0L)));
+
+        // The window is full, so the next batch waits until the first one is acknowledged.
+        CompletableFuture<Boolean> second = CompletableFuture.supplyAsync(() -> kafkaOutput.send(new MavenArtifact("a", "g", "2", 0L)));
+        Thread.sleep(200);
+        assertFalse(second.isDone());
+        assertEquals(1, prod.history().size());
+
+        assertTrue(prod.completeNext());
+        assertTrue(second.get(5, TimeUnit.SECONDS));
+        assertEquals(2, prod.history().size());
+    }
+
+    @Test
+    public void testKafkaOutputAsyncFailure() throws IllegalAccessException {
+        MockProducer<String, byte[]> prod = new MockProducer<>(false, new StringSerializer(), new ByteArraySerializer());
+
+        KafkaOutput kafkaOutput = new KafkaOutput("topic", "", 50);
+        kafkaOutput.setInFlightBatches(2);
+        FieldUtils.writeField(kafkaOutput, "producer", prod, true);
+
+        assertTrue(kafkaOutput.send(List.of(new MavenArtifact("a", "g", "1", 0L), new MavenArtifact("a", "g", "2", 0L))));
+        assertTrue(prod.completeNext());
+        assertTrue(prod.errorNext(new RuntimeException("Broker unavailable")));
+
+        // The failure surfaces at the next send and at flush.
+        assertFalse(kafkaOutput.send(new MavenArtifact("a", "g", "3", 0L)));
+        assertFalse(kafkaOutput.flush());
+    }
+
+    @Test
+    public void testKafkaOutputTransaction() {
+        MockProducer<String, byte[]> prod = new MockProducer<>(true, new StringSerializer(), new ByteArraySerializer());
+
+        KafkaOutput kafkaOutput = new KafkaOutput("topic", "", 50);
+        kafkaOutput.setCheckpointTopic("checkpoints", "crawler-central");
+        assertEquals("crawler-central", kafkaOutput.getProducerProperties().get("transactional.id"));
+        kafkaOutput.open(prod);
+
+        assertTrue(kafkaOutput.send(List.of(new MavenArtifact("a", "g", "1", 0L), new MavenArtifact("a", "g", "2", 0L))));
+        kafkaOutput.checkpoint("central", 5);
+
+        // Nothing is visible until the records are committed together with the checkpoint.
+        assertTrue(prod.history().isEmpty());
+        assertTrue(kafkaOutput.flush());
+        kafkaOutput.close();
+
+        assertTrue(prod.transactionCommitted());
+        assertFalse(prod.transactionAborted());
+        assertEquals(3, prod.history().size());
+
+        ProducerRecord<String, byte[]> checkpoint = prod.history().get(2);
+        assertEquals("checkpoints", checkpoint.topic());
+        assertEquals("central", checkpoint.key());
+        assertEquals("5", new String(checkpoint.value(), StandardCharsets.UTF_8));
+    }
+
+    @Test
+    public void testKafkaOutputTransactionAbortedOnClose() {
+        MockProducer<String, byte[]> prod = new MockProducer<>(true, new StringSerializer(), new ByteArraySerializer());
+
+        KafkaOutput kafkaOutput = new KafkaOutput("topic", "", 50);
+        kafkaOutput.setCheckpointTopic("checkpoints", "crawler-central");
+        kafkaOutput.open(prod);
+
+        // A crawl which fails before flushing is aborted, including its checkpoint.
+        assertTrue(kafkaOutput.send(new MavenArtifact("a", "g", "1", 0L)));
+        kafkaOutput.checkpoint("central", 5);
+        kafkaOutput.close();
+
+        assertTrue(prod.transactionAborted());
+        assertFalse(prod.transactionCommitted());
+        assertTrue(prod.history().isEmpty());
+    }
+
+    @Test
+    public void testKafkaOutputTransactionFailedCommit() {
+        MockProducer<String, byte[]> prod = new MockProducer<>(true, new StringSerializer(), new ByteArraySerializer());
+
+        KafkaOutput kafkaOutput = new KafkaOutput("topic", "", 50);
+        kafkaOutput.setCheckpointTopic("checkpoints", "crawler-central");
+        kafkaOutput.setInFlightBatches(2);
+        kafkaOutput.open(prod);
+
+        assertTrue(kafkaOutput.send(new MavenArtifact("a", "g", "1", 0L)));
+        kafkaOutput.checkpoint("central", 5);
+
+        // E.g. another crawler with the same transactional id took over.
+        prod.commitTransactionException = new ProducerFencedException("Fenced by another crawler");
+        assertFalse(kafkaOutput.flush());
+        kafkaOutput.close();
+
+        assertFalse(prod.transactionCommitted());
+        assertTrue(prod.transactionAborted());
+        assertTrue(prod.history().isEmpty());
+    }
+
+    @Test
+    public void testKafkaOutputWithoutTransaction() {
+        MockProducer<String, byte[]> prod = new MockProducer<>(true, new StringSerializer(), new ByteArraySerializer());
+
+        KafkaOutput kafkaOutput = new KafkaOutput("topic", "", 50);
+        kafkaOutput.open(prod);
+
+        // Checkpoints are only sent in transactional mode.
+        assertTrue(kafkaOutput.send(new MavenArtifact("a", "g", "1", 0L)));
+        kafkaOutput.checkpoint("central", 5);
+        assertTrue(kafkaOutput.flush());
+
+        assertFalse(prod.transactionInFlight());
+        assertEquals(1, prod.history().size());
+        assertEquals("topic", prod.history().get(0).topic());
+    }
 }
@@ -0,0 +1,88 @@
+package eu.fasten.crawler.output;
+
+import eu.fasten.crawler.data.MavenArtifact;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.Test;
+
+import java.util.List;
+import java.util.Properties;
+
+import static org.junit.Assert.*;
+import static org.mockito.Matchers.anyList;
+import static org.mockito.Mockito.*;
+
+public class MeteredOutputTest {
+
+    private final List<MavenArtifact> batch = List.of(new MavenArtifact("a", "g", "1", 0L), new MavenArtifact("a", "g", "2", 0L));
+
+    @Test
+    public void testRecordsSendsAndFlushes() {
+        Output inner = mock(Output.class);
+        when(inner.send(anyList())).thenReturn(true, false);
+        when(inner.flush()).thenReturn(true);
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        MeteredOutput output = new MeteredOutput(inner, "kafka", registry);
+
+        assertTrue(output.send(batch));
+        assertFalse(output.send(batch));
+        assertTrue(output.flush());
+
+        assertEquals(1, registry.get("crawler.output.send").tags("output", "kafka", "result", "success").timer().count());
+        assertEquals(1, registry.get("crawler.output.send").tags("output", "kafka", "result", "failure").timer().count());
+        assertEquals(1, registry.get("crawler.output.flush").tags("output", "kafka", "result", "success").timer().count());
+        assertEquals(2, registry.get("crawler.output.records").tag("output", "kafka").counter().count(), 0);
+        assertEquals(1, registry.get("crawler.output.errors").tag("output", "kafka").counter().count(), 0);
+        verify(inner, times(2)).send(batch);
+    }
+
+    @Test
+    public void testFailedFlushIsAnError() {
+        Output inner = mock(Output.class);
+        when(inner.flush()).thenReturn(false);
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        MeteredOutput output = new MeteredOutput(inner, "rest", registry);
+
+        assertFalse(output.flush());
+        assertEquals(1, registry.get("crawler.output.flush").tags("output", "rest", "result", "failure").timer().count());
+        assertEquals(1, registry.get("crawler.output.errors").tag("output", "rest").counter().count(), 0);
+    }
+
+    @Test
+    public void testInFlightGauge() {
+        Output inner = mock(Output.class);
+        when(inner.getInFlightBatches()).thenReturn(3);
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        new MeteredOutput(inner, "kafka", registry);
+
+        assertEquals(3, registry.get("crawler.output.in_flight").tag("output", "kafka").gauge().value(), 0);
+    }
+
+    @Test
+    public void testInFlightGaugeSumsOutputsWithSameName() {
+        Output first = mock(Output.class);
+        Output second = mock(Output.class);
+        Output other = mock(Output.class);
+        when(first.getInFlightBatches()).thenReturn(3);
+        when(second.getInFlightBatches()).thenReturn(4);
+        when(other.getInFlightBatches()).thenReturn(5);
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        new MeteredOutput(first, "kafka", registry);
+        new MeteredOutput(second, "kafka", registry);
+        new MeteredOutput(other, "rest", registry);
+
+        assertEquals(7, registry.get("crawler.output.in_flight").tag("output", "kafka").gauge().value(), 0);
+        assertEquals(5, registry.get("crawler.output.in_flight").tag("output", "rest").gauge().value(), 0);
+    }
+
+    @Test
+    public void testFactoryOnlyMetersWhenEnabled() {
+        Properties properties = new Properties();
+        assertTrue(OutputFactory.getOutput("std", properties) instanceof StdOutput);
+
+        properties.setProperty("metrics", "true");
+        Output output = OutputFactory.getOutput("std", properties);
+        assertTrue(output instanceof MeteredOutput);
+        assertTrue(((MeteredOutput) output).getOutput() instanceof StdOutput);
+        assertEquals("std", ((MeteredOutput) output).getName());
+    }
+}
@@ -0,0 +1,192 @@
+package eu.fasten.crawler.output;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import eu.fasten.crawler.data.MavenArtifact;
+import org.apache.commons.io.IOUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests RestOutput against a local HTTP stub server.
+ */
+public class RestOutputServerTest {
+
+    private HttpServer server;
+    private String endpoint;
+
+    // Responses to return (in order), afterwards 200.
+    private final Queue<Integer> responses = new ConcurrentLinkedQueue<>();
+
+    // What the server received.
+    private final Queue<String> bodies = new ConcurrentLinkedQueue<>();
+    private final Set<Integer> clientPorts = ConcurrentHashMap.newKeySet();
+    private final AtomicInteger requests = new AtomicInteger();
+    private final AtomicInteger concurrent = new AtomicInteger();
+    private final AtomicInteger maxConcurrent = new AtomicInteger();
+    private volatile long delay = 0;
+
+    private final MavenArtifact artifact = new MavenArtifact("a", "g", "1", 0L);
+
+    @Before
+    public void setUp() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/artifacts", this::handle);
+        server.setExecutor(Executors.newCachedThreadPool());
+        server.start();
+
+        endpoint = "http://127.0.0.1:" + server.getAddress().getPort() + "/artifacts";
+    }
+
+    @After
+    public void tearDown() {
+        server.stop(0);
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        maxConcurrent.accumulateAndGet(concurrent.incrementAndGet(), Math::max);
+        requests.incrementAndGet();
+        clientPorts.add(exchange.getRemoteAddress().getPort());
+
+        try (InputStream in = "gzip".equals(exchange.getRequestHeaders().getFirst("Content-Encoding"))
+                ? new GZIPInputStream(exchange.getRequestBody()) : exchange.getRequestBody()) {
+            bodies.add(IOUtils.toString(in, StandardCharsets.UTF_8));
+        }
+
+        if (delay > 0) {
+            try {
+                Thread.sleep(delay);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        Integer code = responses.poll();
+        byte[] response = "ok".getBytes(StandardCharsets.UTF_8);
+        exchange.sendResponseHeaders(code == null ? 200 : code, response.length);
+        exchange.getResponseBody().write(response);
+        exchange.close();
+        concurrent.decrementAndGet();
+    }
+
+    @Test
+    public void testReusesConnection() {
+        RestOutput output = new RestOutput(endpoint);
+        output.open();
+
+        for (int i = 0; i < 5; i++) {
+            assertTrue(output.send(artifact));
+        }
+        assertTrue(output.flush());
+        output.close();
+
+        assertEquals(5, requests.get());
+        assertEquals(1, clientPorts.size());
+        assertEquals("[" + artifact + "]", bodies.peek());
+    }
+
+    @Test
+    public void testGzip() {
+        RestOutput output = new RestOutput(endpoint);
+        output.setGzip(true);
+        output.open();
+
+        assertTrue(output.send(List.of(artifact, new MavenArtifact("a", "g", "2", 0L))));
+        output.close();
+
+        assertEquals(new RestOutput("").buildJsonList(List.of(artifact, new MavenArtifact("a", "g", "2", 0L))), bodies.peek());
+    }
+
+    @Test
+    public void testRetryServerError() {
+        responses.add(503);
+        responses.add(500);
+
+        RestOutput output = new RestOutput(endpoint);
+        output.setRetries(2, 10);
+        output.open();
+
+        assertTrue(output.send(artifact));
+        output.close();
+
+        assertEquals(3, requests.get());
+    }
+
+    @Test
+    public void testRetriesExhausted() {
+        responses.add(503);
+        responses.add(503);
+
+        RestOutput output = new RestOutput(endpoint);
+        output.setRetries(1, 10);
+        output.open();
+
+        assertFalse(output.send(artifact));
+        output.close();
+
+        assertEquals(2, requests.get());
+    }
+
+    @Test
+    public void testNoRetryClientError() {
+        responses.add(400);
+
+        RestOutput output = new RestOutput(endpoint);
+        output.setRetries(3, 10);
+        output.open();
+
+        assertFalse(output.send(artifact));
+        output.close();
+
+        assertEquals(1, requests.get());
+    }
+
+    @Test
+    public void testConcurrentRequests() {
+        delay = 100;
+
+        RestOutput output = new RestOutput(endpoint);
+        output.setConcurrency(3);
+        output.open();
+
+        for (int i = 0; i < 9; i++) {
+            assertTrue(output.send(artifact));
+        }
+        assertTrue(output.flush());
+        output.close();
+
+        assertEquals(9, requests.get());
+        assertTrue(maxConcurrent.get() > 1);
+        assertTrue(maxConcurrent.get() <= 3);
+    }
+
+    @Test
+    public void testConcurrentFailureAtFlush() {
+        responses.add(500);
+
+        RestOutput output = new RestOutput(endpoint);
+        output.setConcurrency(2);
+        output.open();
+
+        assertTrue(output.send(artifact));
+        assertFalse(output.flush());
+        assertFalse(output.send(artifact));
+        output.close();
+    }
+}
@@ -10,6 +10,7 @@ import org.junit.Test;
 import org.junit.runner.RunWith;
 
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.util.List;
 
 import static org.junit.Assert.*;
@@ -33,6 +34,21 @@ public class RestOutputTest {
         assertFalse(res);
     }
 
+    @Test
+    public void testRestOutputConcurrentThrows() {
+        RestOutput output = spy(new RestOutput(""));
+        output.setConcurrency(2);
+        output.open();
+
+        // E.g. an invalid endpoint, the batch is lost so flushing (and checkpointing) must fail.
+        doThrow(new IllegalArgumentException("Invalid endpoint")).when(output).constructPostRequest();
+
+        assertTrue(output.send(new MavenArtifact("a", "b", "c", 0L)));
+        assertFalse(output.flush());
+        assertFalse(output.send(new MavenArtifact("a", "b", "c", 0L)));
+        output.close();
+    }
+
     @Test
     public void testRestOutputFailedStatus() throws Exception {
         RestOutput output = spy(new RestOutput(""));
@@ -83,6 +99,16 @@ public class RestOutputTest {
         assertEquals("[" + af.toString() + "]", list);
     }
 
+    @Test
+    public void testVerifyJSONBytes() throws Exception {
+        RestOutput output = new RestOutput("");
+        MavenArtifact af = new MavenArtifact("a\u00e9", "b", "c", 0L);
+        byte[] list = output.buildJsonBytes(List.of(af));
+
+        assertEquals("[{\"artifactId\":\"a\u00e9\",\"groupId\":\"b\",\"version\":\"c\",\"date\":0,\"artifactRepository\":\"https://repo.maven.apache.org/maven2/\"}]",
+                new String(list, StandardCharsets.UTF_8));
+    }
+
     @Test
     public void testVerifyJSONList() throws Exception {
         RestOutput output = spy(new RestOutput(""));
@@ -0,0 +1,53 @@
+package eu.fasten.crawler.output;
+
+import eu.fasten.crawler.data.MavenArtifact;
+import org.junit.Test;
+
+import java.util.List;
+
+import static org.junit.Assert.*;
+import static org.mockito.Matchers.anyList;
+import static org.mockito.Mockito.*;
+
+public class SharedOutputTest {
+
+    private final List<MavenArtifact> batch = List.of(new MavenArtifact("a", "g", "1", 0L));
+
+    @Test
+    public void testOpensOnceAndClosesAfterLast() {
+        Output inner = mock(Output.class);
+        when(inner.send(anyList())).thenReturn(true);
+        when(inner.flush()).thenReturn(true);
+        SharedOutput output = new SharedOutput(inner);
+
+        output.open();
+        output.open();
+        verify(inner, times(1)).open();
+
+        assertTrue(output.send(batch));
+        assertTrue(output.flush());
+        output.close();
+        verify(inner, never()).close();
+
+        output.close();
+        verify(inner, times(1)).close();
+
+        // Reopened by the next crawl.
+        output.open();
+        verify(inner, times(2)).open();
+        verify(inner).send(batch);
+    }
+
+    @Test
+    public void testUnbalancedCloseIsIgnored() {
+        Output inner = mock(Output.class);
+        SharedOutput output = new SharedOutput(inner);
+
+        output.close();
+        verify(inner, never()).close();
+
+        output.open();
+        output.close();
+        verify(inner, times(1)).close();
+    }
+}
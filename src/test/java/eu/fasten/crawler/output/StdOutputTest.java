@@ -0,0 +1,67 @@
+package eu.fasten.crawler.output;
+
+import eu.fasten.crawler.data.MavenArtifact;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class StdOutputTest {
+
+    private final PrintStream stdout = System.out;
+    private final ByteArrayOutputStream captured = new ByteArrayOutputStream();
+
+    @Before
+    public void captureStdout() {
+        System.setOut(new PrintStream(captured, false));
+    }
+
+    @After
+    public void restoreStdout() {
+        System.setOut(stdout);
+    }
+
+    private List<MavenArtifact> batch(int size) {
+        List<MavenArtifact> batch = new ArrayList<>();
+        for (int i = 0; i < size; i++) {
+            batch.add(new MavenArtifact("a", "g", String.valueOf(i), 0L));
+        }
+        return batch;
+    }
+
+    @Test
+    public void testBufferedUntilFlush() {
+        StdOutput output = new StdOutput();
+
+        assertTrue(output.send(batch(2)));
+        assertEquals(0, captured.size());
+
+        assertTrue(output.flush());
+        assertEquals(batch(2).get(0) + "\n" + batch(2).get(1) + "\n", captured.toString(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    public void testWritesWholeLines() {
+        StdOutput output = new StdOutput();
+
+        // A batch which overflows the buffer is written at once, other writes (e.g. logs) end up between lines.
+        assertTrue(output.send(batch(2000)));
+        System.out.print("log line\n");
+        assertTrue(output.send(batch(2000)));
+        assertTrue(output.flush());
+
+        String[] lines = captured.toString(StandardCharsets.UTF_8).split("\n");
+        assertEquals(4001, lines.length);
+        for (String line : lines) {
+            assertTrue(line, line.equals("log line") || (line.startsWith("{") && line.endsWith("}")));
+        }
+    }
+}